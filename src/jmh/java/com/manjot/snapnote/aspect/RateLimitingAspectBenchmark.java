@@ -0,0 +1,163 @@
+package com.manjot.snapnote.aspect;
+
+import com.manjot.snapnote.annotation.RateLimited;
+import com.manjot.snapnote.configuration.RateLimitProperties;
+import com.manjot.snapnote.controller.NoteController;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.SourceLocation;
+import org.aspectj.runtime.internal.AroundClosure;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead the rate-limit aspect adds to a request for an authenticated principal with a
+ * budget that never runs out, measured against calling the join point directly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RateLimitingAspectBenchmark {
+    private RateLimitingAspect aspect;
+
+    private RateLimited rateLimited;
+
+    private ProceedingJoinPoint joinPoint;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        RateLimitProperties properties = new RateLimitProperties();
+        RateLimitProperties.Policy policy = new RateLimitProperties.Policy();
+        // refills faster than a benchmark thread can consume, within Bucket4j's limit of 1 token/ns
+        policy.setCapacity(1_000_000_000L);
+        policy.setRefillTokens(1_000_000_000L);
+        policy.setRefillPeriod(Duration.ofSeconds(2));
+        properties.getPolicies().put("read", policy);
+        aspect = new RateLimitingAspect(properties, Optional.empty());
+        rateLimited = RateLimitingAspectBenchmark.class.getDeclaredMethod("endpoint").getAnnotation(RateLimited.class);
+        joinPoint = new StubJoinPoint(new StubSignature(NoteController.class, "getNoteById"));
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("alice", null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @RateLimited("read")
+    private void endpoint() {
+    }
+
+    @Benchmark
+    public Object baseline() throws Throwable {
+        return joinPoint.proceed();
+    }
+
+    @Benchmark
+    public Object checkRateLimit() throws Throwable {
+        return aspect.checkRateLimit(joinPoint, rateLimited);
+    }
+
+    private record StubSignature(Class<?> declaringType, String name) implements Signature {
+        @Override
+        public String toShortString() {
+            return name;
+        }
+
+        @Override
+        public String toLongString() {
+            return declaringType.getName() + '.' + name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getModifiers() {
+            return 0;
+        }
+
+        @Override
+        public Class getDeclaringType() {
+            return declaringType;
+        }
+
+        @Override
+        public String getDeclaringTypeName() {
+            return declaringType.getName();
+        }
+    }
+
+    private record StubJoinPoint(Signature signature) implements ProceedingJoinPoint {
+        private static final Object RESULT = "ok";
+
+        @Override
+        public void set$AroundClosure(AroundClosure arc) {
+        }
+
+        @Override
+        public Object proceed() {
+            return RESULT;
+        }
+
+        @Override
+        public Object proceed(Object[] args) {
+            return RESULT;
+        }
+
+        @Override
+        public String toShortString() {
+            return signature.toShortString();
+        }
+
+        @Override
+        public String toLongString() {
+            return signature.toLongString();
+        }
+
+        @Override
+        public Object getThis() {
+            return null;
+        }
+
+        @Override
+        public Object getTarget() {
+            return null;
+        }
+
+        @Override
+        public Object[] getArgs() {
+            return new Object[0];
+        }
+
+        @Override
+        public Signature getSignature() {
+            return signature;
+        }
+
+        @Override
+        public SourceLocation getSourceLocation() {
+            return null;
+        }
+
+        @Override
+        public String getKind() {
+            return METHOD_EXECUTION;
+        }
+
+        @Override
+        public StaticPart getStaticPart() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.manjot.snapnote.dto.note;
+
+import com.manjot.snapnote.model.Note;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping between Notes and their DTOs, done for every Note a request reads or writes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NoteDTOMapperBenchmark {
+    private Note note;
+
+    private NoteDTO noteDTO;
+
+    @Setup
+    public void setUp() {
+        note = NoteDTOSerializationBenchmark.note(0);
+        noteDTO = NoteDTO.builder().title("Title").content("Content").labelList(List.of("work", "pending"))
+                .userName("alice").createdAt(LocalDateTime.of(2024, 1, 3, 16, 39)).version(3L).build();
+    }
+
+    @Benchmark
+    public NoteDTO mapToNoteDTO() {
+        return NoteDTOMapper.mapToNoteDTO(note);
+    }
+
+    @Benchmark
+    public Note mapToNote() {
+        return NoteDTOMapper.mapToNote(noteDTO);
+    }
+}
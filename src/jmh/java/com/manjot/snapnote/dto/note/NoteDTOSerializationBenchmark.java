@@ -0,0 +1,59 @@
+package com.manjot.snapnote.dto.note;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.manjot.snapnote.model.Note;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Jackson serialization of NoteDTO lists, as written by the list and search endpoints, with
+ * an ObjectMapper configured the way Spring Boot configures the application's.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NoteDTOSerializationBenchmark {
+    @Param({"1", "10", "100", "1000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+
+    private List<Note> notes;
+
+    private List<NoteDTO> noteDTOs;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        notes = IntStream.range(0, size).mapToObj(NoteDTOSerializationBenchmark::note).toList();
+        noteDTOs = notes.stream().map(NoteDTOMapper::mapToNoteDTO).toList();
+    }
+
+    static Note note(int i) {
+        return Note.builder()
+                .id(String.format("%024x", i))
+                .userName("alice")
+                .title("Note " + i)
+                .content("Todo -> Integration topics and probability topics, revision " + i)
+                .labelList(List.of("math", "pending"))
+                .createdAt(LocalDateTime.of(2024, 1, 3, 16, 39).plusMinutes(i))
+                .version((long) i)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(noteDTOs);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(notes.stream().map(NoteDTOMapper::mapToNoteDTO).toList());
+    }
+}
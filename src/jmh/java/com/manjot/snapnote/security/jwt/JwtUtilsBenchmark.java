@@ -0,0 +1,95 @@
+package com.manjot.snapnote.security.jwt;
+
+import com.manjot.snapnote.security.services.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token generation, validation and parsing as done on every authenticated request. Cached
+ * variants hit the verified-token cache; uncached ones cycle through more tokens than the
+ * cache holds, so each parse verifies the signature.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JwtUtilsBenchmark {
+    private static final int UNCACHED_TOKENS = 1024;
+
+    @Param({"false", "true"})
+    public boolean claimsOnly;
+
+    private JwtUtils jwtUtils;
+
+    private JwtUtils uncachedJwtUtils;
+
+    private Authentication authentication;
+
+    private String token;
+
+    private String[] uncachedTokens;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = jwtUtils(10_000);
+        uncachedJwtUtils = jwtUtils(1);
+        authentication = authentication("alice");
+        token = jwtUtils.generateJwtToken(authentication);
+        uncachedTokens = new String[UNCACHED_TOKENS];
+        for (int i = 0; i < UNCACHED_TOKENS; i++) {
+            uncachedTokens[i] = uncachedJwtUtils.generateJwtToken(authentication("user" + i));
+        }
+    }
+
+    private JwtUtils jwtUtils(long cacheSize) {
+        JwtUtils utils = new JwtUtils();
+        ReflectionTestUtils.setField(utils, "jwtSecret",
+                Base64.getEncoder().encodeToString("snapnote-benchmark-secret-with-at-least-256-bits!".getBytes()));
+        ReflectionTestUtils.setField(utils, "jwtExpirationMs", 3_600_000);
+        ReflectionTestUtils.setField(utils, "jwtCacheSize", cacheSize);
+        ReflectionTestUtils.setField(utils, "claimsOnly", claimsOnly);
+        utils.init();
+        return utils;
+    }
+
+    private static Authentication authentication(String username) {
+        UserDetailsImpl principal = new UserDetailsImpl("id-" + username, username, username + "@example.com", null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtUtils.generateJwtToken(authentication);
+    }
+
+    @Benchmark
+    public boolean validateCached() {
+        return jwtUtils.validateJwtToken(token);
+    }
+
+    @Benchmark
+    public Claims parseCached() {
+        return jwtUtils.parseJwtToken(token);
+    }
+
+    @Benchmark
+    public Claims parseUncached() {
+        next = (next + 1) % UNCACHED_TOKENS;
+        return uncachedJwtUtils.parseJwtToken(uncachedTokens[next]);
+    }
+
+    @Benchmark
+    public String userNameFromToken() {
+        return jwtUtils.getUserNameFromJwtToken(token);
+    }
+}
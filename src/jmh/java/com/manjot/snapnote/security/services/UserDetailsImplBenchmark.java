@@ -0,0 +1,36 @@
+package com.manjot.snapnote.security.services;
+
+import com.manjot.snapnote.model.Role;
+import com.manjot.snapnote.model.User;
+import com.manjot.snapnote.model.enums.ERole;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the principal from a loaded user, done whenever the principal cache misses.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserDetailsImplBenchmark {
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = User.builder()
+                .id("6595404b11a06e3841cd9309")
+                .username("alice")
+                .email("alice@example.com")
+                .password("$2a$10$abcdefghijklmnopqrstuv")
+                .roles(Set.of(Role.builder().name(ERole.ROLE_USER).build(),
+                        Role.builder().name(ERole.ROLE_MODERATOR).build()))
+                .build();
+    }
+
+    @Benchmark
+    public UserDetailsImpl build() {
+        return UserDetailsImpl.build(user);
+    }
+}
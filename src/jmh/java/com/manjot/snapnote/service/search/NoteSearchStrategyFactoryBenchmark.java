@@ -0,0 +1,26 @@
+package com.manjot.snapnote.service.search;
+
+import com.manjot.snapnote.model.enums.QueryType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Strategy lookup done at the start of every search, for mapped query types and for
+ * DEFAULT, which falls back to the default strategy.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NoteSearchStrategyFactoryBenchmark {
+    @Param({"CONTENT", "TITLE", "LABEL", "TEXT", "DEFAULT"})
+    public QueryType queryType;
+
+    private final Map<QueryType, NoteSearchStrategy> strategies = NoteSearchStrategyFactory.createStrategies(null, null, null);
+
+    @Benchmark
+    public NoteSearchStrategy getStrategy() {
+        return NoteSearchStrategyFactory.getStrategy(strategies, queryType);
+    }
+}
@@ -7,9 +7,40 @@ import java.lang.annotation.Target;
 
 /**
  * Annotation to indicate that a method has rate-limiting applied.
+ * The limit comes from the named policy under manjot.app.rate-limit.policies; any attribute
+ * set to a non-negative value overrides the corresponding policy setting.
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
 public @interface RateLimited {
-}
+    /**
+     * Name of the rate-limit policy to apply.
+     */
+    String value() default "default";
+
+    /**
+     * Sustained number of requests allowed per refill period.
+     */
+    long capacity() default -1;
+
+    /**
+     * Number of tokens added at the end of each refill period.
+     */
+    long refillTokens() default -1;
 
+    /**
+     * Length of the refill period in seconds.
+     */
+    long refillPeriodSeconds() default -1;
+
+    /**
+     * Extra tokens available on top of the capacity for short bursts.
+     */
+    long burst() default -1;
+
+    /**
+     * Name of the per-client bucket; methods naming the same bucket share one budget.
+     * Defaults to the declaring class and method, e.g. NoteController.getAllNotes.
+     */
+    String bucket() default "";
+}
@@ -1,29 +1,69 @@
 package com.manjot.snapnote.aspect;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.manjot.snapnote.annotation.RateLimited;
+import com.manjot.snapnote.configuration.RateLimitProperties;
 import com.manjot.snapnote.exception.RateLimitException;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.ConsumptionProbe;
 import io.github.bucket4j.Refill;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Aspect for rate limiting method executions.
+ * Each client gets its own bucket per endpoint: authenticated requests are keyed by principal,
+ * authentication endpoints and anonymous requests by client IP. Buckets live in a size-capped
+ * cache and are evicted once their key has been idle for the configured period.
  */
 @Aspect
 @Component
 @Order(1)
 public class RateLimitingAspect {
 
-    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+
+    private static final String AUTH_PATH_PREFIX = "/api/auth/";
+
+    private final RateLimitProperties properties;
+
+    private final ProxyManager<String> proxyManager;
+
+    private final Cache<String, Bucket> buckets;
+
+    @Autowired
+    public RateLimitingAspect(RateLimitProperties properties, Optional<ProxyManager<String>> proxyManager) {
+        this.properties = properties;
+        this.proxyManager = proxyManager.orElse(null);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxKeys())
+                .expireAfterAccess(properties.getIdleExpiry())
+                .build();
+    }
 
     /**
      * Checks the rate limit before proceeding with the method execution.
@@ -35,25 +75,115 @@ public class RateLimitingAspect {
      */
     @Around("@annotation(rateLimited)")
     public Object checkRateLimit(ProceedingJoinPoint joinPoint, RateLimited rateLimited) throws Throwable {
-        String methodName = joinPoint.getSignature().getName();
-        Bucket bucket = getBucket(methodName);
+        Authentication authentication = currentAuthentication();
+        String bucketKey = resolveClientKey(authentication) + '|' + resolveEndpoint(rateLimited, joinPoint.getSignature());
+        Bucket bucket = buckets.get(bucketKey, key -> newBucket(key, getLimit(rateLimited, authentication)));
 
-        if (bucket.tryConsume(1)) {
+        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
+        if (probe.isConsumed()) {
+            setRemainingHeader(probe.getRemainingTokens());
             return joinPoint.proceed();
         } else {
-            throw new RateLimitException("Too many requests. Please try again later.");
+            long retryAfterSeconds = Math.max(1,
+                    TimeUnit.NANOSECONDS.toSeconds(probe.getNanosToWaitForRefill() + TimeUnit.SECONDS.toNanos(1) - 1));
+            throw new RateLimitException("Too many requests. Please try again later.",
+                    retryAfterSeconds, probe.getRemainingTokens());
+        }
+    }
+
+    /**
+     * Creates an in-JVM bucket, or a proxy to the shared bucket in distributed mode. Proxies
+     * consume up to the configured batch of tokens locally before synchronizing, so most calls
+     * do not reach the database; the cached proxy keeps that local state between calls.
+     */
+    private Bucket newBucket(String key, Bandwidth limit) {
+        if (proxyManager == null) {
+            return Bucket.builder().addLimit(limit).build();
         }
+        RateLimitProperties.Distributed distributed = properties.getDistributed();
+        return proxyManager.builder()
+                .withOptimization(Optimizations.delaying(
+                        new DelayParameters(distributed.getBatchTokens(), distributed.getBatchTimeout())))
+                .build(key, BucketConfiguration.builder().addLimit(limit).build());
     }
 
-    private Bucket getBucket(String methodName) {
-        return buckets.computeIfAbsent(methodName, key ->
-                Bucket.builder().addLimit(getLimit()).build()
-        );
+    /**
+     * Builds the bandwidth for a new bucket from the annotation, its named policy and the
+     * principal's role tier.
+     */
+    private Bandwidth getLimit(RateLimited rateLimited, Authentication authentication) {
+        RateLimitProperties.Policy policy = properties.getPolicy(rateLimited.value());
+        long capacity = rateLimited.capacity() >= 0 ? rateLimited.capacity() : policy.getCapacity();
+        long refillTokens = rateLimited.refillTokens() >= 0 ? rateLimited.refillTokens() : policy.getRefillTokens();
+        Duration refillPeriod = rateLimited.refillPeriodSeconds() >= 0
+                ? Duration.ofSeconds(rateLimited.refillPeriodSeconds())
+                : policy.getRefillPeriod();
+        long burst = rateLimited.burst() >= 0 ? rateLimited.burst() : policy.getBurst();
+
+        double multiplier = resolveTierMultiplier(authentication);
+        long scaledCapacity = Math.max(1, Math.round((capacity + burst) * multiplier));
+        long scaledRefill = Math.max(1, Math.round(refillTokens * multiplier));
+
+        return Bandwidth.classic(scaledCapacity, Refill.intervally(scaledRefill, refillPeriod));
     }
 
-    private Bandwidth getLimit() {
-        // Define your bandwidth limit here (e.g., 10 requests per minute)
-        return Bandwidth.classic(10, Refill.intervally(10, Duration.ofMinutes(1)));
+    private double resolveTierMultiplier(Authentication authentication) {
+        if (authentication == null || properties.getTiers().isEmpty()) {
+            return 1.0;
+        }
+        double multiplier = 1.0;
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            Double tier = properties.getTiers().get(authority.getAuthority());
+            if (tier != null && tier > multiplier) {
+                multiplier = tier;
+            }
+        }
+        return multiplier;
     }
-}
 
+    private String resolveEndpoint(RateLimited rateLimited, Signature signature) {
+        if (!rateLimited.bucket().isEmpty()) {
+            return rateLimited.bucket();
+        }
+        return signature.getDeclaringType().getSimpleName() + '.' + signature.getName();
+    }
+
+    private String resolveClientKey(Authentication authentication) {
+        HttpServletRequest request = currentRequest();
+        if (request != null && request.getServletPath().startsWith(AUTH_PATH_PREFIX)) {
+            return "ip:" + request.getRemoteAddr();
+        }
+
+        if (authentication != null) {
+            return "user:" + authentication.getName();
+        }
+
+        return request != null ? "ip:" + request.getRemoteAddr() : "anonymous";
+    }
+
+    private Authentication currentAuthentication() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return authentication;
+        }
+        return null;
+    }
+
+    private void setRemainingHeader(long remainingTokens) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            HttpServletResponse response = servletAttributes.getResponse();
+            if (response != null) {
+                response.setHeader(REMAINING_HEADER, Long.toString(remainingTokens));
+            }
+        }
+    }
+
+    private HttpServletRequest currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servletAttributes
+                ? servletAttributes.getRequest()
+                : null;
+    }
+}
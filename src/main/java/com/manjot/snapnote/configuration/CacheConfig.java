@@ -0,0 +1,17 @@
+package com.manjot.snapnote.configuration;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for application caches.
+ * Cache sizing and expiry are defined through the spring.cache.* properties.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    /**
+     * Cache of resolved principals (UserDetailsImpl) keyed by username.
+     */
+    public static final String PRINCIPAL_CACHE = "principals";
+}
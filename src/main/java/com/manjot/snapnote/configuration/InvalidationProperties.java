@@ -0,0 +1,57 @@
+package com.manjot.snapnote.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Cross-node cache invalidation settings bound from manjot.app.invalidation.*.
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "manjot.app.invalidation")
+public class InvalidationProperties {
+
+    public enum Mode {
+        /**
+         * Single node: local caches are only invalidated by local writes.
+         */
+        NONE,
+        /**
+         * Tail a MongoDB change stream on the notes and users collections. Needs a replica
+         * set; falls back to {@link #POLLING} when the server does not support change streams.
+         */
+        CHANGE_STREAM,
+        /**
+         * Every node appends its writes to an invalidation log collection and polls it for
+         * the writes of the others.
+         */
+        POLLING
+    }
+
+    private Mode mode = Mode.NONE;
+
+    /**
+     * Collection holding the invalidation log in polling mode.
+     */
+    private String collection = "cache_invalidations";
+
+    /**
+     * How often the invalidation log is polled.
+     */
+    private Duration pollInterval = Duration.ofSeconds(2);
+
+    /**
+     * How far back each poll reaches before the previous one; must exceed the clock skew between nodes.
+     */
+    private Duration pollOverlap = Duration.ofSeconds(10);
+
+    /**
+     * How long invalidation log entries are kept.
+     */
+    private Duration retention = Duration.ofHours(1);
+}
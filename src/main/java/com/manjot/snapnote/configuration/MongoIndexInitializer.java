@@ -0,0 +1,58 @@
+package com.manjot.snapnote.configuration;
+
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.model.NoteShare;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Creates the indexes declared on the document classes once the application is ready.
+ * Automatic index creation is off by default in Spring Data MongoDB, so without this the
+ * index annotations on the models would have no effect. Runs in the background so that an
+ * unreachable database does not hold up startup.
+ */
+@Component
+public class MongoIndexInitializer {
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexInitializer.class);
+
+    private static final List<Class<?>> INDEXED_DOCUMENTS = List.of(Note.class, NoteShare.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    private final MongoMappingContext mappingContext;
+
+    @Autowired
+    public MongoIndexInitializer(MongoTemplate mongoTemplate, MongoMappingContext mappingContext) {
+        this.mongoTemplate = mongoTemplate;
+        this.mappingContext = mappingContext;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initIndexes() {
+        CompletableFuture.runAsync(this::ensureIndexes);
+    }
+
+    void ensureIndexes() {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        for (Class<?> documentClass : INDEXED_DOCUMENTS) {
+            try {
+                IndexOperations indexOps = mongoTemplate.indexOps(documentClass);
+                resolver.resolveIndexFor(documentClass).forEach(indexOps::ensureIndex);
+            } catch (Exception e) {
+                logger.error("Cannot create indexes for {}: {}", documentClass.getSimpleName(), e.getMessage());
+            }
+        }
+    }
+}
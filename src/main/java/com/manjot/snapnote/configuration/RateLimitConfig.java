@@ -0,0 +1,24 @@
+package com.manjot.snapnote.configuration;
+
+import com.manjot.snapnote.repository.MongoBucketProxyManager;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * Configuration class for the shared rate-limit bucket store.
+ */
+@Configuration
+public class RateLimitConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "manjot.app.rate-limit.distributed", name = "enabled", havingValue = "true")
+    public ProxyManager<String> rateLimitProxyManager(MongoTemplate mongoTemplate, RateLimitProperties properties) {
+        MongoBucketProxyManager proxyManager =
+                new MongoBucketProxyManager(mongoTemplate, properties.getDistributed().getCollection());
+        proxyManager.ensureIndexes();
+        return proxyManager;
+    }
+}
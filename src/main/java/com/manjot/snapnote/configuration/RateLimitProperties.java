@@ -0,0 +1,93 @@
+package com.manjot.snapnote.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rate-limit settings bound from manjot.app.rate-limit.*.
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "manjot.app.rate-limit")
+public class RateLimitProperties {
+    public static final String DEFAULT_POLICY = "default";
+
+    /**
+     * Maximum number of client buckets kept in memory.
+     */
+    private long maxKeys = 100_000;
+
+    /**
+     * Idle time after which a client bucket is evicted.
+     */
+    private Duration idleExpiry = Duration.ofMinutes(10);
+
+    /**
+     * Named policies referenced by {@link com.manjot.snapnote.annotation.RateLimited#value()}.
+     */
+    private Map<String, Policy> policies = new HashMap<>();
+
+    /**
+     * Budget multipliers per role name (e.g. ROLE_ADMIN=5). A principal gets its highest multiplier.
+     */
+    private Map<String, Double> tiers = new HashMap<>();
+
+    /**
+     * Cluster-wide bucket settings.
+     */
+    private Distributed distributed = new Distributed();
+
+    /**
+     * Returns the named policy, falling back to the default policy.
+     *
+     * @param name The policy name.
+     * @return The matching policy.
+     */
+    public Policy getPolicy(String name) {
+        Policy policy = policies.get(name);
+        if (policy == null) {
+            policy = policies.getOrDefault(DEFAULT_POLICY, new Policy());
+        }
+        return policy;
+    }
+
+    @Getter
+    @Setter
+    public static class Policy {
+        private long capacity = 10;
+
+        private long refillTokens = 10;
+
+        private Duration refillPeriod = Duration.ofMinutes(1);
+
+        private long burst = 0;
+    }
+
+    @Getter
+    @Setter
+    public static class Distributed {
+        /**
+         * Keep bucket state in MongoDB so that limits hold across all nodes.
+         */
+        private boolean enabled = false;
+
+        private String collection = "rate_limit_buckets";
+
+        /**
+         * Tokens a node may consume locally before synchronizing with the shared bucket.
+         */
+        private long batchTokens = 5;
+
+        /**
+         * Maximum time a node may hold unsynchronized consumption.
+         */
+        private Duration batchTimeout = Duration.ofMillis(500);
+    }
+}
@@ -0,0 +1,29 @@
+package com.manjot.snapnote.configuration;
+
+import com.manjot.snapnote.model.enums.QueryType;
+import com.manjot.snapnote.service.search.LabelBitmapIndex;
+import com.manjot.snapnote.service.search.NoteSearchIndex;
+import com.manjot.snapnote.service.search.NoteSearchStrategy;
+import com.manjot.snapnote.service.search.NoteSearchStrategyFactory;
+import com.manjot.snapnote.service.search.ParallelSearchExecutor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+/**
+ * Configuration class for note search.
+ */
+@Configuration
+public class SearchConfig {
+
+    /**
+     * The search strategy of each query type, built once from the search components.
+     */
+    @Bean
+    public Map<QueryType, NoteSearchStrategy> noteSearchStrategies(NoteSearchIndex searchIndex,
+                                                                   LabelBitmapIndex labelIndex,
+                                                                   ParallelSearchExecutor executor) {
+        return NoteSearchStrategyFactory.createStrategies(searchIndex, labelIndex, executor);
+    }
+}
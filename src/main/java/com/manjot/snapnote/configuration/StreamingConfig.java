@@ -0,0 +1,75 @@
+package com.manjot.snapnote.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Configuration class for the streamed /api/v2 responses.
+ * <p>
+ * Spring MVC writes each item of a streamed {@code Flux} with a blocking write from its async
+ * task executor, which would otherwise be the shared applicationTaskExecutor. The v2 streams
+ * are the only async responses, so they get a pool of their own with one thread per stream
+ * that NoteV2Controller admits (manjot.app.v2.maxStreams); a stream holds at most one task at a
+ * time, so the pool never queues behind slow clients. A write to a client that stops reading
+ * blocks for at most server.tomcat.connection-timeout, after which the stream is cancelled.
+ * <p>
+ * With spring.threads.virtual.enabled the pool writes on virtual threads; the pool size still
+ * caps how many streams are written at once.
+ */
+@Configuration
+public class StreamingConfig implements WebMvcConfigurer {
+    private static final String THREAD_NAME_PREFIX = "v2-stream-";
+
+    private final ThreadPoolExecutor executor;
+
+    @Autowired
+    public StreamingConfig(@Value("${manjot.app.v2.maxStreams:64}") int maxStreams,
+                           MeterRegistry meterRegistry,
+                           Environment environment) {
+        // Room for the last write of a stream that has already given back its admission
+        this.executor = new ThreadPoolExecutor(maxStreams, maxStreams, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxStreams),
+                threadFactory(Threading.VIRTUAL.isActive(environment)),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "v2.stream");
+    }
+
+    private static ThreadFactory threadFactory(boolean virtual) {
+        if (virtual) {
+            return new VirtualThreadTaskExecutor(THREAD_NAME_PREFIX).getVirtualThreadFactory();
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new ConcurrentTaskExecutor(executor));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,20 +1,25 @@
 package com.manjot.snapnote.controller;
 
 import com.manjot.snapnote.annotation.RateLimited;
+import com.manjot.snapnote.exception.ResourceNotFoundException;
 import com.manjot.snapnote.model.User;
 import com.manjot.snapnote.model.Role;
 import com.manjot.snapnote.dto.authentication.request.LoginRequest;
 import com.manjot.snapnote.dto.authentication.request.SignupRequest;
+import com.manjot.snapnote.dto.authentication.request.UpdateRolesRequest;
 import com.manjot.snapnote.dto.authentication.response.JwtResponse;
 import com.manjot.snapnote.dto.authentication.response.MessageResponse;
 import com.manjot.snapnote.model.enums.ERole;
 import com.manjot.snapnote.repository.UserRepository;
 import com.manjot.snapnote.repository.RoleRepository;
 import com.manjot.snapnote.security.jwt.JwtUtils;
+import com.manjot.snapnote.security.services.UserAccountService;
 import com.manjot.snapnote.security.services.UserDetailsImpl;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -49,6 +54,9 @@ public class AuthController {
     @Autowired
     JwtUtils jwtUtils;
 
+    @Autowired
+    UserAccountService userAccountService;
+
     /**
      * Handles the user authentication process.
      *
@@ -56,7 +64,7 @@ public class AuthController {
      * @return ResponseEntity containing JWT response or error message.
      */
     @PostMapping("/login")
-    @RateLimited
+    @RateLimited("auth")
     public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
 
         Authentication authentication = authenticationManager.authenticate(
@@ -84,7 +92,7 @@ public class AuthController {
      * @return ResponseEntity containing success message or error message.
      */
     @PostMapping("/signup")
-    @RateLimited
+    @RateLimited("auth")
     public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signUpRequest) {
         if (userRepository.existsByUsername(signUpRequest.getUsername())) {
             return ResponseEntity
@@ -103,7 +111,55 @@ public class AuthController {
                 signUpRequest.getEmail(),
                 encoder.encode(signUpRequest.getPassword()));
 
-        Set<String> strRoles = signUpRequest.getRole();
+        user.setRoles(resolveRoles(signUpRequest.getRole()));
+        userRepository.save(user);
+
+        return ResponseEntity.ok(new MessageResponse("User registered successfully!"));
+    }
+
+    /**
+     * Revokes every token issued to the authenticated user, including the one used for this
+     * request.
+     *
+     * @param authentication The authenticated user.
+     * @return ResponseEntity containing success message or error message.
+     */
+    @PostMapping("/revoke")
+    @RateLimited("auth")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> revokeTokens(Authentication authentication) {
+        try {
+            userAccountService.revokeTokens(authentication.getName());
+            return ResponseEntity.ok(new MessageResponse("Tokens revoked successfully!"));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new MessageResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Replaces the roles of a user. Tokens issued before carry the old roles and are revoked.
+     *
+     * @param username           The user whose roles change.
+     * @param updateRolesRequest The request containing the new roles.
+     * @return ResponseEntity containing success message or error message.
+     */
+    @PutMapping("/users/{username}/roles")
+    @RateLimited("auth")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> updateRoles(@PathVariable String username,
+                                         @Valid @RequestBody UpdateRolesRequest updateRolesRequest) {
+        try {
+            userAccountService.updateRoles(username, resolveRoles(updateRolesRequest.getRole()));
+            return ResponseEntity.ok(new MessageResponse("Roles updated successfully!"));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new MessageResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Maps requested role names to roles; unknown names and a missing set map to the user role.
+     */
+    private Set<Role> resolveRoles(Set<String> strRoles) {
         Set<Role> roles = new HashSet<>();
 
         if (strRoles == null) {
@@ -132,10 +188,6 @@ public class AuthController {
                 }
             });
         }
-
-        user.setRoles(roles);
-        userRepository.save(user);
-
-        return ResponseEntity.ok(new MessageResponse("User registered successfully!"));
+        return roles;
     }
 }
\ No newline at end of file
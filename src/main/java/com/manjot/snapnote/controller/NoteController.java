@@ -1,24 +1,46 @@
 package com.manjot.snapnote.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.manjot.snapnote.annotation.RateLimited;
+import com.manjot.snapnote.dto.note.BulkShareRequest;
+import com.manjot.snapnote.dto.note.NoteBatchOperationDTO;
+import com.manjot.snapnote.dto.note.NoteBatchRequest;
 import com.manjot.snapnote.dto.note.NoteDTO;
 import com.manjot.snapnote.dto.note.NoteDTOMapper;
+import com.manjot.snapnote.dto.note.NotePageDTO;
+import com.manjot.snapnote.exception.NoteConflictException;
 import com.manjot.snapnote.exception.ResourceNotFoundException;
 import com.manjot.snapnote.exception.SnapNoteServiceException;
+import com.manjot.snapnote.model.BatchOperation;
+import com.manjot.snapnote.model.BatchResult;
+import com.manjot.snapnote.model.LabelCount;
 import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.model.ShareResult;
+import com.manjot.snapnote.model.enums.ESharePermission;
 import com.manjot.snapnote.model.enums.QueryType;
+import com.manjot.snapnote.service.note.NoteJson;
+import com.manjot.snapnote.service.note.NotePage;
 import com.manjot.snapnote.service.note.NoteService;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 import static com.manjot.snapnote.dto.note.NoteDTOMapper.mapToNote;
 import static com.manjot.snapnote.dto.note.NoteDTOMapper.mapToNoteDTO;
@@ -30,13 +52,20 @@ import static com.manjot.snapnote.dto.note.NoteDTOMapper.mapToNoteDTO;
 @RestController
 @RequestMapping("/api/notes")
 public class NoteController {
+    public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
+    private static final int EXPORT_FLUSH_INTERVAL = 100;
+
     private final NoteService noteService;
 
+    private final ObjectMapper objectMapper;
+
     private final Logger logger = LoggerFactory.getLogger(NoteController.class);
 
     @Autowired
-    public NoteController(NoteService noteService) {
+    public NoteController(NoteService noteService, ObjectMapper objectMapper) {
         this.noteService = noteService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -48,7 +77,7 @@ public class NoteController {
      */
     @PostMapping
     @PreAuthorize("hasRole('USER')")
-    @RateLimited
+    @RateLimited("write")
     public ResponseEntity<?> createNote(@RequestBody @NotNull NoteDTO noteDTO,
                                         @NotNull final HttpServletRequest request) {
         noteDTO.setUserName(request.getAttribute("userName").toString());
@@ -58,43 +87,197 @@ public class NoteController {
     }
 
     /**
-     * Retrieves a Note by its ID.
+     * Applies a mixed list of creates, updates and deletes of the authenticated user's Notes
+     * in one request. The whole batch counts once against the rate limit.
+     *
+     * @param batchRequest The writes, and whether to stop at the first one that fails.
+     * @param request      The HTTP request.
+     * @return ResponseEntity containing one result per write, or an error message.
+     */
+    @PostMapping("/batch")
+    @PreAuthorize("hasRole('USER')")
+    @RateLimited("write")
+    public ResponseEntity<?> applyBatch(@RequestBody @NotNull final NoteBatchRequest batchRequest,
+                                        @NotNull final HttpServletRequest request) {
+        try {
+            String username = request.getAttribute("userName").toString();
+            List<BatchOperation> operations = batchRequest.getOperations() == null ? List.of()
+                    : batchRequest.getOperations().stream().map(NoteController::toBatchOperation).toList();
+            List<BatchResult> results = noteService.applyBatch(username, operations, batchRequest.isOrdered());
+            return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (SnapNoteServiceException e) {
+            return handleException(e);
+        }
+    }
+
+    /**
+     * Retrieves a Note by its ID. The response carries an ETag built from the Note's version;
+     * a request whose If-None-Match matches it gets 304 Not Modified, checked against the
+     * version alone without loading the Note. A Note held in the note cache is sent as the
+     * JSON bytes stored there, without building a DTO or serializing it.
      *
      * @param id       The ID of the Note to retrieve.
      * @param request  The HTTP request.
      * @return ResponseEntity containing the retrieved Note or an error message.
      */
     @GetMapping("/{id}")
-    @RateLimited
+    @RateLimited("read")
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<?> getNoteById(@PathVariable @NotNull final String id,
                                          @NotNull final HttpServletRequest request) {
         try {
             String username = request.getAttribute("userName").toString();
+            String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+            if (ifNoneMatch != null) {
+                String eTag = noteETag(noteService.getNoteVersion(id, username));
+                if (eTagMatches(ifNoneMatch, eTag)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+                }
+            }
+            Optional<NoteJson> cachedJson = noteService.getCachedNoteJson(id, username);
+            if (cachedJson.isPresent()) {
+                return ResponseEntity.ok().eTag(noteETag(cachedJson.get().version()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(cachedJson.get().json());
+            }
             Note note = noteService.getNoteById(id, username);
             NoteDTO responseDTO = mapToNoteDTO(note);
-            return ResponseEntity.ok(responseDTO);
+            return ResponseEntity.ok().eTag(noteETag(note.getVersion() == null ? 0 : note.getVersion())).body(responseDTO);
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
     }
 
     /**
-     * Retrieves all Notes for the authenticated user.
+     * Retrieves all Notes the authenticated user owns, followed by those shared with them, as
+     * a JSON array. The Notes are streamed from the database cursors as the client reads them,
+     * so the listing is complete without being held in memory. Requests naming a page size or
+     * cursor are served by {@link #getNotesPage} instead.
+     * The response carries an ETag built from the user's notes generation, which is read
+     * before the Notes; a request whose If-None-Match matches it gets 304 Not Modified
+     * without the Notes being loaded.
+     *
+     * @param request   The HTTP request.
+     * @param response  The HTTP response the Notes are streamed to.
+     * @throws IOException if writing to the response fails.
+     */
+    @GetMapping(params = {"!cursor", "!size"})
+    @PreAuthorize("hasRole('USER')")
+    @RateLimited("read")
+    public void getAllNotes(@NotNull final HttpServletRequest request,
+                            @NotNull final HttpServletResponse response) throws IOException {
+        String username = request.getAttribute("userName").toString();
+        String eTag = notesETag(noteService.getNotesGeneration(username));
+        response.setHeader(HttpHeaders.ETAG, eTag);
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && eTagMatches(ifNoneMatch, eTag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        try (Stream<Note> notes = noteService.streamAllNotes(username);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+            writeNotes(notes, generator, false);
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Retrieves one page of the Notes the authenticated user owns or has been shared, newest
+     * first, with the continuation token for the next page.
+     * Responses carry an ETag built from the user's notes generation, which is read before
+     * the Notes; a request whose If-None-Match matches it gets 304 Not Modified without the
+     * Notes being loaded.
      *
+     * @param cursor   The continuation token from the previous page (optional).
+     * @param size     The page size (optional, capped by the service).
      * @param request  The HTTP request.
-     * @return ResponseEntity containing the list of Notes or an error message.
+     * @return ResponseEntity containing the page of Notes or an error message.
      */
     @GetMapping
     @PreAuthorize("hasRole('USER')")
-    @RateLimited
-    public ResponseEntity<?> getAllNotes(@NotNull final HttpServletRequest request) {
+    @RateLimited(value = "read", bucket = "NoteController.getAllNotes")
+    public ResponseEntity<?> getNotesPage(@RequestParam(required = false) final String cursor,
+                                          @RequestParam(required = false) final Integer size,
+                                          @NotNull final HttpServletRequest request) {
         try {
-            List<NoteDTO> noteListDTOS = noteService.getAllNotes(request.getAttribute("userName").toString())
-                    .stream().map(NoteDTOMapper::mapToNoteDTO).toList();
-            return ResponseEntity.ok(noteListDTOS);
-        } catch (ResourceNotFoundException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+            String username = request.getAttribute("userName").toString();
+            String eTag = notesETag(noteService.getNotesGeneration(username));
+            String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+            if (ifNoneMatch != null && eTagMatches(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+            NotePage page = noteService.getNotesPage(username, cursor, size);
+            return ResponseEntity.ok().eTag(eTag).body(NotePageDTO.builder()
+                    .notes(page.notes().stream().map(NoteDTOMapper::mapToNoteDTO).toList())
+                    .nextCursor(page.nextCursor())
+                    .build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves how many of the authenticated user's Notes carry each label.
+     *
+     * @param request  The HTTP request.
+     * @return ResponseEntity containing the label counts, most used label first.
+     */
+    @GetMapping("/labels")
+    @PreAuthorize("hasRole('USER')")
+    @RateLimited("read")
+    public ResponseEntity<List<LabelCount>> getLabelCounts(@NotNull final HttpServletRequest request) {
+        String username = request.getAttribute("userName").toString();
+        return ResponseEntity.ok(noteService.getLabelCounts(username));
+    }
+
+    /**
+     * Exports all Notes the authenticated user owns, followed by those shared with them, as
+     * newline-delimited JSON, so the export holds the same Notes as the listing.
+     * Notes are written as the database cursor yields them and flushed in batches; writes
+     * block while the client is slow to read, so memory use stays constant.
+     *
+     * @param request   The HTTP request.
+     * @param response  The HTTP response the Notes are streamed to.
+     * @throws IOException if writing to the response fails.
+     */
+    @GetMapping(value = "/export", produces = NDJSON_MEDIA_TYPE)
+    @PreAuthorize("hasRole('USER')")
+    @RateLimited("read")
+    public void exportNotes(@NotNull final HttpServletRequest request,
+                            @NotNull final HttpServletResponse response) throws IOException {
+        String username = request.getAttribute("userName").toString();
+        response.setContentType(NDJSON_MEDIA_TYPE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        try (Stream<Note> notes = noteService.streamAllNotes(username);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            // lines are separated by the newline alone, not the default space between root values
+            generator.setRootValueSeparator(null);
+            writeNotes(notes, generator, true);
+        }
+    }
+
+    /**
+     * Writes Notes as the stream yields them, flushing every {@value #EXPORT_FLUSH_INTERVAL}
+     * Notes so the client receives them while the database cursor is still being read.
+     */
+    private static void writeNotes(Stream<Note> notes, JsonGenerator generator, boolean newlineDelimited) throws IOException {
+        int written = 0;
+        Iterator<Note> iterator = notes.iterator();
+        while (iterator.hasNext()) {
+            generator.writeObject(mapToNoteDTO(iterator.next()));
+            if (newlineDelimited) {
+                generator.writeRaw('\n');
+            }
+            if (++written % EXPORT_FLUSH_INTERVAL == 0) {
+                generator.flush();
+            }
         }
     }
 
@@ -107,7 +290,7 @@ public class NoteController {
      * @return ResponseEntity containing the updated Note or an error message.
      */
     @PutMapping("/{id}")
-    @RateLimited
+    @RateLimited("write")
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<?> updateNote(@PathVariable @NotNull final String id,
                                         @RequestBody @NotNull final NoteDTO updatedNoteDTO,
@@ -119,6 +302,34 @@ public class NoteController {
             return ResponseEntity.ok(responseDTO);
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (NoteConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Partially updates a Note: only the fields present in the body are changed. Passing the
+     * version last read makes the update fail with 409 if someone else changed the Note since.
+     *
+     * @param id       The ID of the Note to patch.
+     * @param patchDTO The changed fields and, optionally, the expected version.
+     * @param request  The HTTP request.
+     * @return ResponseEntity containing the updated Note or an error message.
+     */
+    @PatchMapping("/{id}")
+    @RateLimited("write")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> patchNote(@PathVariable @NotNull final String id,
+                                       @RequestBody @NotNull final NoteDTO patchDTO,
+                                       @NotNull final HttpServletRequest request) {
+        try {
+            String username = request.getAttribute("userName").toString();
+            Note patchedNote = noteService.patchNote(id, username, mapToNote(patchDTO));
+            return ResponseEntity.ok(mapToNoteDTO(patchedNote));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (NoteConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         }
     }
 
@@ -131,7 +342,7 @@ public class NoteController {
      */
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('USER')")
-    @RateLimited
+    @RateLimited("write")
     public ResponseEntity<?> deleteNoteById(@PathVariable @NotNull final String id,
                                             @NotNull final HttpServletRequest request) {
         try {
@@ -144,30 +355,66 @@ public class NoteController {
     }
 
     /**
-     * Shares a Note with another user.
+     * Shares a Note with another user. The recipient reads the sender's Note rather than a copy.
      *
      * @param id                 The ID of the Note to share.
      * @param recipientUsername The username of the recipient user.
+     * @param permission         READ (default) or WRITE, which also lets the recipient update the Note.
      * @param request            The HTTP request.
      * @return ResponseEntity indicating success or an error message.
      */
     @PostMapping("/{id}/share")
     @PreAuthorize("hasRole('USER')")
-    @RateLimited
+    @RateLimited("write")
     public ResponseEntity<?> shareNoteWithUser(@PathVariable @NotNull final String id,
                                                @RequestParam @NotNull final String recipientUsername,
+                                               @RequestParam(defaultValue = "READ") final ESharePermission permission,
                                                @NotNull final HttpServletRequest request) {
         try {
             String senderUsername = request.getAttribute("userName").toString();
-            noteService.shareNoteWithUser(id, senderUsername, recipientUsername);
+            noteService.shareNoteWithUser(id, senderUsername, recipientUsername, permission);
             return ResponseEntity.ok("Note shared successfully.");
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }  catch (SnapNoteServiceException e) {
             return handleException(e);
         }
     }
 
+    /**
+     * Shares a Note with many users in one request. The whole request counts once against the
+     * rate limit.
+     *
+     * @param id           The ID of the Note to share.
+     * @param shareRequest The recipients and the permission they receive.
+     * @param request      The HTTP request.
+     * @return ResponseEntity containing one result per recipient, or an error message.
+     */
+    @PostMapping("/{id}/share/bulk")
+    @PreAuthorize("hasRole('USER')")
+    @RateLimited("write")
+    public ResponseEntity<?> shareNoteWithUsers(@PathVariable @NotNull final String id,
+                                                @RequestBody @NotNull final BulkShareRequest shareRequest,
+                                                @NotNull final HttpServletRequest request) {
+        try {
+            String senderUsername = request.getAttribute("userName").toString();
+            List<String> recipients = shareRequest.getRecipientUsernames() == null
+                    ? List.of() : shareRequest.getRecipientUsernames();
+            ESharePermission permission = shareRequest.getPermission() == null
+                    ? ESharePermission.READ : shareRequest.getPermission();
+            List<ShareResult> results = noteService.shareNoteWithUsers(id, senderUsername, recipients, permission);
+            return ResponseEntity.ok(results);
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (SnapNoteServiceException e) {
+            return handleException(e);
+        }
+    }
+
     /**
      * Searches for Notes based on a query and query type.
      *
@@ -177,7 +424,7 @@ public class NoteController {
      * @return ResponseEntity containing the search results or an error message.
      */
     @GetMapping("/search")
-    @RateLimited
+    @RateLimited("search")
     public ResponseEntity<?> searchNotes(@RequestParam @NotNull final String q,
                                          @RequestParam @NotNull final QueryType queryType,
                                          @NotNull final HttpServletRequest request) {
@@ -185,11 +432,46 @@ public class NoteController {
             String username = request.getAttribute("userName").toString();
             List<Note> searchResults = noteService.searchNotes(q, queryType, username);
             return ResponseEntity.ok(searchResults);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (SnapNoteServiceException e) {
             return handleException(e);
         }
     }
 
+    private static String noteETag(long version) {
+        return "\"note-" + version + "\"";
+    }
+
+    private static String notesETag(long generation) {
+        return "\"notes-" + generation + "\"";
+    }
+
+    /**
+     * Whether an If-None-Match header lists the entity tag. Weak tags compare equal to strong
+     * ones here, as RFC 9110 prescribes for If-None-Match.
+     */
+    static boolean eTagMatches(String ifNoneMatch, String eTag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.strip();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static BatchOperation toBatchOperation(NoteBatchOperationDTO operation) {
+        if (operation == null) {
+            return null;
+        }
+        Note note = operation.getNote() == null ? null : mapToNote(operation.getNote());
+        return new BatchOperation(operation.getAction(), operation.getId(), note);
+    }
+
     private ResponseEntity<?> handleException(Exception e) {
         logger.error("Error occurred while processing request", e);
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
@@ -0,0 +1,124 @@
+package com.manjot.snapnote.controller;
+
+import com.manjot.snapnote.annotation.RateLimited;
+import com.manjot.snapnote.dto.note.NoteDTO;
+import com.manjot.snapnote.dto.note.NoteDTOMapper;
+import com.manjot.snapnote.exception.ResourceNotFoundException;
+import com.manjot.snapnote.exception.ServiceUnavailableException;
+import com.manjot.snapnote.model.enums.QueryType;
+import com.manjot.snapnote.service.note.ReactiveNoteService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.Semaphore;
+
+import static com.manjot.snapnote.controller.NoteController.NDJSON_MEDIA_TYPE;
+
+/**
+ * Non-blocking read endpoints for Notes, alongside the v1 {@link NoteController}.
+ * <p>
+ * Requests pass through the same JWT filter chain as v1, and each endpoint draws on the same
+ * rate-limit bucket as its v1 counterpart, so traffic can move between versions without
+ * changing a client's budget. Handlers return {@link Mono} and {@link Flux} backed by the
+ * reactive MongoDB driver: no request thread waits on the database, and lists are streamed
+ * as newline-delimited JSON, each Note requested from the database only as the client reads.
+ * Writes stay on v1, which keeps the note caches and search indexes coherent.
+ * <p>
+ * At most manjot.app.v2.maxStreams lists are streamed at once, one per thread of the pool in
+ * {@link com.manjot.snapnote.configuration.StreamingConfig}; further list requests are answered
+ * with 503 and a Retry-After header until a stream ends.
+ */
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/v2/notes")
+public class NoteV2Controller {
+
+    private final ReactiveNoteService reactiveNoteService;
+
+    private final Semaphore streams;
+
+    @Autowired
+    public NoteV2Controller(ReactiveNoteService reactiveNoteService,
+                            @Value("${manjot.app.v2.maxStreams:64}") int maxStreams) {
+        this.reactiveNoteService = reactiveNoteService;
+        this.streams = new Semaphore(maxStreams);
+    }
+
+    /**
+     * Retrieves a Note by its ID.
+     *
+     * @param id      The ID of the Note to retrieve.
+     * @param request The HTTP request.
+     * @return The Note, or 404 if it is not found.
+     */
+    @GetMapping("/{id}")
+    @RateLimited(value = "read", bucket = "NoteController.getNoteById")
+    @PreAuthorize("hasRole('USER')")
+    public Mono<NoteDTO> getNoteById(@PathVariable @NotNull final String id,
+                                     @NotNull final HttpServletRequest request) {
+        String username = request.getAttribute("userName").toString();
+        return reactiveNoteService.getNoteById(id, username).map(NoteDTOMapper::mapToNoteDTO);
+    }
+
+    /**
+     * Streams all Notes owned by or shared with the authenticated user.
+     *
+     * @param request The HTTP request.
+     * @return The Notes as newline-delimited JSON.
+     * @throws ServiceUnavailableException if as many lists as allowed are already being streamed.
+     */
+    @GetMapping(produces = NDJSON_MEDIA_TYPE)
+    @PreAuthorize("hasRole('USER')")
+    @RateLimited(value = "read", bucket = "NoteController.getAllNotes")
+    public Flux<NoteDTO> getAllNotes(@NotNull final HttpServletRequest request) {
+        String username = request.getAttribute("userName").toString();
+        return admit(reactiveNoteService.getAllNotes(username).map(NoteDTOMapper::mapToNoteDTO));
+    }
+
+    /**
+     * Streams the Notes matching a query. Supports the CONTENT, LABEL and DEFAULT query types.
+     *
+     * @param q         The search query.
+     * @param queryType The type of query.
+     * @param request   The HTTP request.
+     * @return The matching Notes as newline-delimited JSON, or 400 for an unsupported query.
+     * @throws ServiceUnavailableException if as many lists as allowed are already being streamed.
+     */
+    @GetMapping(value = "/search", produces = NDJSON_MEDIA_TYPE)
+    @RateLimited(value = "search", bucket = "NoteController.searchNotes")
+    public Flux<NoteDTO> searchNotes(@RequestParam @NotNull final String q,
+                                     @RequestParam @NotNull final QueryType queryType,
+                                     @NotNull final HttpServletRequest request) {
+        String username = request.getAttribute("userName").toString();
+        return admit(reactiveNoteService.searchNotes(q, queryType, username).map(NoteDTOMapper::mapToNoteDTO));
+    }
+
+    /**
+     * Takes one of the stream slots for the list, given back when the list completes, fails or
+     * is cancelled.
+     */
+    private <T> Flux<T> admit(Flux<T> stream) {
+        if (!streams.tryAcquire()) {
+            throw new ServiceUnavailableException("Error: Too many note streams in progress, please retry", 1);
+        }
+        return stream.doFinally(signal -> streams.release());
+    }
+
+    @ExceptionHandler(ResourceNotFoundException.class)
+    public ResponseEntity<String> handleNotFound(ResourceNotFoundException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -0,0 +1,19 @@
+package com.manjot.snapnote.dto.authentication.request;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.Set;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UpdateRolesRequest {
+    @NotEmpty
+    private Set<String> role;
+}
@@ -0,0 +1,20 @@
+package com.manjot.snapnote.dto.note;
+
+import com.manjot.snapnote.model.enums.ESharePermission;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkShareRequest {
+    private List<String> recipientUsernames;
+
+    @Builder.Default
+    private ESharePermission permission = ESharePermission.READ;
+}
@@ -0,0 +1,19 @@
+package com.manjot.snapnote.dto.note;
+
+import com.manjot.snapnote.model.enums.EBatchAction;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteBatchOperationDTO {
+    private EBatchAction action;
+
+    private String id;
+
+    private NoteDTO note;
+}
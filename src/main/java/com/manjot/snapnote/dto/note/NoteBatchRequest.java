@@ -0,0 +1,19 @@
+package com.manjot.snapnote.dto.note;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteBatchRequest {
+    @Builder.Default
+    private boolean ordered = true;
+
+    private List<NoteBatchOperationDTO> operations;
+}
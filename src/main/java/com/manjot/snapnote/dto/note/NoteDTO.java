@@ -30,4 +30,6 @@ public class NoteDTO {
     private List<String> labelList;
 
     private LocalDateTime createdAt;
+
+    private Long version;
 }
@@ -22,6 +22,7 @@ public class NoteDTOMapper {
                .labelList(note.getLabelList())
                .createdAt(note.getCreatedAt())
                .userName(note.getUserName())
+               .version(note.getVersion())
                .build();
     }
 
@@ -37,6 +38,7 @@ public class NoteDTOMapper {
                 .content(noteDTO.getContent())
                 .labelList(noteDTO.getLabelList())
                 .userName(noteDTO.getUserName())
+                .version(noteDTO.getVersion())
                 .build();
     }
 }
@@ -0,0 +1,24 @@
+package com.manjot.snapnote.dto.note;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+@Data
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class NotePageDTO {
+    private List<NoteDTO> notes;
+
+    private String nextCursor;
+}
@@ -4,5 +4,8 @@ public class ErrorMessages {
     public static final String INVALID_ACCESS = "Error: Unauthorized access to the requested resource";
     public static final String INVALID_NOTE = "Error: Invalid Note ID, not found!";
     public static final String INVALID_USER = "Error: Invalid User ID, not found!";
+    public static final String SELF_SHARE = "Error: A Note cannot be shared with its owner!";
+    public static final String NOTE_CONFLICT = "Error: Note was modified by another request, reload it and retry!";
+    public static final String UNSUPPORTED_QUERY_TYPE = "Error: Query type is not supported by this endpoint!";
 
 }
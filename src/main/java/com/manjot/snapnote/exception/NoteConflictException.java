@@ -0,0 +1,8 @@
+package com.manjot.snapnote.exception;
+
+public class NoteConflictException extends RuntimeException {
+
+    public NoteConflictException(String message) {
+        super(message);
+    }
+}
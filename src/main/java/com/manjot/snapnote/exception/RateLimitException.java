@@ -1,7 +1,25 @@
 package com.manjot.snapnote.exception;
 
 public class RateLimitException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    private final long remainingTokens;
+
     public RateLimitException(String message) {
+        this(message, 1, 0);
+    }
+
+    public RateLimitException(String message, long retryAfterSeconds, long remainingTokens) {
         super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.remainingTokens = remainingTokens;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public long getRemainingTokens() {
+        return remainingTokens;
     }
-}
\ No newline at end of file
+}
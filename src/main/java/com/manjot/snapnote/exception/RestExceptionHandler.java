@@ -0,0 +1,43 @@
+package com.manjot.snapnote.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import static com.manjot.snapnote.aspect.RateLimitingAspect.REMAINING_HEADER;
+
+/**
+ * Maps exceptions that escape the controllers to HTTP responses.
+ */
+@RestControllerAdvice
+public class RestExceptionHandler {
+
+    /**
+     * Maps a rejected rate-limit check to 429 Too Many Requests with back-off headers.
+     *
+     * @param e The rate-limit exception.
+     * @return ResponseEntity with Retry-After and X-RateLimit-Remaining headers.
+     */
+    @ExceptionHandler(RateLimitException.class)
+    public ResponseEntity<String> handleRateLimit(RateLimitException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+                .header(REMAINING_HEADER, Long.toString(e.getRemainingTokens()))
+                .body(e.getMessage());
+    }
+
+    /**
+     * Maps a request turned away for lack of capacity to 503 Service Unavailable.
+     *
+     * @param e The exception.
+     * @return ResponseEntity with a Retry-After header.
+     */
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<String> handleServiceUnavailable(ServiceUnavailableException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+                .body(e.getMessage());
+    }
+}
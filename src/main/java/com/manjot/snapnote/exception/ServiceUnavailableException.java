@@ -0,0 +1,18 @@
+package com.manjot.snapnote.exception;
+
+/**
+ * Thrown when a request is turned away because the node lacks the capacity to serve it now;
+ * the client may retry after a short wait.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public ServiceUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,14 @@
+package com.manjot.snapnote.model;
+
+import com.manjot.snapnote.model.enums.EBatchAction;
+
+/**
+ * One write of a Note batch.
+ *
+ * @param action What to do.
+ * @param id     The ID of the Note to update or delete; ignored for creates.
+ * @param note   The Note to create, or the new title, content and labels of the Note to update;
+ *               ignored for deletes.
+ */
+public record BatchOperation(EBatchAction action, String id, Note note) {
+}
@@ -0,0 +1,15 @@
+package com.manjot.snapnote.model;
+
+import com.manjot.snapnote.model.enums.EBatchAction;
+import com.manjot.snapnote.model.enums.EBatchStatus;
+
+/**
+ * Outcome of one write of a Note batch.
+ *
+ * @param index  The position of the write in the batch.
+ * @param action What the write did or would have done.
+ * @param id     The ID of the Note, assigned by the server for creates.
+ * @param status Whether the write was applied, and if not, why.
+ */
+public record BatchResult(int index, EBatchAction action, String id, EBatchStatus status) {
+}
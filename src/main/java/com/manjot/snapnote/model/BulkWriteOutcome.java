@@ -0,0 +1,14 @@
+package com.manjot.snapnote.model;
+
+import java.util.Set;
+
+/**
+ * Outcome of the bulk write of a Note batch, by position of the write in the batch. Writes in
+ * none of the sets were applied, unless an ordered bulk write stopped before reaching them.
+ *
+ * @param failed    The writes the database rejected.
+ * @param notFound  The updates and deletes that matched no Note.
+ * @param conflicts The updates that matched no Note at the version they carried.
+ */
+public record BulkWriteOutcome(Set<Integer> failed, Set<Integer> notFound, Set<Integer> conflicts) {
+}
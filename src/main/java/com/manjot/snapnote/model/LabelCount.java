@@ -0,0 +1,10 @@
+package com.manjot.snapnote.model;
+
+/**
+ * Number of a user's notes carrying a label.
+ *
+ * @param label The label.
+ * @param count How many of the user's notes have it.
+ */
+public record LabelCount(String label, long count) {
+}
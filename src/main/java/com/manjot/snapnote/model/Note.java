@@ -1,12 +1,16 @@
 package com.manjot.snapnote.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
-import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.TextScore;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -26,8 +30,16 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @ToString
-@Builder
+@Builder(toBuilder = true)
 @Document(collection = "notes")
+@CompoundIndexes({
+        // keyset pagination over a user's notes, newest first
+        @CompoundIndex(name = "user_created_id", def = "{'userName': 1, 'createdAt': -1, '_id': -1}"),
+        // label filters and label facet counts, per user
+        @CompoundIndex(name = "user_labels", def = "{'userName': 1, 'labelList': 1}"),
+        // full-text search scoped to one user; $text queries must supply an equality on userName
+        @CompoundIndex(name = "user_text", def = "{'userName': 1, 'content': 'text', 'labelList': 'text'}")
+})
 public class Note {
     /**
      * The unique identifier of the note.
@@ -44,13 +56,11 @@ public class Note {
     /**
      * The content of the note, which is text-indexed for searching.
      */
-    @TextIndexed
     private String content;
 
     /**
      * List of labels associated with the note, text-indexed for searching.
      */
-    @TextIndexed
     private List<String> labelList;
 
     /**
@@ -64,4 +74,17 @@ public class Note {
      */
     @CreatedDate
     private LocalDateTime createdAt;
+
+    /**
+     * Incremented on every write; updates that name an expected version fail when it has moved on.
+     */
+    @Version
+    private Long version;
+
+    /**
+     * Relevance of the note to a full-text query; only populated by text searches and never persisted.
+     */
+    @TextScore
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Float score;
 }
@@ -0,0 +1,68 @@
+package com.manjot.snapnote.model;
+
+import com.manjot.snapnote.model.enums.ESharePermission;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Model class representing access to a Note granted by its owner to another user.
+ * The Note itself is not copied; the grantee reads it through this entry.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Builder
+@Document(collection = "note_shares")
+@CompoundIndexes({
+        // one entry per note and grantee; also lists everything shared with a user
+        @CompoundIndex(name = "grantee_note", def = "{'grantee': 1, 'noteId': 1}", unique = true)
+})
+public class NoteShare {
+    /**
+     * The unique identifier of the share entry.
+     */
+    @Id
+    private String id;
+
+    /**
+     * The ID of the shared Note, indexed to find a Note's grantees when it changes.
+     */
+    @Indexed
+    private String noteId;
+
+    /**
+     * The username of the Note's owner.
+     */
+    private String owner;
+
+    /**
+     * The username of the user the Note is shared with.
+     */
+    private String grantee;
+
+    /**
+     * What the grantee may do with the Note.
+     */
+    private ESharePermission permission;
+
+    /**
+     * The date and time when the Note was shared.
+     */
+    @CreatedDate
+    private LocalDateTime createdAt;
+}
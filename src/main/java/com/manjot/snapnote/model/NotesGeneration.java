@@ -0,0 +1,36 @@
+package com.manjot.snapnote.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Model class holding a counter per user that moves forward whenever any Note the user can
+ * read changes. Kept apart from the users collection so that note writes do not look like
+ * account changes to the caches watching users.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Builder
+@Document(collection = "notes_generations")
+public class NotesGeneration {
+    /**
+     * The username the counter belongs to.
+     */
+    @Id
+    private String userName;
+
+    /**
+     * Number of changes to the user's Notes so far.
+     */
+    private long generation;
+}
@@ -0,0 +1,12 @@
+package com.manjot.snapnote.model;
+
+import com.manjot.snapnote.model.enums.EShareStatus;
+
+/**
+ * Outcome of sharing a Note with one recipient of a bulk share.
+ *
+ * @param recipientUsername The recipient.
+ * @param status            Whether the Note was shared with them, and if not, why.
+ */
+public record ShareResult(String recipientUsername, EShareStatus status) {
+}
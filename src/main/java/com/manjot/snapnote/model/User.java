@@ -16,6 +16,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
@@ -66,6 +67,16 @@ public class User {
     @DBRef
     private Set<Role> roles = new HashSet<>();
 
+    /**
+     * Version of the user's issued tokens. Incrementing it revokes every token issued before.
+     */
+    private long tokenVersion;
+
+    /**
+     * When the token version was last incremented.
+     */
+    private Instant tokensRevokedAt;
+
     /**
      * The timestamp when the user was created.
      */
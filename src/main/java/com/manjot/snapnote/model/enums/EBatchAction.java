@@ -0,0 +1,7 @@
+package com.manjot.snapnote.model.enums;
+
+public enum EBatchAction {
+    CREATE,
+    UPDATE,
+    DELETE
+}
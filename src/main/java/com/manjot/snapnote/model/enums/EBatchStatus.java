@@ -0,0 +1,12 @@
+package com.manjot.snapnote.model.enums;
+
+public enum EBatchStatus {
+    CREATED,
+    UPDATED,
+    DELETED,
+    INVALID,
+    NOT_FOUND,
+    CONFLICT,
+    FAILED,
+    NOT_EXECUTED
+}
@@ -0,0 +1,6 @@
+package com.manjot.snapnote.model.enums;
+
+public enum ESharePermission {
+    READ,
+    WRITE
+}
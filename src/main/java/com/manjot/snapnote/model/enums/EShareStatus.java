@@ -0,0 +1,8 @@
+package com.manjot.snapnote.model.enums;
+
+public enum EShareStatus {
+    SHARED,
+    USER_NOT_FOUND,
+    OWNER,
+    FAILED
+}
@@ -2,6 +2,11 @@ package com.manjot.snapnote.model.enums;
 
 public enum QueryType {
     CONTENT,
+    TITLE,
     LABEL,
+    TEXT,
+    INDEXED,
+    LABEL_BITMAP,
+    ALL,
     DEFAULT;
 }
@@ -0,0 +1,125 @@
+package com.manjot.snapnote.repository;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AbstractCompareAndSwapBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AsyncCompareAndSwapOperation;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapOperation;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bucket4j proxy manager that keeps bucket state in a MongoDB collection.
+ * Each bucket is one document holding the serialized state; updates are compare-and-swap
+ * writes filtered on the previous state, so concurrent nodes never overwrite each other.
+ * Documents carry an expiry at the time the bucket would be full again and are removed by a
+ * TTL index once idle.
+ */
+public class MongoBucketProxyManager extends AbstractCompareAndSwapBasedProxyManager<String> {
+    private static final Logger logger = LoggerFactory.getLogger(MongoBucketProxyManager.class);
+
+    private static final String STATE = "state";
+    private static final String EXPIRE_AT = "expireAt";
+
+    private final MongoCollection<Document> collection;
+
+    public MongoBucketProxyManager(MongoTemplate mongoTemplate, String collectionName) {
+        super(ClientSideConfig.getDefault());
+        this.collection = mongoTemplate.getCollection(collectionName);
+    }
+
+    /**
+     * Creates the TTL index that removes buckets once they are idle and full again.
+     */
+    public void ensureIndexes() {
+        try {
+            collection.createIndex(Indexes.ascending(EXPIRE_AT), new IndexOptions().expireAfter(0L, TimeUnit.SECONDS));
+        } catch (Exception e) {
+            logger.error("Cannot create rate-limit bucket TTL index: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    protected CompareAndSwapOperation beginCompareAndSwapOperation(String key) {
+        return new CompareAndSwapOperation() {
+            @Override
+            public Optional<byte[]> getStateData() {
+                Document document = collection.find(Filters.eq("_id", key))
+                        .projection(Projections.include(STATE))
+                        .first();
+                if (document == null) {
+                    return Optional.empty();
+                }
+                return Optional.of(document.get(STATE, Binary.class).getData());
+            }
+
+            @Override
+            public boolean compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState) {
+                // bucket4j measures compare-and-swap state against wall-clock time in nanoseconds
+                long nowMillis = System.currentTimeMillis();
+                long refillNanos = newState.calculateFullRefillingTime(TimeUnit.MILLISECONDS.toNanos(nowMillis));
+                Date expireAt = new Date(nowMillis + TimeUnit.NANOSECONDS.toMillis(refillNanos));
+                if (originalData == null) {
+                    return insert(key, newData, expireAt);
+                }
+                UpdateResult result = collection.updateOne(
+                        Filters.and(Filters.eq("_id", key), Filters.eq(STATE, new Binary(originalData))),
+                        Updates.combine(Updates.set(STATE, new Binary(newData)), Updates.set(EXPIRE_AT, expireAt)));
+                return result.getModifiedCount() == 1;
+            }
+        };
+    }
+
+    private boolean insert(String key, byte[] data, Date expireAt) {
+        try {
+            collection.insertOne(new Document("_id", key)
+                    .append(STATE, new Binary(data))
+                    .append(EXPIRE_AT, expireAt));
+            return true;
+        } catch (MongoWriteException e) {
+            if (ErrorCategory.fromErrorCode(e.getCode()) == ErrorCategory.DUPLICATE_KEY) {
+                // another node created the bucket first; the caller retries against its state
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    protected AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(String key) {
+        throw new UnsupportedOperationException("Async mode is not supported by the MongoDB bucket store");
+    }
+
+    @Override
+    public void removeProxy(String key) {
+        collection.deleteOne(Filters.eq("_id", key));
+    }
+
+    @Override
+    protected CompletableFuture<Void> removeAsync(String key) {
+        return CompletableFuture.failedFuture(
+                new UnsupportedOperationException("Async mode is not supported by the MongoDB bucket store"));
+    }
+
+    @Override
+    public boolean isAsyncModeSupported() {
+        return false;
+    }
+}
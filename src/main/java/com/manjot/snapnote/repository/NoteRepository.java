@@ -1,8 +1,11 @@
 package com.manjot.snapnote.repository;
 
 import com.manjot.snapnote.model.Note;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.query.TextCriteria;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,9 +13,14 @@ import java.util.Optional;
  * Repository interface for managing Note entities in MongoDB.
  */
 @Repository
-public interface NoteRepository extends MongoRepository<Note, String> {
+public interface NoteRepository extends MongoRepository<Note, String>, NoteRepositoryCustom {
     Optional<List<Note>> findByUserName(String userName);
     Optional<Note> findByIdAndUserName(String id, String userName);
+    List<Note> findByIdInAndUserName(Collection<String> ids, String userName);
+    boolean existsByIdAndUserName(String id, String userName);
+    long deleteByIdAndUserName(String id, String userName);
     List<Note> findByContentContainingAndUserName(String content, String userName);
+    List<Note> findByTitleContainingAndUserName(String title, String userName);
     List<Note> findByLabelListInAndUserName(List<String> labels, String userName);
+    List<Note> findByUserNameOrderByScoreDesc(String userName, TextCriteria criteria, Pageable pageable);
 }
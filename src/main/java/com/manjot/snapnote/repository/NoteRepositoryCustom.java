@@ -0,0 +1,148 @@
+package com.manjot.snapnote.repository;
+
+import com.manjot.snapnote.model.BatchOperation;
+import com.manjot.snapnote.model.BulkWriteOutcome;
+import com.manjot.snapnote.model.LabelCount;
+import com.manjot.snapnote.model.Note;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Note queries that need MongoTemplate rather than derived query methods.
+ */
+public interface NoteRepositoryCustom {
+    /**
+     * Returns a user's notes ordered by (createdAt, _id) descending, starting strictly after the
+     * given position. Served by the (userName, createdAt, _id) index.
+     *
+     * @param userName        The owner of the notes.
+     * @param createdAtBefore createdAt of the last note of the previous page, or null if that note has none or for the first page.
+     * @param idBefore        Id of the last note of the previous page, or null for the first page.
+     * @param limit           Maximum number of notes to return.
+     * @return The next notes in keyset order.
+     */
+    List<Note> findPageByUserName(String userName, LocalDateTime createdAtBefore, String idBefore, int limit);
+
+    /**
+     * Returns the notes shared with a user in the same keyset order and from the same position
+     * as {@link #findPageByUserName}, so the two can be merged into one page.
+     *
+     * @param grantee         The user the notes are shared with.
+     * @param createdAtBefore createdAt of the last note of the previous page, or null if that note has none or for the first page.
+     * @param idBefore        Id of the last note of the previous page, or null for the first page.
+     * @param limit           Maximum number of notes to return.
+     * @return The next shared notes in keyset order.
+     */
+    List<Note> findSharedPageWith(String grantee, LocalDateTime createdAtBefore, String idBefore, int limit);
+
+    /**
+     * Streams all of a user's notes, newest first, from a server-side cursor that fetches
+     * documents in batches of the given size. The stream must be closed to release the cursor.
+     *
+     * @param userName  The owner of the notes.
+     * @param batchSize Number of documents the cursor fetches per round trip.
+     * @return A lazily populated stream of notes.
+     */
+    Stream<Note> streamByUserName(String userName, int batchSize);
+
+    /**
+     * Streams the notes shared with a user, newest first, from a server-side cursor. The stream
+     * must be closed to release the cursor.
+     *
+     * @param grantee   The user the notes are shared with.
+     * @param batchSize Number of documents the cursor fetches per round trip.
+     * @return A lazily populated stream of shared notes.
+     */
+    Stream<Note> streamSharedWith(String grantee, int batchSize);
+
+    /**
+     * Finds a user's notes matching an additional criteria, typically a label expression.
+     *
+     * @param userName The owner of the notes.
+     * @param criteria Further conditions the notes must satisfy.
+     * @return The matching notes.
+     */
+    List<Note> findByUserNameMatching(String userName, Criteria criteria);
+
+    /**
+     * Counts a user's notes per label in a single aggregation, most used labels first.
+     *
+     * @param userName The owner of the notes.
+     * @return One count per distinct label.
+     */
+    List<LabelCount> countLabelsByUserName(String userName);
+
+    /**
+     * Finds the notes other users have shared with a user that match an additional criteria.
+     * The user's share entries are read first, then the notes they point to.
+     *
+     * @param grantee  The user the notes are shared with.
+     * @param criteria Further conditions the notes must satisfy; an empty criteria matches all.
+     * @return The matching shared notes.
+     */
+    List<Note> findSharedWith(String grantee, Criteria criteria);
+
+    /**
+     * Reads only the version of a user's note.
+     *
+     * @param id       The ID of the note.
+     * @param userName The owner of the note.
+     * @return The version, 0 for notes written before versioning, or empty if the note does not exist.
+     */
+    Optional<Long> findNoteVersion(String id, String userName);
+
+    /**
+     * Sets fields of a user's note and increments its version in one atomic findAndModify,
+     * without reading the note first.
+     *
+     * @param id              The ID of the note.
+     * @param userName        The owner of the note.
+     * @param expectedVersion The version the caller last saw, or null to update whatever version is stored.
+     * @param fields          The fields to set and their new values; null values are stored as null.
+     * @return The note as updated, or empty if no note of the user with that ID (and version) exists.
+     */
+    Optional<Note> modifyByIdAndUserName(String id, String userName, Long expectedVersion, Map<String, Object> fields);
+
+    /**
+     * Applies creates, updates and deletes of a user's notes in a single bulk write. Updates
+     * and deletes only match notes the user owns, and an update whose note carries a version
+     * only matches the note at that version; creates are inserted as given, so their
+     * id, owner and creation time must already be set.
+     *
+     * @param userName   The owner of the notes.
+     * @param operations The writes, in order.
+     * @param ordered    Whether to stop at the first failing write; otherwise every write is attempted.
+     * @return The writes that failed, and those that matched no note. The database only reports
+     *         how many updates and deletes matched, so when fewer did than were sent the notes
+     *         are read again: updates of notes the user no longer owns matched nothing, and the
+     *         remaining misses are put on versioned updates when there are exactly as many of
+     *         them. Deleted notes are gone whoever deleted them, so misses among deletes are
+     *         only reported when none of them matched.
+     */
+    BulkWriteOutcome bulkWrite(String userName, List<BatchOperation> operations, boolean ordered);
+
+    /**
+     * Returns every note a user can read: their own followed by those shared with them.
+     *
+     * @param userName The user.
+     * @return The user's own and shared notes.
+     */
+    List<Note> findAccessibleByUserName(String userName);
+
+    /**
+     * Runs a full-text search over the notes shared with a user, best match first. The text
+     * index is prefixed by userName, so one query runs per owner of a shared note.
+     *
+     * @param grantee  The user the notes are shared with.
+     * @param criteria The text search.
+     * @param limit    Maximum number of notes to return.
+     * @return The matching shared notes with their text score set.
+     */
+    List<Note> findSharedWithByText(String grantee, TextCriteria criteria, int limit);
+}
@@ -0,0 +1,283 @@
+package com.manjot.snapnote.repository;
+
+import com.manjot.snapnote.model.BatchOperation;
+import com.manjot.snapnote.model.BulkWriteOutcome;
+import com.manjot.snapnote.model.LabelCount;
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.model.NoteShare;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * MongoTemplate-backed implementation of {@link NoteRepositoryCustom}.
+ */
+public class NoteRepositoryCustomImpl implements NoteRepositoryCustom {
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public NoteRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Note> findPageByUserName(String userName, LocalDateTime createdAtBefore, String idBefore, int limit) {
+        Query query = Query.query(after(Criteria.where("userName").is(userName), createdAtBefore, idBefore))
+                .with(NEWEST_FIRST)
+                .limit(limit);
+        return mongoTemplate.find(query, Note.class);
+    }
+
+    @Override
+    public List<Note> findSharedPageWith(String grantee, LocalDateTime createdAtBefore, String idBefore, int limit) {
+        List<String> noteIds = findShares(grantee).stream().map(NoteShare::getNoteId).toList();
+        if (noteIds.isEmpty()) {
+            return List.of();
+        }
+        Query query = Query.query(after(Criteria.where("id").in(noteIds), createdAtBefore, idBefore))
+                .with(NEWEST_FIRST)
+                .limit(limit);
+        return mongoTemplate.find(query, Note.class);
+    }
+
+    @Override
+    public Stream<Note> streamByUserName(String userName, int batchSize) {
+        Query query = Query.query(Criteria.where("userName").is(userName))
+                .with(NEWEST_FIRST)
+                .cursorBatchSize(batchSize);
+        return mongoTemplate.stream(query, Note.class);
+    }
+
+    @Override
+    public Stream<Note> streamSharedWith(String grantee, int batchSize) {
+        List<String> noteIds = findShares(grantee).stream().map(NoteShare::getNoteId).toList();
+        if (noteIds.isEmpty()) {
+            return Stream.empty();
+        }
+        Query query = Query.query(Criteria.where("id").in(noteIds))
+                .with(NEWEST_FIRST)
+                .cursorBatchSize(batchSize);
+        return mongoTemplate.stream(query, Note.class);
+    }
+
+    @Override
+    public List<Note> findByUserNameMatching(String userName, Criteria criteria) {
+        Query query = Query.query(Criteria.where("userName").is(userName).andOperator(criteria));
+        return mongoTemplate.find(query, Note.class);
+    }
+
+    @Override
+    public List<LabelCount> countLabelsByUserName(String userName) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("userName").is(userName)),
+                Aggregation.project("labelList"),
+                Aggregation.unwind("labelList"),
+                Aggregation.group("labelList").count().as("count"),
+                Aggregation.sort(Sort.by(Sort.Order.desc("count"), Sort.Order.asc("_id"))));
+        return mongoTemplate.aggregate(aggregation, Note.class, Document.class).getMappedResults().stream()
+                .map(result -> new LabelCount(result.getString("_id"), ((Number) result.get("count")).longValue()))
+                .toList();
+    }
+
+    @Override
+    public List<Note> findSharedWith(String grantee, Criteria criteria) {
+        List<String> noteIds = findShares(grantee).stream().map(NoteShare::getNoteId).toList();
+        if (noteIds.isEmpty()) {
+            return List.of();
+        }
+        Query query = Query.query(Criteria.where("id").in(noteIds).andOperator(criteria));
+        return mongoTemplate.find(query, Note.class);
+    }
+
+    @Override
+    public Optional<Long> findNoteVersion(String id, String userName) {
+        Query query = Query.query(Criteria.where("id").is(id).and("userName").is(userName));
+        query.fields().include("version");
+        return Optional.ofNullable(mongoTemplate.findOne(query, Note.class))
+                .map(note -> note.getVersion() == null ? 0L : note.getVersion());
+    }
+
+    @Override
+    public Optional<Note> modifyByIdAndUserName(String id, String userName, Long expectedVersion, Map<String, Object> fields) {
+        Criteria criteria = Criteria.where("id").is(id).and("userName").is(userName);
+        if (expectedVersion != null) {
+            criteria = criteria.and("version").is(expectedVersion);
+        }
+        Update update = new Update().inc("version", 1);
+        fields.forEach(update::set);
+        return Optional.ofNullable(mongoTemplate.findAndModify(Query.query(criteria), update,
+                FindAndModifyOptions.options().returnNew(true), Note.class));
+    }
+
+    @Override
+    public BulkWriteOutcome bulkWrite(String userName, List<BatchOperation> operations, boolean ordered) {
+        if (operations.isEmpty()) {
+            return new BulkWriteOutcome(Set.of(), Set.of(), Set.of());
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(
+                ordered ? BulkOperations.BulkMode.ORDERED : BulkOperations.BulkMode.UNORDERED, Note.class);
+        for (BatchOperation operation : operations) {
+            Query owned = Query.query(Criteria.where("id").is(operation.id()).and("userName").is(userName));
+            switch (operation.action()) {
+                case CREATE -> bulk.insert(operation.note());
+                case UPDATE -> bulk.updateOne(versioned(owned, operation.note().getVersion()), new Update()
+                        .set("title", operation.note().getTitle())
+                        .set("content", operation.note().getContent())
+                        .set("labelList", operation.note().getLabelList())
+                        .inc("version", 1));
+                case DELETE -> bulk.remove(owned);
+            }
+        }
+        BulkWriteResult result;
+        Set<Integer> failed;
+        try {
+            result = bulk.execute();
+            failed = Set.of();
+        } catch (BulkOperationException e) {
+            result = e.getResult();
+            failed = e.getErrors().stream().map(error -> error.getIndex()).collect(Collectors.toSet());
+        }
+        // an ordered bulk write stops at its first failure
+        int executed = ordered ? failed.stream().min(Integer::compare).orElse(operations.size()) : operations.size();
+        List<Integer> updates = new ArrayList<>();
+        List<Integer> deletes = new ArrayList<>();
+        for (int i = 0; i < executed; i++) {
+            if (failed.contains(i)) {
+                continue;
+            }
+            switch (operations.get(i).action()) {
+                case UPDATE -> updates.add(i);
+                case DELETE -> deletes.add(i);
+                default -> {
+                }
+            }
+        }
+
+        Set<Integer> notFound = new HashSet<>();
+        Set<Integer> conflicts = new HashSet<>();
+        int missedUpdates = updates.size() - result.getMatchedCount();
+        if (missedUpdates > 0) {
+            Set<String> stillOwned = findOwnedIds(userName,
+                    updates.stream().map(i -> operations.get(i).id()).collect(Collectors.toSet()));
+            Set<String> deletedIds = deletes.stream().map(i -> operations.get(i).id()).collect(Collectors.toSet());
+            List<Integer> versioned = new ArrayList<>();
+            for (int i : updates) {
+                if (deletedIds.contains(operations.get(i).id())) {
+                    // the update ran before the delete of the batch that removed its Note
+                    continue;
+                }
+                if (!stillOwned.contains(operations.get(i).id())) {
+                    notFound.add(i);
+                } else if (operations.get(i).note().getVersion() != null) {
+                    versioned.add(i);
+                }
+            }
+            // the remaining misses are versioned updates that lost to a concurrent write
+            if (versioned.size() == missedUpdates - notFound.size()) {
+                conflicts.addAll(versioned);
+            }
+        }
+        // every deleted Note is gone afterwards, whoever deleted it, so misses are only
+        // attributed when no delete matched
+        if (result.getDeletedCount() == 0) {
+            notFound.addAll(deletes);
+        }
+        return new BulkWriteOutcome(failed, notFound, conflicts);
+    }
+
+    private Set<String> findOwnedIds(String userName, Set<String> ids) {
+        Query query = Query.query(Criteria.where("id").in(ids).and("userName").is(userName));
+        query.fields().include("id");
+        return mongoTemplate.find(query, Note.class).stream().map(Note::getId).collect(Collectors.toSet());
+    }
+
+    private static Query versioned(Query query, Long expectedVersion) {
+        return expectedVersion == null ? query : query.addCriteria(Criteria.where("version").is(expectedVersion));
+    }
+
+    @Override
+    public List<Note> findAccessibleByUserName(String userName) {
+        List<Note> notes = new ArrayList<>(mongoTemplate.find(Query.query(Criteria.where("userName").is(userName)), Note.class));
+        notes.addAll(findSharedWith(userName, new Criteria()));
+        return notes;
+    }
+
+    @Override
+    public List<Note> findSharedWithByText(String grantee, TextCriteria criteria, int limit) {
+        Map<String, List<String>> noteIdsByOwner = findShares(grantee).stream()
+                .collect(Collectors.groupingBy(NoteShare::getOwner,
+                        Collectors.mapping(NoteShare::getNoteId, Collectors.toList())));
+        List<Note> notes = new ArrayList<>();
+        noteIdsByOwner.forEach((owner, noteIds) -> {
+            Query query = TextQuery.queryText(criteria).sortByScore()
+                    .addCriteria(Criteria.where("userName").is(owner).and("id").in(noteIds))
+                    .limit(limit);
+            notes.addAll(mongoTemplate.find(query, Note.class));
+        });
+        return notes.stream()
+                .sorted(Comparator.comparing(Note::getScore, Comparator.nullsLast(Comparator.reverseOrder())))
+                .limit(limit)
+                .toList();
+    }
+
+    private List<NoteShare> findShares(String grantee) {
+        Query query = Query.query(Criteria.where("grantee").is(grantee));
+        query.fields().include("noteId", "owner");
+        return mongoTemplate.find(query, NoteShare.class);
+    }
+
+    /**
+     * Restricts a criteria to the notes after a keyset position in {@link #NEWEST_FIRST} order.
+     * Notes without a creation time sort last, so they follow every dated note, and a position
+     * among them has no creation time.
+     *
+     * @param createdAtBefore The creation time at the position, or null if the note there has none.
+     * @param idBefore        The ID at the position, or null for the first page.
+     */
+    private static Criteria after(Criteria criteria, LocalDateTime createdAtBefore, String idBefore) {
+        if (idBefore == null) {
+            return criteria;
+        }
+        Criteria undated = Criteria.where("createdAt").is(null);
+        if (createdAtBefore == null) {
+            return criteria.andOperator(undated, Criteria.where("id").lt(toObjectId(idBefore)));
+        }
+        return criteria.orOperator(
+                Criteria.where("createdAt").lt(createdAtBefore),
+                Criteria.where("createdAt").is(createdAtBefore).and("id").lt(toObjectId(idBefore)),
+                undated);
+    }
+
+    /**
+     * Ids are stored as ObjectIds; range operators are not converted automatically, so the
+     * conversion is done here to compare against the stored type.
+     */
+    static Object toObjectId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
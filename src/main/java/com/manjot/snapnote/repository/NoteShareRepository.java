@@ -0,0 +1,25 @@
+package com.manjot.snapnote.repository;
+
+import com.manjot.snapnote.model.NoteShare;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for managing NoteShare entities in MongoDB.
+ */
+@Repository
+public interface NoteShareRepository extends MongoRepository<NoteShare, String>, NoteShareRepositoryCustom {
+    Optional<NoteShare> findByNoteIdAndGrantee(String noteId, String grantee);
+
+    List<NoteShare> findByNoteId(String noteId);
+
+    List<NoteShare> findByNoteIdIn(Collection<String> noteIds);
+
+    void deleteByNoteId(String noteId);
+
+    void deleteByNoteIdIn(Collection<String> noteIds);
+}
@@ -0,0 +1,23 @@
+package com.manjot.snapnote.repository;
+
+import com.manjot.snapnote.model.enums.ESharePermission;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * NoteShare writes that need MongoTemplate rather than derived query methods.
+ */
+public interface NoteShareRepositoryCustom {
+    /**
+     * Creates or updates the share entries of a note for many grantees in a single unordered
+     * bulk write, so one failing entry does not stop the others.
+     *
+     * @param noteId     The ID of the shared note.
+     * @param owner      The owner of the note.
+     * @param grantees   The users to share the note with.
+     * @param permission The permission every grantee receives.
+     * @return The grantees whose entry could not be written.
+     */
+    Set<String> upsertAll(String noteId, String owner, List<String> grantees, ESharePermission permission);
+}
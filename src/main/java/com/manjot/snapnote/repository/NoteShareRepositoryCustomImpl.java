@@ -0,0 +1,54 @@
+package com.manjot.snapnote.repository;
+
+import com.manjot.snapnote.model.NoteShare;
+import com.manjot.snapnote.model.enums.ESharePermission;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * MongoTemplate-backed implementation of {@link NoteShareRepositoryCustom}.
+ */
+public class NoteShareRepositoryCustomImpl implements NoteShareRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public NoteShareRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Set<String> upsertAll(String noteId, String owner, List<String> grantees, ESharePermission permission) {
+        if (grantees.isEmpty()) {
+            return Set.of();
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, NoteShare.class);
+        LocalDateTime now = LocalDateTime.now();
+        for (String grantee : grantees) {
+            Query query = Query.query(Criteria.where("noteId").is(noteId).and("grantee").is(grantee));
+            Update update = new Update()
+                    .set("owner", owner)
+                    .set("permission", permission.name())
+                    .setOnInsert("createdAt", now);
+            bulk.upsert(query, update);
+        }
+        try {
+            bulk.execute();
+            return Set.of();
+        } catch (BulkOperationException e) {
+            // errors carry the index of the failed operation, which matches the grantee's position
+            return e.getErrors().stream()
+                    .map(error -> grantees.get(error.getIndex()))
+                    .collect(Collectors.toSet());
+        }
+    }
+}
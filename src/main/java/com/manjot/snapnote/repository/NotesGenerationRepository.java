@@ -0,0 +1,12 @@
+package com.manjot.snapnote.repository;
+
+import com.manjot.snapnote.model.NotesGeneration;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for managing NotesGeneration entities in MongoDB.
+ */
+@Repository
+public interface NotesGenerationRepository extends MongoRepository<NotesGeneration, String>, NotesGenerationRepositoryCustom {
+}
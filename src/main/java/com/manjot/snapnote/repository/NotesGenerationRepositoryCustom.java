@@ -0,0 +1,16 @@
+package com.manjot.snapnote.repository;
+
+import java.util.Collection;
+
+/**
+ * NotesGeneration writes that need MongoTemplate rather than derived query methods.
+ */
+public interface NotesGenerationRepositoryCustom {
+    /**
+     * Moves every given user to their next generation in a single bulk write, creating the
+     * counter of users that have none yet.
+     *
+     * @param userNames The users whose Notes changed.
+     */
+    void incrementAll(Collection<String> userNames);
+}
@@ -0,0 +1,35 @@
+package com.manjot.snapnote.repository;
+
+import com.manjot.snapnote.model.NotesGeneration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+
+/**
+ * MongoTemplate-backed implementation of {@link NotesGenerationRepositoryCustom}.
+ */
+public class NotesGenerationRepositoryCustomImpl implements NotesGenerationRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public NotesGenerationRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void incrementAll(Collection<String> userNames) {
+        if (userNames.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, NotesGeneration.class);
+        for (String userName : userNames) {
+            bulk.upsert(Query.query(Criteria.where("userName").is(userName)), new Update().inc("generation", 1));
+        }
+        bulk.execute();
+    }
+}
@@ -0,0 +1,20 @@
+package com.manjot.snapnote.repository;
+
+import com.manjot.snapnote.model.Note;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link NoteRepository} for the /api/v2 read endpoints.
+ */
+@Repository
+public interface ReactiveNoteRepository extends ReactiveMongoRepository<Note, String>, ReactiveNoteRepositoryCustom {
+    Flux<Note> findByUserName(String userName);
+    Mono<Note> findByIdAndUserName(String id, String userName);
+    Flux<Note> findByContentContainingAndUserName(String content, String userName);
+    Flux<Note> findByLabelListInAndUserName(List<String> labels, String userName);
+}
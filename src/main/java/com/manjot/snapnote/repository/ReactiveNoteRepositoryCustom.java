@@ -0,0 +1,30 @@
+package com.manjot.snapnote.repository;
+
+import com.manjot.snapnote.model.Note;
+import org.springframework.data.mongodb.core.query.Criteria;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking counterparts of the {@link NoteRepositoryCustom} queries used by /api/v2.
+ */
+public interface ReactiveNoteRepositoryCustom {
+    /**
+     * Finds a user's notes matching an additional criteria, typically a label expression.
+     *
+     * @param userName The owner of the notes.
+     * @param criteria The criteria the notes must also match.
+     * @return The matching notes.
+     */
+    Flux<Note> findByUserNameMatching(String userName, Criteria criteria);
+
+    /**
+     * Finds notes shared with a user that match an additional criteria. Share entries are
+     * read as a stream and their notes fetched in batches, so a user with many shares is
+     * never held in memory at once.
+     *
+     * @param grantee  The user the notes are shared with.
+     * @param criteria The criteria the notes must also match.
+     * @return The matching shared notes.
+     */
+    Flux<Note> findSharedWith(String grantee, Criteria criteria);
+}
@@ -0,0 +1,40 @@
+package com.manjot.snapnote.repository;
+
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.model.NoteShare;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+
+/**
+ * ReactiveMongoTemplate-backed implementation of {@link ReactiveNoteRepositoryCustom}.
+ */
+public class ReactiveNoteRepositoryCustomImpl implements ReactiveNoteRepositoryCustom {
+    private static final int SHARED_ID_BATCH_SIZE = 500;
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Autowired
+    public ReactiveNoteRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    @Override
+    public Flux<Note> findByUserNameMatching(String userName, Criteria criteria) {
+        Query query = Query.query(Criteria.where("userName").is(userName).andOperator(criteria));
+        return reactiveMongoTemplate.find(query, Note.class);
+    }
+
+    @Override
+    public Flux<Note> findSharedWith(String grantee, Criteria criteria) {
+        Query shares = Query.query(Criteria.where("grantee").is(grantee));
+        shares.fields().include("noteId");
+        return reactiveMongoTemplate.find(shares, NoteShare.class)
+                .map(NoteShare::getNoteId)
+                .buffer(SHARED_ID_BATCH_SIZE)
+                .concatMap(noteIds -> reactiveMongoTemplate.find(
+                        Query.query(Criteria.where("id").in(noteIds).andOperator(criteria)), Note.class));
+    }
+}
@@ -0,0 +1,14 @@
+package com.manjot.snapnote.repository;
+
+import com.manjot.snapnote.model.NoteShare;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link NoteShareRepository} for the /api/v2 read endpoints.
+ */
+@Repository
+public interface ReactiveNoteShareRepository extends ReactiveMongoRepository<NoteShare, String> {
+    Mono<NoteShare> findByNoteIdAndGrantee(String noteId, String grantee);
+}
@@ -2,8 +2,11 @@ package com.manjot.snapnote.repository;
 
 import com.manjot.snapnote.model.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -13,6 +16,13 @@ import java.util.Optional;
 public interface UserRepository extends MongoRepository<User,String> {
     Optional<User> findByUsername(String username);
 
+    /**
+     * Finds the users with the given usernames, loading only the username so that role
+     * references are not resolved.
+     */
+    @Query(value = "{ 'username': { $in: ?0 } }", fields = "{ 'username': 1 }")
+    List<User> findUsernamesIn(Collection<String> usernames);
+
     Boolean existsByUsername(String username);
 
     Boolean existsByEmail(String email);
@@ -1,6 +1,9 @@
 package com.manjot.snapnote.security.jwt;
 
+import com.manjot.snapnote.security.services.TokenRevocationRegistry;
+import com.manjot.snapnote.security.services.UserDetailsImpl;
 import com.manjot.snapnote.security.services.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -24,6 +27,9 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private TokenRevocationRegistry revocationRegistry;
+
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
     @Override
@@ -31,10 +37,10 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            Claims claims = jwt != null ? jwtUtils.parseJwtToken(jwt) : null;
+            UserDetails userDetails = claims != null ? resolvePrincipal(claims) : null;
+            if (userDetails != null) {
+                String username = userDetails.getUsername();
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(
                                 userDetails,
@@ -52,6 +58,25 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Resolves the principal of a verified token. In claims-only mode the principal is built
+     * from the token itself and checked against the revocation registry; otherwise it is loaded
+     * through the user details service.
+     */
+    private UserDetails resolvePrincipal(Claims claims) {
+        if (jwtUtils.isClaimsOnly()) {
+            UserDetailsImpl principal = jwtUtils.getPrincipalFromClaims(claims);
+            if (principal != null) {
+                if (revocationRegistry.isRevoked(principal.getId(), principal.getTokenVersion())) {
+                    logger.error("JWT token is revoked for user: {}", principal.getUsername());
+                    return null;
+                }
+                return principal;
+            }
+        }
+        return userDetailsService.loadUserByUsername(claims.getSubject());
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
@@ -0,0 +1,73 @@
+package com.manjot.snapnote.security.services;
+
+import com.manjot.snapnote.model.Role;
+import com.manjot.snapnote.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.MongoMappingEvent;
+import org.springframework.stereotype.Component;
+
+import static com.manjot.snapnote.configuration.CacheConfig.PRINCIPAL_CACHE;
+
+/**
+ * Keeps the principal cache consistent with the users and roles collections.
+ * A saved user evicts its own entry; deleted users and any role change clear the cache,
+ * since the affected usernames are not known from the event.
+ */
+@Component
+public class PrincipalCacheEvictionListener extends AbstractMongoEventListener<Object> {
+    private final CacheManager cacheManager;
+
+    @Autowired
+    public PrincipalCacheEvictionListener(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        Object source = event.getSource();
+        if (source instanceof User user) {
+            evict(user.getUsername());
+        } else if (source instanceof Role) {
+            evictAll();
+        }
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+        if (isPrincipalCollection(event)) {
+            evictAll();
+        }
+    }
+
+    /**
+     * Evicts the cached principal of a single user.
+     *
+     * @param username The username whose principal should be evicted.
+     */
+    public void evict(String username) {
+        Cache cache = cacheManager.getCache(PRINCIPAL_CACHE);
+        if (cache != null && username != null) {
+            cache.evict(username);
+        }
+    }
+
+    /**
+     * Evicts every cached principal.
+     */
+    public void evictAll() {
+        Cache cache = cacheManager.getCache(PRINCIPAL_CACHE);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    private boolean isPrincipalCollection(MongoMappingEvent<?> event) {
+        String collection = event.getCollectionName();
+        return "users".equals(collection) || "roles".equals(collection);
+    }
+}
@@ -0,0 +1,219 @@
+package com.manjot.snapnote.security.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.manjot.snapnote.model.User;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory revocation state for claims-only authentication.
+ * Holds the current token version of every user that has recently revoked tokens, plus the
+ * ids of recently deleted users. Tokens are revoked by {@link UserAccountService}, which
+ * increments {@code tokenVersion} and stamps {@code tokensRevokedAt} on the user's document.
+ * A deletion also leaves a tombstone in {@value #REVOKED_USERS} that outlives every token
+ * issued before it, so nodes that did not see the delete still learn about it.
+ * <p>
+ * Every entry expires once the tokens it revokes have expired, exactly like the tombstones,
+ * so the state stays bounded by the revocations of one token lifetime. Versions only ever
+ * grow and deletions are final, so the background refresh merges rather than replaces; when
+ * it raises a user's version it also evicts the cached principal, so that new logins are not
+ * issued tokens carrying the old version.
+ */
+@Component
+public class TokenRevocationRegistry extends AbstractMongoEventListener<User> {
+    static final String REVOKED_USERS = "revoked_users";
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationRegistry.class);
+
+    // version recorded for a deleted user, above that of any token
+    private static final long DELETED = Long.MAX_VALUE;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final PrincipalCacheEvictionListener principalCache;
+
+    private final Cache<String, Revocation> revocations;
+
+    @Value("${manjot.app.jwtClaimsOnly:false}")
+    private boolean claimsOnly;
+
+    @Value("${manjot.app.jwtExpirationMs:86400000}")
+    private long jwtExpirationMs;
+
+    private volatile boolean tombstoneIndexReady;
+
+    @Autowired
+    public TokenRevocationRegistry(MongoTemplate mongoTemplate, PrincipalCacheEvictionListener principalCache) {
+        this.mongoTemplate = mongoTemplate;
+        this.principalCache = principalCache;
+        this.revocations = Caffeine.newBuilder()
+                .expireAfter(new ExpireWithRevokedTokens())
+                .build();
+    }
+
+    /**
+     * Checks whether a token issued to a user with the given token version has been revoked.
+     *
+     * @param userId       The id of the user the token was issued to.
+     * @param tokenVersion The token version embedded in the token.
+     * @return true if the user was deleted or has revoked tokens since the token was issued.
+     */
+    public boolean isRevoked(String userId, long tokenVersion) {
+        Revocation revocation = revocations.getIfPresent(userId);
+        return revocation != null && (revocation.tokenVersion() == DELETED || tokenVersion < revocation.tokenVersion());
+    }
+
+    /**
+     * Records a user's current token version, e.g. as reported by another node.
+     *
+     * @param userId       The id of the user.
+     * @param tokenVersion The user's token version.
+     */
+    public void observeTokenVersion(String userId, long tokenVersion) {
+        if (tokenVersion > 0) {
+            revoke(userId, tokenVersion, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Marks a user as deleted so that tokens issued to it are rejected.
+     *
+     * @param userId The id of the deleted user.
+     */
+    public void markDeleted(String userId) {
+        revoke(userId, DELETED, System.currentTimeMillis());
+    }
+
+    /**
+     * Reloads the token versions of users that revoked tokens within the last token lifetime
+     * and the tombstones of deleted users, so that revocations and deletions made on other
+     * nodes are picked up. Versions bumped without a revocation time, e.g. by hand in the
+     * database, are treated as revoked now.
+     */
+    @Scheduled(fixedDelayString = "${manjot.app.revocationRefreshMs:30000}")
+    public void refresh() {
+        if (!claimsOnly) {
+            return;
+        }
+        ensureTombstoneIndex();
+        try {
+            long now = System.currentTimeMillis();
+            Query query = Query.query(new Criteria().orOperator(
+                    Criteria.where("tokensRevokedAt").gt(new Date(now - jwtExpirationMs)),
+                    Criteria.where("tokenVersion").gt(0).and("tokensRevokedAt").exists(false)));
+            query.fields().include("username").include("tokenVersion").include("tokensRevokedAt");
+            for (User user : mongoTemplate.find(query, User.class)) {
+                long at = user.getTokensRevokedAt() != null ? user.getTokensRevokedAt().toEpochMilli() : now;
+                if (revoke(user.getId(), user.getTokenVersion(), at)) {
+                    principalCache.evict(user.getUsername());
+                }
+            }
+            for (Document tombstone : mongoTemplate.findAll(Document.class, REVOKED_USERS)) {
+                Date at = tombstone.getDate("at");
+                revoke(tombstone.get("_id").toString(), DELETED, at != null ? at.getTime() : now);
+            }
+        } catch (Exception e) {
+            logger.error("Cannot refresh token revocations: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Merges a revocation into the state.
+     *
+     * @return true if it raised the user's token version.
+     */
+    private boolean revoke(String userId, long tokenVersion, long at) {
+        Revocation revocation = new Revocation(tokenVersion, at);
+        return revocations.asMap().merge(userId, revocation, Revocation::latest) == revocation;
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<User> event) {
+        Document source = event.getSource();
+        Object id = source.get("_id");
+        if (id != null && !(id instanceof Document)) {
+            markDeleted(id.toString());
+            if (claimsOnly) {
+                writeTombstone(id.toString());
+            }
+        } else {
+            logger.warn("Cannot resolve deleted user id from {}", source.toJson());
+        }
+    }
+
+    private void writeTombstone(String userId) {
+        try {
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(userId)),
+                    Update.update("at", new Date()), REVOKED_USERS);
+        } catch (Exception e) {
+            logger.error("Cannot record deletion of user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * Tombstones expire once every token issued before the deletion has expired too.
+     */
+    private void ensureTombstoneIndex() {
+        if (tombstoneIndexReady) {
+            return;
+        }
+        try {
+            mongoTemplate.indexOps(REVOKED_USERS)
+                    .ensureIndex(new Index().on("at", Sort.Direction.ASC).expire(Duration.ofMillis(jwtExpirationMs)));
+            tombstoneIndexReady = true;
+        } catch (Exception e) {
+            logger.error("Cannot create index on {}: {}", REVOKED_USERS, e.getMessage());
+        }
+    }
+
+    /**
+     * Tokens below the given version are revoked; the version of a deleted user revokes every
+     * token. {@code at} is when the version was reached, in epoch milliseconds.
+     */
+    private record Revocation(long tokenVersion, long at) {
+        // keeps the earlier time for an equal version, so a refresh never extends an entry
+        Revocation latest(Revocation other) {
+            return other.tokenVersion > tokenVersion ? other : this;
+        }
+    }
+
+    /**
+     * Expires each revocation once every token issued before it has expired.
+     */
+    private class ExpireWithRevokedTokens implements Expiry<String, Revocation> {
+        @Override
+        public long expireAfterCreate(String userId, Revocation revocation, long currentTime) {
+            long remainingMs = revocation.at() + jwtExpirationMs - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMs, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String userId, Revocation revocation, long currentTime, long currentDuration) {
+            return expireAfterCreate(userId, revocation, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String userId, Revocation revocation, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
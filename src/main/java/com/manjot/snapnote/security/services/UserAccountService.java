@@ -0,0 +1,77 @@
+package com.manjot.snapnote.security.services;
+
+import com.manjot.snapnote.exception.ResourceNotFoundException;
+import com.manjot.snapnote.model.Role;
+import com.manjot.snapnote.model.User;
+import com.manjot.snapnote.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Set;
+
+import static com.manjot.snapnote.exception.ErrorMessages.INVALID_USER;
+
+/**
+ * Changes to a user account that must revoke the tokens already issued to it.
+ * Every change increments the user's {@code tokenVersion}, records the new version in the
+ * {@link TokenRevocationRegistry} and evicts the cached principal, so that the next login
+ * issues tokens carrying the new version and roles. Other nodes learn about the change from
+ * the saved user document.
+ */
+@Service
+public class UserAccountService {
+    private final UserRepository userRepository;
+
+    private final TokenRevocationRegistry revocationRegistry;
+
+    private final PrincipalCacheEvictionListener principalCache;
+
+    @Autowired
+    public UserAccountService(UserRepository userRepository,
+                              TokenRevocationRegistry revocationRegistry,
+                              PrincipalCacheEvictionListener principalCache) {
+        this.userRepository = userRepository;
+        this.revocationRegistry = revocationRegistry;
+        this.principalCache = principalCache;
+    }
+
+    /**
+     * Revokes every token issued to a user so far.
+     *
+     * @param username The user whose tokens are revoked.
+     * @return The updated user.
+     * @throws ResourceNotFoundException if the user does not exist.
+     */
+    public User revokeTokens(String username) {
+        return revokeTokens(findUser(username));
+    }
+
+    /**
+     * Replaces the roles of a user and revokes its tokens, which still carry the old roles.
+     *
+     * @param username The user whose roles change.
+     * @param roles    The new roles.
+     * @return The updated user.
+     * @throws ResourceNotFoundException if the user does not exist.
+     */
+    public User updateRoles(String username, Set<Role> roles) {
+        User user = findUser(username);
+        user.setRoles(roles);
+        return revokeTokens(user);
+    }
+
+    private User revokeTokens(User user) {
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        user.setTokensRevokedAt(Instant.now());
+        User saved = userRepository.save(user);
+        revocationRegistry.observeTokenVersion(saved.getId(), saved.getTokenVersion());
+        principalCache.evict(saved.getUsername());
+        return saved;
+    }
+
+    private User findUser(String username) {
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException(INVALID_USER));
+    }
+}
@@ -3,19 +3,27 @@ package com.manjot.snapnote.security.services;
 import com.manjot.snapnote.model.User;
 import com.manjot.snapnote.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import static com.manjot.snapnote.configuration.CacheConfig.PRINCIPAL_CACHE;
+
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
     @Autowired
     UserRepository userRepository;
 
+    /**
+     * Loads the principal for the given username. Results are cached in the principal cache
+     * and evicted by {@link PrincipalCacheEvictionListener} when the user or roles change.
+     */
     @Override
     @Transactional
+    @Cacheable(cacheNames = PRINCIPAL_CACHE, key = "#username")
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + username));
@@ -23,4 +31,4 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         return UserDetailsImpl.build(user);
     }
 
-}
\ No newline at end of file
+}
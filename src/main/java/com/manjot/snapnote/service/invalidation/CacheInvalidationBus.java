@@ -0,0 +1,441 @@
+package com.manjot.snapnote.service.invalidation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.manjot.snapnote.configuration.InvalidationProperties;
+import com.manjot.snapnote.configuration.InvalidationProperties.Mode;
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.model.User;
+import com.manjot.snapnote.repository.NoteRepository;
+import com.manjot.snapnote.service.note.NoteChangedEvent;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.ChangeStreamPreAndPostImagesOptions;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import com.mongodb.client.model.changestream.OperationType;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carries note and user changes between nodes so each node can evict what its local caches
+ * hold for them.
+ * <p>
+ * In {@link Mode#CHANGE_STREAM} mode a background thread tails one change stream on the
+ * notes, note shares and users collections and resumes from the last seen token after
+ * errors. This needs a replica set (a single-node one is enough); against a standalone
+ * server the bus falls back to polling. Pre-images are turned on for notes and note shares
+ * so that delete events name the owner of a Note and the grantee of a share, and events for
+ * this node's own note writes are skipped. Share events are applied even when this node made
+ * the share, which only repeats an eviction.
+ * <p>
+ * In {@link Mode#POLLING} mode every node appends its own note and user writes to a small
+ * log collection, whose entries expire after the retention period, and periodically reads
+ * the entries written by other nodes. Each poll reaches back by the configured overlap to
+ * tolerate clock skew between nodes; entries seen twice are skipped.
+ */
+@Component
+public class CacheInvalidationBus extends AbstractMongoEventListener<User> {
+    static final String NOTES = "notes";
+
+    static final String NOTE_SHARES = "note_shares";
+
+    static final String USERS = "users";
+
+    static final String KIND_NOTE = "note";
+
+    static final String KIND_USER = "user";
+
+    // "The $changeStream stage is only supported on replica sets"
+    private static final int CHANGE_STREAMS_UNSUPPORTED = 40573;
+
+    // the resume token is no longer in the oplog
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    private static final int NAMESPACE_NOT_FOUND = 26;
+
+    // version recorded for a Note this node deleted
+    private static final long DELETED = -1;
+
+    // how long this node's own writes are remembered to recognise their change events
+    private static final Duration LOCAL_WRITE_TTL = Duration.ofMinutes(1);
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private final InvalidationProperties properties;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final NoteRepository noteRepository;
+
+    private final LocalCacheInvalidator invalidator;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Cache<Object, Boolean> seenEntries;
+
+    private final Cache<String, Long> localWrites;
+
+    private ScheduledExecutorService executor;
+
+    private volatile boolean running;
+
+    private volatile boolean polling;
+
+    private BsonDocument resumeToken;
+
+    private Instant lastPoll;
+
+    @Autowired
+    public CacheInvalidationBus(InvalidationProperties properties,
+                                MongoTemplate mongoTemplate,
+                                NoteRepository noteRepository,
+                                LocalCacheInvalidator invalidator) {
+        this.properties = properties;
+        this.mongoTemplate = mongoTemplate;
+        this.noteRepository = noteRepository;
+        this.invalidator = invalidator;
+        this.seenEntries = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getPollOverlap().plus(properties.getPollInterval()).multipliedBy(2))
+                .build();
+        this.localWrites = Caffeine.newBuilder()
+                .expireAfterWrite(LOCAL_WRITE_TTL)
+                .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (properties.getMode() == Mode.NONE) {
+            return;
+        }
+        running = true;
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-invalidation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (properties.getMode() == Mode.CHANGE_STREAM) {
+            executor.execute(this::watch);
+        } else {
+            executor.execute(this::startPolling);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Appends local note writes to the invalidation log in polling mode. In change stream mode
+     * it remembers them instead, so that their own change events can be skipped.
+     */
+    @EventListener
+    public void onNoteChanged(NoteChangedEvent event) {
+        if (event.remote()) {
+            return;
+        }
+        if (polling) {
+            append(KIND_NOTE, event.type().name(), event.noteId(), event.userName(), null);
+        } else if (properties.getMode() == Mode.CHANGE_STREAM) {
+            if (event.type() == NoteChangedEvent.Type.DELETED) {
+                localWrites.put(event.noteId(), DELETED);
+            } else if (event.note().getVersion() != null) {
+                localWrites.put(event.noteId(), event.note().getVersion());
+            }
+        }
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<User> event) {
+        if (polling) {
+            User user = event.getSource();
+            append(KIND_USER, NoteChangedEvent.Type.SAVED.name(), user.getId(), user.getUsername(), user.getTokenVersion());
+        }
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<User> event) {
+        Object id = event.getSource().get("_id");
+        if (polling && id != null && !(id instanceof Document)) {
+            append(KIND_USER, NoteChangedEvent.Type.DELETED.name(), id.toString(), null, null);
+        }
+    }
+
+    private void watch() {
+        enablePreImages();
+        while (running) {
+            try {
+                ChangeStreamIterable<Document> stream = mongoTemplate.getDb()
+                        .watch(List.of(Aggregates.match(Filters.in("ns.coll", NOTES, NOTE_SHARES, USERS))))
+                        .fullDocument(FullDocument.UPDATE_LOOKUP)
+                        .fullDocumentBeforeChange(FullDocumentBeforeChange.WHEN_AVAILABLE)
+                        .maxAwaitTime(1, TimeUnit.SECONDS);
+                if (resumeToken != null) {
+                    stream = stream.resumeAfter(resumeToken);
+                }
+                try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+                    logger.info("Watching {}, {} and {} for cache invalidation", NOTES, NOTE_SHARES, USERS);
+                    while (running) {
+                        ChangeStreamDocument<Document> change = cursor.tryNext();
+                        if (change != null) {
+                            apply(change);
+                        }
+                        if (cursor.getResumeToken() != null) {
+                            resumeToken = cursor.getResumeToken();
+                        }
+                    }
+                }
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() == CHANGE_STREAMS_UNSUPPORTED) {
+                    logger.warn("Change streams need a replica set; polling {} instead", properties.getCollection());
+                    startPolling();
+                    return;
+                }
+                if (e.getErrorCode() == CHANGE_STREAM_HISTORY_LOST) {
+                    logger.warn("Change stream history lost; clearing local caches");
+                    resumeToken = null;
+                    invalidator.invalidateAll();
+                    continue;
+                }
+                backOff(e);
+            } catch (Exception e) {
+                backOff(e);
+            }
+        }
+    }
+
+    /**
+     * Turns on pre-images for the notes and note shares collections so that delete events
+     * carry the owner of a deleted Note and the grantee of a deleted share; without them a
+     * delete from another node has to be applied to every user. Needs MongoDB 6.0 or later.
+     */
+    void enablePreImages() {
+        enablePreImages(NOTES);
+        enablePreImages(NOTE_SHARES);
+    }
+
+    private void enablePreImages(String collection) {
+        Document preImages = new Document("enabled", true);
+        try {
+            try {
+                mongoTemplate.getDb().runCommand(new Document("collMod", collection).append("changeStreamPreAndPostImages", preImages));
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() != NAMESPACE_NOT_FOUND) {
+                    throw e;
+                }
+                mongoTemplate.getDb().createCollection(collection, new CreateCollectionOptions()
+                        .changeStreamPreAndPostImagesOptions(new ChangeStreamPreAndPostImagesOptions(true)));
+            }
+        } catch (Exception e) {
+            logger.warn("Cannot enable change stream pre-images on {}; deletes from other nodes will be applied to every user: {}",
+                    collection, e.getMessage());
+        }
+    }
+
+    private void backOff(Exception e) {
+        if (!running) {
+            return;
+        }
+        logger.error("Cache invalidation stream failed, retrying: {}", e.getMessage());
+        try {
+            Thread.sleep(properties.getPollInterval().toMillis());
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private void apply(ChangeStreamDocument<Document> change) {
+        String collection = change.getNamespace() == null ? null : change.getNamespace().getCollectionName();
+        applyChange(collection, change.getOperationType(), change.getDocumentKey(),
+                change.getFullDocument(), change.getFullDocumentBeforeChange());
+    }
+
+    /**
+     * Maps one change stream event onto the local caches. Events for note writes made by this
+     * node are skipped, since the write already updated the local caches: a delete of a Note
+     * this node deleted, or a write whose looked-up document is still the version it wrote.
+     *
+     * @param collection  The collection changed, or null for database-wide events.
+     * @param operation   The kind of change.
+     * @param documentKey The _id of the changed document.
+     * @param document    The document after the change, if it still exists.
+     * @param before      The document before the change, if pre-images are enabled.
+     */
+    void applyChange(String collection, OperationType operation, BsonDocument documentKey,
+                     Document document, Document before) {
+        switch (operation) {
+            case INSERT, UPDATE, REPLACE -> {
+                String id = idOf(documentKey);
+                if (NOTES.equals(collection)) {
+                    Long version = document == null ? Long.valueOf(DELETED) : versionOf(document);
+                    if (isLocalWrite(id, version)) {
+                        return;
+                    }
+                    if (document != null) {
+                        invalidator.noteSaved(mongoTemplate.getConverter().read(Note.class, document));
+                    } else {
+                        // deleted again before the lookup
+                        invalidator.noteDeleted(null, id);
+                    }
+                } else if (NOTE_SHARES.equals(collection)) {
+                    // a share deleted before the lookup is handled by its delete event
+                    if (document != null) {
+                        invalidator.noteShared(document.getString("grantee"), document.getString("noteId"));
+                    }
+                } else if (USERS.equals(collection)) {
+                    invalidator.userChanged(id,
+                            document == null ? null : document.getString("username"),
+                            document == null ? 0 : tokenVersionOf(document));
+                }
+            }
+            case DELETE -> {
+                String id = idOf(documentKey);
+                if (NOTES.equals(collection)) {
+                    if (isLocalWrite(id, DELETED)) {
+                        return;
+                    }
+                    invalidator.noteDeleted(before == null ? null : before.getString("userName"), id);
+                } else if (NOTE_SHARES.equals(collection)) {
+                    if (before != null) {
+                        invalidator.noteUnshared(before.getString("grantee"), before.getString("noteId"));
+                    } else {
+                        // without a pre-image the grantee is unknown
+                        invalidator.invalidateAll();
+                    }
+                } else if (USERS.equals(collection)) {
+                    invalidator.userDeleted(id);
+                }
+            }
+            case DROP, RENAME, DROP_DATABASE, INVALIDATE -> invalidator.invalidateAll();
+            default -> {
+            }
+        }
+    }
+
+    private void startPolling() {
+        try {
+            mongoTemplate.indexOps(properties.getCollection())
+                    .ensureIndex(new Index().on("at", Sort.Direction.ASC).expire(properties.getRetention()));
+        } catch (Exception e) {
+            logger.error("Cannot create index on {}: {}", properties.getCollection(), e.getMessage());
+        }
+        lastPoll = Instant.now();
+        polling = true;
+        long interval = properties.getPollInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    void poll() {
+        try {
+            Instant now = Instant.now();
+            Date since = Date.from(lastPoll.minus(properties.getPollOverlap()));
+            MongoCollection<Document> log = mongoTemplate.getCollection(properties.getCollection());
+            for (Document entry : log.find(Filters.and(Filters.gte("at", since), Filters.ne("node", nodeId)))
+                    .sort(Sorts.ascending("at"))) {
+                if (seenEntries.asMap().putIfAbsent(entry.get("_id"), Boolean.TRUE) == null) {
+                    applyLogEntry(entry);
+                }
+            }
+            lastPoll = now;
+        } catch (Exception e) {
+            logger.error("Cannot poll {}: {}", properties.getCollection(), e.getMessage());
+        }
+    }
+
+    void applyLogEntry(Document entry) {
+        String id = entry.getString("id");
+        String userName = entry.getString("userName");
+        boolean deleted = NoteChangedEvent.Type.DELETED.name().equals(entry.getString("type"));
+        if (KIND_NOTE.equals(entry.getString("kind"))) {
+            if (deleted) {
+                invalidator.noteDeleted(userName, id);
+            } else {
+                noteRepository.findById(id).ifPresentOrElse(invalidator::noteSaved,
+                        () -> invalidator.noteDeleted(userName, id));
+            }
+        } else if (KIND_USER.equals(entry.getString("kind"))) {
+            if (deleted) {
+                invalidator.userDeleted(id);
+            } else {
+                invalidator.userChanged(id, userName, tokenVersionOf(entry));
+            }
+        }
+    }
+
+    private void append(String kind, String type, String id, String userName, Long tokenVersion) {
+        try {
+            mongoTemplate.getCollection(properties.getCollection()).insertOne(new Document("node", nodeId)
+                    .append("at", new Date())
+                    .append("kind", kind)
+                    .append("type", type)
+                    .append("id", id)
+                    .append("userName", userName)
+                    .append("tokenVersion", tokenVersion));
+        } catch (Exception e) {
+            logger.error("Cannot append to {}: {}", properties.getCollection(), e.getMessage());
+        }
+    }
+
+    private boolean isLocalWrite(String noteId, Long version) {
+        return noteId != null && version != null && version.equals(localWrites.getIfPresent(noteId));
+    }
+
+    private static Long versionOf(Document document) {
+        Object version = document.get("version");
+        return version instanceof Number number ? number.longValue() : null;
+    }
+
+    private static long tokenVersionOf(Document document) {
+        Object version = document.get("tokenVersion");
+        return version instanceof Number number ? number.longValue() : 0;
+    }
+
+    private static String idOf(BsonDocument documentKey) {
+        if (documentKey == null) {
+            return null;
+        }
+        BsonValue id = documentKey.get("_id");
+        if (id == null) {
+            return null;
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+}
@@ -0,0 +1,132 @@
+package com.manjot.snapnote.service.invalidation;
+
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.repository.NoteRepository;
+import com.manjot.snapnote.repository.NoteShareRepository;
+import com.manjot.snapnote.security.services.PrincipalCacheEvictionListener;
+import com.manjot.snapnote.security.services.TokenRevocationRegistry;
+import com.manjot.snapnote.service.note.NoteChangedEvent;
+import com.manjot.snapnote.service.note.OffHeapNoteCache;
+import com.manjot.snapnote.service.search.LabelBitmapIndex;
+import com.manjot.snapnote.service.search.NoteSearchCache;
+import com.manjot.snapnote.service.search.NoteSearchIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies changes made on other nodes to this node's local caches.
+ * Note changes are republished as remote {@link NoteChangedEvent}s so that every note cache
+ * and index reacts exactly as it does to local writes, including the events for the users a
+ * Note is shared with, which are looked up here or come from the share changes themselves;
+ * user changes evict the cached principal and update the token revocation state.
+ */
+@Component
+public class LocalCacheInvalidator {
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final PrincipalCacheEvictionListener principalCache;
+
+    private final TokenRevocationRegistry revocationRegistry;
+
+    private final OffHeapNoteCache noteCache;
+
+    private final NoteSearchCache searchCache;
+
+    private final NoteSearchIndex searchIndex;
+
+    private final LabelBitmapIndex labelIndex;
+
+    private final NoteRepository noteRepository;
+
+    private final NoteShareRepository noteShareRepository;
+
+    @Autowired
+    public LocalCacheInvalidator(ApplicationEventPublisher eventPublisher,
+                                 PrincipalCacheEvictionListener principalCache,
+                                 TokenRevocationRegistry revocationRegistry,
+                                 OffHeapNoteCache noteCache,
+                                 NoteSearchCache searchCache,
+                                 NoteSearchIndex searchIndex,
+                                 LabelBitmapIndex labelIndex,
+                                 NoteRepository noteRepository,
+                                 NoteShareRepository noteShareRepository) {
+        this.eventPublisher = eventPublisher;
+        this.principalCache = principalCache;
+        this.revocationRegistry = revocationRegistry;
+        this.noteCache = noteCache;
+        this.searchCache = searchCache;
+        this.searchIndex = searchIndex;
+        this.labelIndex = labelIndex;
+        this.noteRepository = noteRepository;
+        this.noteShareRepository = noteShareRepository;
+    }
+
+    public void noteSaved(Note note) {
+        eventPublisher.publishEvent(NoteChangedEvent.remoteSaved(note));
+        noteShareRepository.findByNoteId(note.getId())
+                .forEach(share -> eventPublisher.publishEvent(NoteChangedEvent.remoteSavedFor(share.getGrantee(), note)));
+    }
+
+    /**
+     * Grantees are only reached here while the Note's shares still exist. The writer removes
+     * them right after the Note, so in change stream mode grantees are reached by
+     * {@link #noteUnshared} for each removed share, and in polling mode by the log entries the
+     * writer appends for each of them.
+     *
+     * @param userName The owner of the deleted Note, or null if unknown.
+     * @param noteId   The ID of the deleted Note.
+     */
+    public void noteDeleted(String userName, String noteId) {
+        eventPublisher.publishEvent(NoteChangedEvent.remoteDeleted(userName, noteId));
+        noteShareRepository.findByNoteId(noteId)
+                .forEach(share -> eventPublisher.publishEvent(NoteChangedEvent.remoteDeleted(share.getGrantee(), noteId)));
+    }
+
+    /**
+     * A share was created or changed on another node.
+     *
+     * @param grantee The user the Note is shared with.
+     * @param noteId  The ID of the shared Note.
+     */
+    public void noteShared(String grantee, String noteId) {
+        noteRepository.findById(noteId).ifPresentOrElse(
+                note -> eventPublisher.publishEvent(NoteChangedEvent.remoteSavedFor(grantee, note)),
+                () -> noteUnshared(grantee, noteId));
+    }
+
+    /**
+     * A share was removed on another node, on its own or along with its Note.
+     *
+     * @param grantee The user the Note was shared with.
+     * @param noteId  The ID of the Note.
+     */
+    public void noteUnshared(String grantee, String noteId) {
+        eventPublisher.publishEvent(NoteChangedEvent.remoteDeleted(grantee, noteId));
+    }
+
+    public void userChanged(String userId, String username, long tokenVersion) {
+        revocationRegistry.observeTokenVersion(userId, tokenVersion);
+        if (username != null) {
+            principalCache.evict(username);
+        } else {
+            principalCache.evictAll();
+        }
+    }
+
+    public void userDeleted(String userId) {
+        revocationRegistry.markDeleted(userId);
+        principalCache.evictAll();
+    }
+
+    /**
+     * Empties every local cache, for when changes may have been missed altogether.
+     */
+    public void invalidateAll() {
+        noteCache.invalidateAll();
+        searchCache.invalidateAll();
+        searchIndex.invalidateAll();
+        labelIndex.invalidateAll();
+        principalCache.evictAll();
+    }
+}
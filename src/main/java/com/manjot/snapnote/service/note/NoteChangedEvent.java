@@ -0,0 +1,52 @@
+package com.manjot.snapnote.service.note;
+
+import com.manjot.snapnote.model.Note;
+
+/**
+ * Published by {@link NoteServiceImpl} after a Note has been written, so that in-memory
+ * search structures and caches can follow the change without querying the database.
+ * When cross-node invalidation is enabled, changes made on other nodes are republished
+ * locally with {@code remote} set.
+ *
+ * A change to a shared Note is published once for the owner and once for each grantee, so
+ * listeners keeping per-user state only need to look at {@code userName}.
+ *
+ * @param type     Whether the Note was saved (created, updated or shared with the user) or deleted.
+ * @param userName The user whose view of the Note changed, its owner or a grantee; null for a remote
+ *                 delete whose owner could not be determined, in which case listeners must assume
+ *                 any user may be affected.
+ * @param noteId   The ID of the Note.
+ * @param note     The Note as saved, or null when it was deleted.
+ * @param remote   Whether the change was made on another node.
+ */
+public record NoteChangedEvent(Type type, String userName, String noteId, Note note, boolean remote) {
+
+    public enum Type {
+        SAVED,
+        DELETED
+    }
+
+    public static NoteChangedEvent saved(Note note) {
+        return new NoteChangedEvent(Type.SAVED, note.getUserName(), note.getId(), note, false);
+    }
+
+    public static NoteChangedEvent savedFor(String userName, Note note) {
+        return new NoteChangedEvent(Type.SAVED, userName, note.getId(), note, false);
+    }
+
+    public static NoteChangedEvent deleted(String userName, String noteId) {
+        return new NoteChangedEvent(Type.DELETED, userName, noteId, null, false);
+    }
+
+    public static NoteChangedEvent remoteSaved(Note note) {
+        return new NoteChangedEvent(Type.SAVED, note.getUserName(), note.getId(), note, true);
+    }
+
+    public static NoteChangedEvent remoteSavedFor(String userName, Note note) {
+        return new NoteChangedEvent(Type.SAVED, userName, note.getId(), note, true);
+    }
+
+    public static NoteChangedEvent remoteDeleted(String userName, String noteId) {
+        return new NoteChangedEvent(Type.DELETED, userName, noteId, null, true);
+    }
+}
@@ -0,0 +1,46 @@
+package com.manjot.snapnote.service.note;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token for keyset pagination: the (createdAt, id) of the last note
+ * of a page, Base64url encoded. Notes stored without a creation time sort after all others,
+ * and a cursor positioned among them has a null createdAt.
+ */
+public record NoteCursor(LocalDateTime createdAt, String id) {
+    private static final char SEPARATOR = '|';
+
+    /**
+     * Encodes the cursor into an opaque token.
+     *
+     * @return The continuation token.
+     */
+    public String encode() {
+        String raw = (createdAt == null ? "" : createdAt.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a continuation token.
+     *
+     * @param token The token returned with a previous page.
+     * @return The decoded cursor.
+     * @throws IllegalArgumentException if the token is malformed.
+     */
+    public static NoteCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0 || separator == raw.length() - 1) {
+                throw new IllegalArgumentException("Invalid page cursor");
+            }
+            LocalDateTime createdAt = separator == 0 ? null : LocalDateTime.parse(raw.substring(0, separator));
+            return new NoteCursor(createdAt, raw.substring(separator + 1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid page cursor", e);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.manjot.snapnote.service.note;
+
+/**
+ * A Note already serialized in its API form, as held by the note cache.
+ *
+ * @param noteId  The ID of the Note.
+ * @param version The version of the Note the JSON was written from.
+ * @param json    The UTF-8 JSON of the Note's {@code NoteDTO}.
+ */
+public record NoteJson(String noteId, long version, byte[] json) {
+}
@@ -0,0 +1,11 @@
+package com.manjot.snapnote.service.note;
+
+import com.manjot.snapnote.model.Note;
+
+import java.util.List;
+
+/**
+ * A page of notes and the continuation token for the next page (null on the last page).
+ */
+public record NotePage(List<Note> notes, String nextCursor) {
+}
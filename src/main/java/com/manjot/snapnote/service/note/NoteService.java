@@ -1,9 +1,16 @@
 package com.manjot.snapnote.service.note;
 
+import com.manjot.snapnote.model.BatchOperation;
+import com.manjot.snapnote.model.BatchResult;
+import com.manjot.snapnote.model.LabelCount;
 import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.model.ShareResult;
+import com.manjot.snapnote.model.enums.ESharePermission;
 import com.manjot.snapnote.model.enums.QueryType;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Service interface for handling Note-related operations.
@@ -13,12 +20,28 @@ public interface NoteService {
 
     public Note getNoteById(String noteId, String userName);
 
-    public List<Note> getAllNotes(String userName);
+    public Optional<NoteJson> getCachedNoteJson(String noteId, String userName);
+
+    public long getNoteVersion(String noteId, String userName);
+
+    public long getNotesGeneration(String userName);
+
+    public NotePage getNotesPage(String userName, String cursor, Integer size);
+
+    public Stream<Note> streamAllNotes(String userName);
+
+    public List<LabelCount> getLabelCounts(String userName);
 
     public Note updateNote(String id, String username, Note updatedNote);
 
+    public Note patchNote(String id, String username, Note patch);
+
     public void deleteNoteById(String id, String username);
-    public void shareNoteWithUser(String noteId, String senderUsername, String recipientUsername);
+    public void shareNoteWithUser(String noteId, String senderUsername, String recipientUsername, ESharePermission permission);
+
+    public List<ShareResult> shareNoteWithUsers(String noteId, String senderUsername, List<String> recipientUsernames, ESharePermission permission);
+
+    public List<BatchResult> applyBatch(String userName, List<BatchOperation> operations, boolean ordered);
 
     public List<Note> searchNotes(String query, QueryType queryType, String userName);
 }
@@ -1,21 +1,56 @@
 package com.manjot.snapnote.service.note;
 
+import com.manjot.snapnote.exception.NoteConflictException;
 import com.manjot.snapnote.exception.ResourceNotFoundException;
+import com.manjot.snapnote.exception.ServiceUnavailableException;
 import com.manjot.snapnote.exception.SnapNoteServiceException;
+import com.manjot.snapnote.model.BatchOperation;
+import com.manjot.snapnote.model.BatchResult;
+import com.manjot.snapnote.model.BulkWriteOutcome;
+import com.manjot.snapnote.model.LabelCount;
 import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.model.NoteShare;
+import com.manjot.snapnote.model.NotesGeneration;
+import com.manjot.snapnote.model.ShareResult;
 import com.manjot.snapnote.model.User;
+import com.manjot.snapnote.model.enums.EBatchAction;
+import com.manjot.snapnote.model.enums.EBatchStatus;
+import com.manjot.snapnote.model.enums.ESharePermission;
+import com.manjot.snapnote.model.enums.EShareStatus;
 import com.manjot.snapnote.model.enums.QueryType;
 import com.manjot.snapnote.repository.NoteRepository;
+import com.manjot.snapnote.repository.NoteShareRepository;
+import com.manjot.snapnote.repository.NotesGenerationRepository;
 import com.manjot.snapnote.repository.UserRepository;
+import com.manjot.snapnote.service.search.NoteSearchCache;
 import com.manjot.snapnote.service.search.NoteSearchStrategy;
 import com.manjot.snapnote.service.search.NoteSearchStrategyFactory;
 import jakarta.validation.constraints.NotNull;
 import lombok.NonNull;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.manjot.snapnote.exception.ErrorMessages.*;
 
@@ -24,16 +59,58 @@ import static com.manjot.snapnote.exception.ErrorMessages.*;
  */
 @Service
 public class NoteServiceImpl implements NoteService {
+    private static final Logger logger = LoggerFactory.getLogger(NoteServiceImpl.class);
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    public static final int EXPORT_BATCH_SIZE = 200;
+
+    public static final int MAX_SHARE_RECIPIENTS = 500;
+
+    public static final int MAX_BATCH_OPERATIONS = 1000;
+
+    // keyset order of note pages: createdAt, then id, descending
+    private static final Comparator<Note> NEWEST_FIRST = Comparator
+            .comparing(Note::getCreatedAt, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparing(Note::getId, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .reversed();
+
     private final NoteRepository noteRepository;
 
     private final UserRepository userRepository;
 
+    private final NoteShareRepository noteShareRepository;
+
+    private final NotesGenerationRepository notesGenerationRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final NoteSearchCache searchCache;
+
+    private final OffHeapNoteCache noteCache;
+
+    private final Map<QueryType, NoteSearchStrategy> searchStrategies;
+
     @Autowired
     public NoteServiceImpl(NoteRepository noteRepository,
-                           UserRepository userRepository
+                           UserRepository userRepository,
+                           NoteShareRepository noteShareRepository,
+                           NotesGenerationRepository notesGenerationRepository,
+                           ApplicationEventPublisher eventPublisher,
+                           NoteSearchCache searchCache,
+                           OffHeapNoteCache noteCache,
+                           Map<QueryType, NoteSearchStrategy> searchStrategies
     ) {
         this.noteRepository = noteRepository;
         this.userRepository = userRepository;
+        this.noteShareRepository = noteShareRepository;
+        this.notesGenerationRepository = notesGenerationRepository;
+        this.eventPublisher = eventPublisher;
+        this.searchCache = searchCache;
+        this.noteCache = noteCache;
+        this.searchStrategies = searchStrategies;
     }
 
     /**
@@ -44,68 +121,217 @@ public class NoteServiceImpl implements NoteService {
      */
     @Override
     public Note createNote(@NonNull final Note note) {
-        return noteRepository.save(note);
+        // a new Note starts at the first version whatever the client sent
+        note.setVersion(null);
+        advanceGenerations(Set.of(note.getUserName()));
+        Note savedNote = noteRepository.save(note);
+        publish(List.of(NoteChangedEvent.saved(savedNote)));
+        return savedNote;
     }
 
     /**
-     * Retrieves a Note by its ID and the associated username.
+     * Retrieves a Note owned by or shared with the user, from the note cache when possible.
      *
      * @param noteId   The ID of the Note to retrieve.
      * @param userName The username associated with the Note.
      * @return The retrieved Note.
-     * @throws ResourceNotFoundException if the Note is not found.
+     * @throws ResourceNotFoundException if the Note is not found or not shared with the user.
      */
     @Override
     public Note getNoteById(@NonNull final String noteId,
                             @NonNull final String userName) {
-        return noteRepository.findByIdAndUserName(noteId, userName)
+        try {
+            return getOwnedNote(noteId, userName);
+        } catch (ResourceNotFoundException e) {
+            // not the owner: the user may still read it through a share
+            NoteShare share = noteShareRepository.findByNoteIdAndGrantee(noteId, userName)
+                    .orElseThrow(() -> e);
+            return getOwnedNote(noteId, share.getOwner());
+        }
+    }
+
+    private Note getOwnedNote(String noteId, String owner) {
+        Optional<Note> cachedNote = noteCache.get(noteId, owner);
+        if (cachedNote.isPresent()) {
+            return cachedNote.get();
+        }
+        long loadStamp = noteCache.stamp(noteId);
+        Note note = noteRepository.findByIdAndUserName(noteId, owner)
                 .orElseThrow(() -> new ResourceNotFoundException(INVALID_NOTE));
+        noteCache.put(note, loadStamp);
+        return note;
+    }
+
+    /**
+     * Returns the serialized Note from the note cache, if it is cached and owned by the user.
+     * Misses are not loaded; {@link #getNoteById} loads the Note and caches it.
+     *
+     * @param noteId   The ID of the Note.
+     * @param userName The username associated with the Note.
+     * @return The Note's JSON, or empty if it is not cached for the user.
+     */
+    @Override
+    public Optional<NoteJson> getCachedNoteJson(@NonNull final String noteId,
+                                                @NonNull final String userName) {
+        return noteCache.getJson(noteId, userName);
+    }
+
+    /**
+     * Returns the version of a Note owned by or shared with the user, without loading the
+     * Note from the database.
+     *
+     * @param noteId   The ID of the Note.
+     * @param userName The username associated with the Note.
+     * @return The Note's version.
+     * @throws ResourceNotFoundException if the Note is not found or not shared with the user.
+     */
+    @Override
+    public long getNoteVersion(@NonNull final String noteId,
+                               @NonNull final String userName) {
+        Optional<Long> version = noteCache.getVersion(noteId, userName);
+        if (version.isPresent()) {
+            return version.get();
+        }
+        version = noteRepository.findNoteVersion(noteId, userName);
+        if (version.isEmpty()) {
+            version = noteShareRepository.findByNoteIdAndGrantee(noteId, userName)
+                    .flatMap(share -> noteRepository.findNoteVersion(noteId, share.getOwner()));
+        }
+        return version.orElseThrow(() -> new ResourceNotFoundException(INVALID_NOTE));
     }
 
     /**
-     * Retrieves all Notes for a specific user.
+     * Returns the user's notes generation, which moves forward on every change to a Note
+     * the user owns or has been shared. Read it before the Notes it describes.
+     *
+     * @param userName The username.
+     * @return The generation, 0 if the user's Notes never changed since generations were introduced.
+     */
+    @Override
+    public long getNotesGeneration(@NonNull final String userName) {
+        return notesGenerationRepository.findById(userName)
+                .map(NotesGeneration::getGeneration)
+                .orElse(0L);
+    }
+
+    /**
+     * Retrieves one page of the Notes a user owns or has been shared, newest first, using
+     * keyset pagination on (createdAt, id) so the cost of a page does not depend on how many
+     * notes precede it. Owned and shared Notes are read from the same position and merged.
      *
      * @param userName The username for which to retrieve Notes.
-     * @return The list of Notes for the user.
-     * @throws ResourceNotFoundException if no Notes are found for the user.
+     * @param cursor   The continuation token from the previous page, or null for the first page.
+     * @param size     The requested page size, or null for {@link #DEFAULT_PAGE_SIZE}; capped at {@link #MAX_PAGE_SIZE}.
+     * @return The page of Notes and the token for the next page.
+     * @throws IllegalArgumentException if the cursor is malformed.
      */
     @Override
-    public List<Note> getAllNotes(@NonNull final String userName) {
+    public NotePage getNotesPage(@NonNull final String userName,
+                                 final String cursor,
+                                 final Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        NoteCursor position = cursor != null ? NoteCursor.decode(cursor) : null;
+
+        LocalDateTime createdAtBefore = position != null ? position.createdAt() : null;
+        String idBefore = position != null ? position.id() : null;
+        // fetch one extra note to learn whether another page follows
+        List<Note> notes = noteRepository.findPageByUserName(userName, createdAtBefore, idBefore, pageSize + 1);
+        List<Note> shared = noteRepository.findSharedPageWith(userName, createdAtBefore, idBefore, pageSize + 1);
+        if (!shared.isEmpty()) {
+            notes = new ArrayList<>(notes);
+            notes.addAll(shared);
+            notes.sort(NEWEST_FIRST);
+        }
+
+        String nextCursor = null;
+        if (notes.size() > pageSize) {
+            notes = notes.subList(0, pageSize);
+            Note last = notes.get(pageSize - 1);
+            nextCursor = new NoteCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new NotePage(notes, nextCursor);
+    }
+
+    /**
+     * Streams all Notes a user owns, followed by the Notes shared with them, straight from
+     * database cursors, without loading them into memory. The caller must close the stream.
+     *
+     * @param userName The username for which to stream Notes.
+     * @return A lazily populated stream of the user's own and shared Notes.
+     */
+    @Override
+    public Stream<Note> streamAllNotes(@NonNull final String userName) {
+        return Stream.concat(noteRepository.streamByUserName(userName, EXPORT_BATCH_SIZE),
+                noteRepository.streamSharedWith(userName, EXPORT_BATCH_SIZE));
+    }
 
-        return noteRepository.findByUserName(userName)
-                .orElseThrow(() -> new ResourceNotFoundException("No notes found for user: " + userName));
+    /**
+     * Counts the user's Notes per label.
+     *
+     * @param userName The username for which to count labels.
+     * @return The label counts, most used label first.
+     */
+    @Override
+    public List<LabelCount> getLabelCounts(@NonNull final String userName) {
+        return noteRepository.countLabelsByUserName(userName);
     }
 
     /**
-     * Updates an existing Note.
+     * Replaces the title, content and labels of a Note owned by the user or shared with them
+     * with write permission, in one atomic update.
      *
      * @param id           The ID of the Note to update.
      * @param username     The username associated with the Note.
-     * @param updatedNote  The updated Note details.
+     * @param updatedNote  The updated Note details; if it carries a version, the update only
+     *                     applies while the stored Note still has that version.
      * @return The updated Note.
      * @throws ResourceNotFoundException if the Note is not found.
+     * @throws NoteConflictException     if the Note has moved past the given version.
      */
     @Override
     public Note updateNote(@NonNull final String id,
                            @NonNull final String username,
                            @NonNull final Note updatedNote) {
-        Optional<Note> optionalNote = noteRepository.findByIdAndUserName(id, username);
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("title", updatedNote.getTitle());
+        fields.put("content", updatedNote.getContent());
+        fields.put("labelList", updatedNote.getLabelList());
+        return modifyNote(id, username, updatedNote.getVersion(), fields);
+    }
 
-        if (optionalNote.isPresent()) {
-            Note existingNote = optionalNote.get();
-            // Update fields of existingNote with fields from updatedNote
-            existingNote.setTitle(updatedNote.getTitle());
-            existingNote.setContent(updatedNote.getContent());
-            existingNote.setLabelList(updatedNote.getLabelList());
-            // Save the updated note
-            return noteRepository.save(existingNote);
-        } else {
-            throw new ResourceNotFoundException(INVALID_NOTE);
+    /**
+     * Sets only the fields present in the patch, in one atomic update. Fields left null are
+     * not touched.
+     *
+     * @param id       The ID of the Note to patch.
+     * @param username The username associated with the Note.
+     * @param patch    The changed fields; if it carries a version, the update only applies
+     *                 while the stored Note still has that version.
+     * @return The updated Note.
+     * @throws ResourceNotFoundException if the Note is not found.
+     * @throws NoteConflictException     if the Note has moved past the given version.
+     */
+    @Override
+    public Note patchNote(@NonNull final String id,
+                          @NonNull final String username,
+                          @NonNull final Note patch) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        if (patch.getTitle() != null) {
+            fields.put("title", patch.getTitle());
+        }
+        if (patch.getContent() != null) {
+            fields.put("content", patch.getContent());
         }
+        if (patch.getLabelList() != null) {
+            fields.put("labelList", patch.getLabelList());
+        }
+        return modifyNote(id, username, patch.getVersion(), fields);
     }
 
     /**
-     * Deletes a Note by its ID and the associated username.
+     * Deletes a Note by its ID and the associated username with a single filtered delete,
+     * along with its shares. The shares are read first so that the grantees' generations
+     * move forward before the Note goes.
      *
      * @param id       The ID of the Note to delete.
      * @param username The username associated with the Note.
@@ -114,31 +340,44 @@ public class NoteServiceImpl implements NoteService {
     @Override
     public void deleteNoteById(@NotNull final String id,
                                @NotNull final String username) {
-        Optional<Note> optionalNote = noteRepository.findByIdAndUserName(id, username);
-
-        if (optionalNote.isPresent()) {
-            Note note = optionalNote.get();
-
-            // Delete the note
-            noteRepository.deleteById(id);
-        } else {
+        List<NoteShare> shares = noteShareRepository.findByNoteId(id);
+        Set<String> userNames = new HashSet<>();
+        userNames.add(username);
+        shares.forEach(share -> userNames.add(share.getGrantee()));
+        advanceGenerations(userNames);
+        if (noteRepository.deleteByIdAndUserName(id, username) == 0) {
             throw new ResourceNotFoundException(INVALID_NOTE);
         }
+        // then the shares pointing at it
+        if (!shares.isEmpty()) {
+            noteShareRepository.deleteByNoteId(id);
+        }
+        List<NoteChangedEvent> events = new ArrayList<>();
+        events.add(NoteChangedEvent.deleted(username, id));
+        shares.forEach(share -> events.add(NoteChangedEvent.deleted(share.getGrantee(), id)));
+        publish(events);
     }
 
     /**
-     * Shares a Note with another user.
+     * Shares a Note with another user by recording an access entry; the Note is not copied.
+     * Sharing again with the same user only updates the permission.
      *
      * @param noteId             The ID of the Note to share.
      * @param senderUsername     The username of the sender.
      * @param recipientUsername  The username of the recipient.
+     * @param permission         What the recipient may do with the Note.
+     * @throws IllegalArgumentException  if the recipient is the sender.
      * @throws ResourceNotFoundException if the Note or User is not found.
      * @throws SnapNoteServiceException  if an error occurs during the sharing process.
      */
     @Override
     public void shareNoteWithUser(@NotNull final String noteId,
                                   @NotNull final String senderUsername,
-                                  @NotNull final String recipientUsername) {
+                                  @NotNull final String recipientUsername,
+                                  @NotNull final ESharePermission permission) {
+        if (recipientUsername.equals(senderUsername)) {
+            throw new IllegalArgumentException(SELF_SHARE);
+        }
         Optional<Note> optionalNote = noteRepository.findByIdAndUserName(noteId, senderUsername);
         Optional<User> optionalUser = userRepository.findByUsername(recipientUsername);
 
@@ -148,35 +387,352 @@ public class NoteServiceImpl implements NoteService {
         try {
             Note existingNote = optionalNote.get();
 
-            Note sharedNote = new Note();
-            sharedNote.setTitle(existingNote.getTitle());
-            sharedNote.setContent(existingNote.getContent());
-            sharedNote.setLabelList(existingNote.getLabelList());
-            sharedNote.setUserName(recipientUsername);
+            NoteShare share = noteShareRepository.findByNoteIdAndGrantee(noteId, recipientUsername)
+                    .orElseGet(() -> NoteShare.builder()
+                            .noteId(noteId)
+                            .owner(senderUsername)
+                            .grantee(recipientUsername)
+                            .build());
+            share.setPermission(permission);
 
-            noteRepository.save(sharedNote);
+            advanceGenerations(Set.of(recipientUsername));
+            noteShareRepository.save(share);
+            publish(List.of(NoteChangedEvent.savedFor(recipientUsername, existingNote)));
         } catch (Exception e) {
-            throw new SnapNoteServiceException("Error occurred during note search." + e);
+            throw new SnapNoteServiceException("Error occurred while sharing note." + e);
+        }
+    }
+
+    /**
+     * Shares a Note with many users at once. Recipients are resolved with one query and all
+     * access entries are written with one unordered bulk write, so the cost in round trips
+     * does not grow with the number of recipients.
+     *
+     * @param noteId             The ID of the Note to share.
+     * @param senderUsername     The username of the sender.
+     * @param recipientUsernames The usernames of the recipients; duplicates are ignored and the
+     *                           sender is reported as {@link EShareStatus#OWNER}.
+     * @param permission         What the recipients may do with the Note.
+     * @return One result per distinct recipient, in request order.
+     * @throws IllegalArgumentException  if there are no recipients or more than {@link #MAX_SHARE_RECIPIENTS}.
+     * @throws ResourceNotFoundException if the Note is not found.
+     * @throws SnapNoteServiceException  if the shares cannot be written.
+     */
+    @Override
+    public List<ShareResult> shareNoteWithUsers(@NotNull final String noteId,
+                                                @NotNull final String senderUsername,
+                                                @NotNull final List<String> recipientUsernames,
+                                                @NotNull final ESharePermission permission) {
+        List<String> recipients = recipientUsernames.stream().filter(Objects::nonNull).distinct().toList();
+        if (recipients.isEmpty() || recipients.size() > MAX_SHARE_RECIPIENTS) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_SHARE_RECIPIENTS + " recipients are required.");
+        }
+        Note note = noteRepository.findByIdAndUserName(noteId, senderUsername)
+                .orElseThrow(() -> new ResourceNotFoundException(INVALID_NOTE));
+
+        List<String> others = recipients.stream().filter(recipient -> !recipient.equals(senderUsername)).toList();
+        Set<String> existingUsers = others.isEmpty() ? Set.of() : userRepository.findUsernamesIn(others).stream()
+                .map(User::getUsername)
+                .collect(Collectors.toSet());
+        List<String> grantees = others.stream().filter(existingUsers::contains).toList();
+
+        Set<String> failed;
+        try {
+            advanceGenerations(grantees);
+            failed = noteShareRepository.upsertAll(noteId, senderUsername, grantees, permission);
+        } catch (Exception e) {
+            throw new SnapNoteServiceException("Error occurred while sharing note." + e);
+        }
+
+        List<ShareResult> results = new ArrayList<>(recipients.size());
+        List<NoteChangedEvent> events = new ArrayList<>();
+        for (String recipient : recipients) {
+            if (recipient.equals(senderUsername)) {
+                results.add(new ShareResult(recipient, EShareStatus.OWNER));
+            } else if (!existingUsers.contains(recipient)) {
+                results.add(new ShareResult(recipient, EShareStatus.USER_NOT_FOUND));
+            } else if (failed.contains(recipient)) {
+                results.add(new ShareResult(recipient, EShareStatus.FAILED));
+            } else {
+                results.add(new ShareResult(recipient, EShareStatus.SHARED));
+                events.add(NoteChangedEvent.savedFor(recipient, note));
+            }
+        }
+        publish(events);
+        return results;
+    }
+
+    /**
+     * Applies a mixed list of creates, updates and deletes of the user's Notes. The Notes
+     * referenced by updates and deletes are loaded with one query and all writes go to the
+     * database in one bulk write, so the cost in round trips does not grow with the batch.
+     * <p>
+     * Writes that are malformed or reference a Note the user does not own (or that an earlier
+     * write of the batch deletes) are not sent, and neither are updates carrying a version the
+     * Note is no longer at; an update without a version overwrites whatever is stored. An ordered batch stops at the first write
+     * that is rejected or fails, and reports the rest as not executed; an unordered batch
+     * attempts every write. Updates and deletes the bulk write finds matching no Note, because
+     * a concurrent request changed or removed it after it was loaded, are reported as such
+     * and publish nothing.
+     *
+     * @param userName   The owner of the Notes.
+     * @param operations The writes, in order.
+     * @param ordered    Whether to stop at the first rejected or failed write.
+     * @return One result per write, in request order.
+     * @throws IllegalArgumentException if there are no writes or more than {@link #MAX_BATCH_OPERATIONS}.
+     * @throws SnapNoteServiceException if the bulk write cannot be run.
+     */
+    @Override
+    public List<BatchResult> applyBatch(@NotNull final String userName,
+                                        @NotNull final List<BatchOperation> operations,
+                                        final boolean ordered) {
+        if (operations.isEmpty() || operations.size() > MAX_BATCH_OPERATIONS) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_BATCH_OPERATIONS + " operations are required.");
+        }
+        Set<String> referencedIds = operations.stream()
+                .filter(operation -> operation != null && operation.action() != EBatchAction.CREATE && operation.id() != null)
+                .map(BatchOperation::id)
+                .collect(Collectors.toSet());
+        Map<String, Note> existingNotes = referencedIds.isEmpty() ? Map.of()
+                : noteRepository.findByIdInAndUserName(referencedIds, userName).stream()
+                        .collect(Collectors.toMap(Note::getId, Function.identity()));
+
+        BatchResult[] results = new BatchResult[operations.size()];
+        List<BatchOperation> writes = new ArrayList<>();
+        List<Integer> writeIndexes = new ArrayList<>();
+        Set<String> deletedIds = new HashSet<>();
+        // the version each Note will be at once the accepted writes before it are applied
+        Map<String, Long> versions = new HashMap<>();
+        existingNotes.values().forEach(note -> versions.put(note.getId(), note.getVersion() == null ? 0L : note.getVersion()));
+        LocalDateTime now = LocalDateTime.now();
+        boolean stopped = false;
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperation operation = operations.get(i);
+            EBatchAction action = operation == null ? null : operation.action();
+            if (stopped) {
+                results[i] = new BatchResult(i, action, operation == null ? null : operation.id(), EBatchStatus.NOT_EXECUTED);
+                continue;
+            }
+            EBatchStatus rejection = null;
+            BatchOperation write = null;
+            if (action == null
+                    || (action != EBatchAction.CREATE && operation.id() == null)
+                    || (action != EBatchAction.DELETE && (operation.note() == null || operation.note().getTitle() == null))) {
+                rejection = EBatchStatus.INVALID;
+            } else if (action == EBatchAction.CREATE) {
+                Note note = operation.note();
+                note.setId(new ObjectId().toHexString());
+                note.setUserName(userName);
+                note.setCreatedAt(now);
+                note.setVersion(0L);
+                write = new BatchOperation(action, note.getId(), note);
+            } else if (!existingNotes.containsKey(operation.id()) || deletedIds.contains(operation.id())) {
+                rejection = EBatchStatus.NOT_FOUND;
+            } else if (action == EBatchAction.UPDATE && operation.note().getVersion() != null
+                    && !operation.note().getVersion().equals(versions.get(operation.id()))) {
+                rejection = EBatchStatus.CONFLICT;
+            } else {
+                if (action == EBatchAction.DELETE) {
+                    deletedIds.add(operation.id());
+                } else {
+                    versions.merge(operation.id(), 1L, Long::sum);
+                }
+                write = operation;
+            }
+
+            if (rejection != null) {
+                results[i] = new BatchResult(i, action, operation == null ? null : operation.id(), rejection);
+                stopped = ordered;
+            } else {
+                writes.add(write);
+                writeIndexes.add(i);
+            }
+        }
+
+        // the grantees of every Note the batch may update or delete
+        Set<String> sharedIds = writes.stream()
+                .filter(write -> write.action() != EBatchAction.CREATE)
+                .map(BatchOperation::id)
+                .collect(Collectors.toSet());
+        List<NoteShare> shares = sharedIds.isEmpty() ? List.of() : noteShareRepository.findByNoteIdIn(sharedIds);
+        Set<String> userNames = new HashSet<>();
+        userNames.add(userName);
+        shares.forEach(share -> userNames.add(share.getGrantee()));
+        advanceGenerations(userNames);
+
+        BulkWriteOutcome outcome;
+        try {
+            outcome = noteRepository.bulkWrite(userName, writes, ordered);
+        } catch (Exception e) {
+            throw new SnapNoteServiceException("Error occurred while applying note batch." + e);
+        }
+        Set<Integer> failed = outcome.failed();
+        // an ordered bulk write stops at its first failure
+        int firstFailure = failed.stream().min(Integer::compare).orElse(writes.size());
+
+        List<BatchOperation> applied = new ArrayList<>();
+        for (int w = 0; w < writes.size(); w++) {
+            BatchOperation write = writes.get(w);
+            int index = writeIndexes.get(w);
+            EBatchStatus status;
+            if (failed.contains(w)) {
+                status = EBatchStatus.FAILED;
+            } else if (ordered && w > firstFailure) {
+                status = EBatchStatus.NOT_EXECUTED;
+            } else if (outcome.notFound().contains(w)) {
+                status = EBatchStatus.NOT_FOUND;
+            } else if (outcome.conflicts().contains(w)) {
+                status = EBatchStatus.CONFLICT;
+            } else {
+                status = switch (write.action()) {
+                    case CREATE -> EBatchStatus.CREATED;
+                    case UPDATE -> EBatchStatus.UPDATED;
+                    case DELETE -> EBatchStatus.DELETED;
+                };
+                applied.add(write);
+            }
+            results[index] = new BatchResult(index, write.action(), write.id(), status);
         }
+        publishBatch(userName, applied, existingNotes, shares);
+        return List.of(results);
     }
 
     /**
-     * Searches for Notes based on a query and query type.
+     * Publishes the changes of an applied batch, removing the shares of deleted Notes and
+     * telling their grantees, and the grantees of updated Notes.
+     *
+     * @param shares The shares of the Notes the batch referenced, read before it was written.
+     */
+    private void publishBatch(String userName, List<BatchOperation> applied, Map<String, Note> existingNotes,
+                              List<NoteShare> shares) {
+        Map<String, Note> savedNotes = new LinkedHashMap<>();
+        Set<String> deletedIds = new HashSet<>();
+        for (BatchOperation write : applied) {
+            if (write.action() == EBatchAction.DELETE) {
+                savedNotes.remove(write.id());
+                deletedIds.add(write.id());
+            } else if (write.action() == EBatchAction.CREATE) {
+                savedNotes.put(write.id(), write.note());
+            } else {
+                Note note = savedNotes.getOrDefault(write.id(), existingNotes.get(write.id()));
+                note.setTitle(write.note().getTitle());
+                note.setContent(write.note().getContent());
+                note.setLabelList(write.note().getLabelList());
+                // the bulk write incremented the stored version
+                note.setVersion((note.getVersion() == null ? 0L : note.getVersion()) + 1);
+                savedNotes.put(write.id(), note);
+            }
+        }
+
+        if (!deletedIds.isEmpty()) {
+            noteShareRepository.deleteByNoteIdIn(deletedIds);
+        }
+
+        List<NoteChangedEvent> events = new ArrayList<>();
+        savedNotes.values().forEach(note -> events.add(NoteChangedEvent.saved(note)));
+        deletedIds.forEach(id -> events.add(NoteChangedEvent.deleted(userName, id)));
+        for (NoteShare share : shares) {
+            if (deletedIds.contains(share.getNoteId())) {
+                events.add(NoteChangedEvent.deleted(share.getGrantee(), share.getNoteId()));
+            } else if (savedNotes.containsKey(share.getNoteId())) {
+                events.add(NoteChangedEvent.savedFor(share.getGrantee(), savedNotes.get(share.getNoteId())));
+            }
+        }
+        publish(events);
+    }
+
+    /**
+     * Searches for Notes based on a query and query type, over the user's own Notes and those
+     * shared with them. Results are cached per user until one of these Notes changes.
      *
      * @param query     The search query.
      * @param queryType The type of query (e.g., CONTENT, LABEL).
      * @param userName  The username associated with the Notes.
      * @return The list of Notes matching the search criteria.
+     * @throws IllegalArgumentException if the query is malformed for the query type.
      * @throws SnapNoteServiceException if an error occurs during the search process.
      */
     public List<Note> searchNotes(@NotNull final String query,
                                   @NotNull final QueryType queryType,
                                   @NotNull final String userName) {
         try {
-            NoteSearchStrategy strategy = NoteSearchStrategyFactory.getStrategy(queryType);
-            return strategy.search(noteRepository, query, userName);
+            NoteSearchStrategy strategy = NoteSearchStrategyFactory.getStrategy(searchStrategies, queryType);
+            return searchCache.get(userName, queryType, query, () -> {
+                List<Note> notes = new ArrayList<>(strategy.search(noteRepository, query, userName));
+                notes.addAll(strategy.searchShared(noteRepository, query, userName));
+                return notes;
+            });
+        } catch (IllegalArgumentException | SnapNoteServiceException | ServiceUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             throw new SnapNoteServiceException("Error occurred during note search." + e);
         }
     }
+
+    /**
+     * Updates a Note the user owns or may write through a share. The Note's shares are read
+     * first: they name the owner when the user writes through a share, and the grantees whose
+     * generations move forward before the write. A failed conditional update is told apart
+     * from a missing Note only once it has failed.
+     */
+    private Note modifyNote(String id, String username, Long expectedVersion, Map<String, Object> fields) {
+        List<NoteShare> shares = noteShareRepository.findByNoteId(id);
+        String owner = shares.stream()
+                .filter(share -> share.getGrantee().equals(username) && share.getPermission() == ESharePermission.WRITE)
+                .map(NoteShare::getOwner)
+                .findFirst()
+                .orElse(username);
+        Set<String> userNames = new HashSet<>();
+        userNames.add(owner);
+        shares.forEach(share -> userNames.add(share.getGrantee()));
+        advanceGenerations(userNames);
+
+        Optional<Note> modified = noteRepository.modifyByIdAndUserName(id, owner, expectedVersion, fields);
+        if (modified.isEmpty()) {
+            if (expectedVersion != null && noteRepository.existsByIdAndUserName(id, owner)) {
+                throw new NoteConflictException(NOTE_CONFLICT);
+            }
+            throw new ResourceNotFoundException(INVALID_NOTE);
+        }
+        List<NoteChangedEvent> events = new ArrayList<>();
+        events.add(NoteChangedEvent.saved(modified.get()));
+        shares.forEach(share -> events.add(NoteChangedEvent.savedFor(share.getGrantee(), modified.get())));
+        publish(events);
+        return modified.get();
+    }
+
+    /**
+     * Moves the users whose Notes a write is about to change to a new notes generation, with
+     * one write. It runs before the write, so if it fails the request fails and nothing is
+     * written; a change can never reach the database while clients keep getting 304 for the
+     * generation before it.
+     *
+     * @throws org.springframework.dao.DataAccessException if the generations cannot be written.
+     */
+    private void advanceGenerations(Collection<String> userNames) {
+        notesGenerationRepository.incrementAll(userNames);
+    }
+
+    /**
+     * Moves every affected user to a new notes generation once more, then publishes the
+     * events. The second move covers a listing read between the first one and the write,
+     * which would otherwise keep the old Notes under the new generation. The write has
+     * already committed, so a failure here is logged rather than failing the request, and
+     * the events are published either way so local caches never miss a change that reached
+     * the database.
+     */
+    private void publish(List<NoteChangedEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        Set<String> userNames = events.stream()
+                .map(NoteChangedEvent::userName)
+                .collect(Collectors.toSet());
+        try {
+            notesGenerationRepository.incrementAll(userNames);
+        } catch (DataAccessException e) {
+            logger.warn("Could not advance the notes generation of {}: {}", userNames, e.getMessage());
+        }
+        events.forEach(eventPublisher::publishEvent);
+    }
 }
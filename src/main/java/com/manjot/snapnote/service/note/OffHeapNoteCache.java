@@ -0,0 +1,244 @@
+package com.manjot.snapnote.service.note;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.manjot.snapnote.dto.note.NoteDTOMapper;
+import com.manjot.snapnote.model.Note;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Read-through cache for single Notes that keeps the Notes themselves off the Java heap.
+ * <p>
+ * Notes are serialized to JSON and copied into slots of direct byte buffers managed by a
+ * {@link SlabAllocator}. The heap only holds a small index entry per Note (slot, stamp,
+ * length, owner, version) in a Caffeine cache weighted by slot size, so its W-TinyLFU policy
+ * decides admission and eviction, and an evicted entry hands its slot back to the allocator.
+ * When a Note's size class has no free slot left, room is made by evicting within that class
+ * or by draining a slab of another class, so the memory follows the sizes being cached.
+ * <p>
+ * The JSON is that of the Note's {@code NoteDTO}, written with the application's
+ * {@link ObjectMapper}, so {@link #getJson} returns exactly the body the API would send for
+ * the Note and a hit can be written to the response without mapping or serializing it again.
+ * <p>
+ * Entries are dropped when a {@link NoteChangedEvent} reports the Note changed. To keep a
+ * read that loaded the Note just before the change from caching the old version, loaders
+ * take a {@link #stamp} of the Note before going to the database and pass it to {@link #put}.
+ * Stamps are kept per stripe of Note IDs rather than for the whole cache, so a steady stream
+ * of writes to some Notes does not keep every other Note from being cached.
+ */
+@Component
+public class OffHeapNoteCache {
+    public static final String CACHE_NAME = "notes.offheap";
+
+    private static final Logger logger = LoggerFactory.getLogger(OffHeapNoteCache.class);
+
+    private static final int EVICTION_SCAN = 64;
+
+    private static final int INVALIDATION_STRIPES = 1024;
+
+    private final SlabAllocator allocator;
+
+    private final Cache<String, Entry> index;
+
+    private final ObjectMapper objectMapper;
+
+    private final AtomicLong stamps = new AtomicLong();
+
+    private final AtomicLongArray invalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+
+    private final AtomicLong fullInvalidations = new AtomicLong();
+
+    @Autowired
+    public OffHeapNoteCache(@Value("${manjot.app.noteCacheCapacity:64MB}") DataSize capacity,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.allocator = new SlabAllocator(capacity.toBytes());
+        this.index = Caffeine.newBuilder()
+                .maximumWeight(capacity.toBytes())
+                .weigher((String id, Entry entry) -> entry.slot().size())
+                .removalListener((String id, Entry entry, RemovalCause cause) -> {
+                    if (entry != null) {
+                        allocator.free(entry.slot());
+                    }
+                })
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, index, CACHE_NAME);
+        Gauge.builder("snapnote.note.cache.offheap.allocated", allocator, SlabAllocator::allocatedBytes)
+                .baseUnit("bytes").description("Direct memory reserved for cached notes").register(meterRegistry);
+        Gauge.builder("snapnote.note.cache.offheap.used", allocator, SlabAllocator::usedBytes)
+                .baseUnit("bytes").description("Direct memory holding cached notes").register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached Note if present and owned by the user.
+     *
+     * @param noteId   The ID of the Note.
+     * @param userName The user asking for it.
+     * @return The Note, or empty on a miss.
+     */
+    public Optional<Note> get(String noteId, String userName) {
+        Optional<NoteJson> cached = getJson(noteId, userName);
+        if (cached.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(cached.get().json(), Note.class));
+        } catch (IOException e) {
+            logger.warn("Cannot read cached note {}: {}", noteId, e.getMessage());
+            invalidate(noteId);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns the cached JSON of the Note if present and owned by the user.
+     *
+     * @param noteId   The ID of the Note.
+     * @param userName The user asking for it.
+     * @return A copy of the JSON with the version it was written from, or empty on a miss.
+     */
+    public Optional<NoteJson> getJson(String noteId, String userName) {
+        Entry entry = index.getIfPresent(noteId);
+        if (entry == null || !entry.userName().equals(userName)) {
+            return Optional.empty();
+        }
+        byte[] payload = allocator.read(entry.slot(), entry.stamp(), entry.length());
+        if (payload == null) {
+            // the slot was recycled while being read
+            return Optional.empty();
+        }
+        return Optional.of(new NoteJson(noteId, entry.version(), payload));
+    }
+
+    /**
+     * Returns the version of the cached Note if present and owned by the user, without
+     * reading the Note itself.
+     */
+    public Optional<Long> getVersion(String noteId, String userName) {
+        Entry entry = index.getIfPresent(noteId);
+        if (entry == null || !entry.userName().equals(userName)) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.version());
+    }
+
+    /**
+     * Marks the start of a database load of a Note; pass the result to {@link #put}.
+     * Both counters only grow, so their sum changes whenever either of them does.
+     *
+     * @param noteId The ID of the Note about to be loaded.
+     */
+    public long stamp(String noteId) {
+        return fullInvalidations.get() + invalidations.get(stripe(noteId));
+    }
+
+    /**
+     * Caches a Note loaded from the database, unless it, a Note sharing its stripe, or the
+     * whole cache was invalidated since the load began.
+     *
+     * @param note      The Note.
+     * @param loadStamp The value of {@link #stamp} taken before loading it.
+     */
+    public void put(Note note, long loadStamp) {
+        if (stamp(note.getId()) != loadStamp) {
+            return;
+        }
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(NoteDTOMapper.mapToNoteDTO(note));
+        } catch (IOException e) {
+            logger.warn("Cannot cache note {}: {}", note.getId(), e.getMessage());
+            return;
+        }
+        long stamp = stamps.incrementAndGet();
+        SlabAllocator.Slot slot = allocator.store(payload, stamp, note.getId());
+        if (slot == null && makeRoom(payload.length)) {
+            slot = allocator.store(payload, stamp, note.getId());
+        }
+        if (slot == null) {
+            return;
+        }
+        long version = note.getVersion() == null ? 0 : note.getVersion();
+        Entry entry = new Entry(slot, stamp, payload.length, note.getUserName(), version);
+        index.put(note.getId(), entry);
+        // an invalidation that ran between the check above and the put may have missed this entry
+        if (stamp(note.getId()) != loadStamp) {
+            index.asMap().remove(note.getId(), entry);
+        }
+    }
+
+    /**
+     * Frees a slot for a payload whose size class is out of memory. The coldest Note of the
+     * same class is evicted if one is found among the {@value #EVICTION_SCAN} coldest entries;
+     * otherwise a slab of another class is drained by evicting every Note it holds.
+     *
+     * @return Whether storing the payload is worth retrying.
+     */
+    private boolean makeRoom(int payloadLength) {
+        int slotSize = SlabAllocator.slotSize(payloadLength);
+        if (slotSize < 0) {
+            return false;
+        }
+        Optional<Map.Entry<String, Entry>> coldest = index.policy().eviction()
+                .flatMap(eviction -> eviction.coldest(EVICTION_SCAN).entrySet().stream()
+                        .filter(candidate -> candidate.getValue().slot().size() == slotSize)
+                        .findFirst());
+        if (coldest.isPresent()) {
+            return index.asMap().remove(coldest.get().getKey(), coldest.get().getValue());
+        }
+        List<String> owners = allocator.reclaim(payloadLength);
+        for (String noteId : owners) {
+            index.asMap().computeIfPresent(noteId, (id, entry) -> entry.slot().reclaimed() ? null : entry);
+        }
+        return true;
+    }
+
+    public void invalidate(String noteId) {
+        invalidations.incrementAndGet(stripe(noteId));
+        index.invalidate(noteId);
+    }
+
+    public void invalidateAll() {
+        fullInvalidations.incrementAndGet();
+        index.invalidateAll();
+    }
+
+    @EventListener
+    public void onNoteChanged(NoteChangedEvent event) {
+        invalidate(event.noteId());
+    }
+
+    private static int stripe(String noteId) {
+        return Math.floorMod(noteId.hashCode(), INVALIDATION_STRIPES);
+    }
+
+    long size() {
+        index.cleanUp();
+        return index.estimatedSize();
+    }
+
+    private record Entry(SlabAllocator.Slot slot, long stamp, int length, String userName, long version) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.manjot.snapnote.service.note;
+
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.model.enums.QueryType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking read operations on Notes, served by the reactive MongoDB driver.
+ */
+public interface ReactiveNoteService {
+    public Mono<Note> getNoteById(String noteId, String userName);
+
+    public Flux<Note> getAllNotes(String userName);
+
+    public Flux<Note> searchNotes(String query, QueryType queryType, String userName);
+}
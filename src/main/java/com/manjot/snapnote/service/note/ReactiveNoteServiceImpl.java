@@ -0,0 +1,112 @@
+package com.manjot.snapnote.service.note;
+
+import com.manjot.snapnote.exception.ResourceNotFoundException;
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.model.enums.QueryType;
+import com.manjot.snapnote.repository.ReactiveNoteRepository;
+import com.manjot.snapnote.repository.ReactiveNoteShareRepository;
+import com.manjot.snapnote.service.search.LabelExpression;
+import com.manjot.snapnote.service.search.LabelSearchStrategy;
+import jakarta.validation.constraints.NotNull;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static com.manjot.snapnote.exception.ErrorMessages.INVALID_NOTE;
+import static com.manjot.snapnote.exception.ErrorMessages.UNSUPPORTED_QUERY_TYPE;
+
+/**
+ * Implementation of the {@link ReactiveNoteService} interface.
+ * <p>
+ * Reads go straight to the reactive repositories; the note cache, search cache and search
+ * indexes stay with {@link NoteServiceImpl}, whose writes keep them coherent. Streams are
+ * requested from the database in batches of {@value #PREFETCH} documents as the subscriber
+ * asks for more, so a slow reader holds back the cursor instead of buffering its results.
+ */
+@Service
+public class ReactiveNoteServiceImpl implements ReactiveNoteService {
+    static final int PREFETCH = 256;
+
+    private final ReactiveNoteRepository noteRepository;
+
+    private final ReactiveNoteShareRepository noteShareRepository;
+
+    @Autowired
+    public ReactiveNoteServiceImpl(ReactiveNoteRepository noteRepository,
+                                   ReactiveNoteShareRepository noteShareRepository) {
+        this.noteRepository = noteRepository;
+        this.noteShareRepository = noteShareRepository;
+    }
+
+    /**
+     * Retrieves a Note owned by or shared with the user.
+     *
+     * @param noteId   The ID of the Note to retrieve.
+     * @param userName The username associated with the Note.
+     * @return The Note, or an error with {@link ResourceNotFoundException} if it is not found
+     *         or not shared with the user.
+     */
+    @Override
+    public Mono<Note> getNoteById(@NonNull final String noteId,
+                                  @NonNull final String userName) {
+        return noteRepository.findByIdAndUserName(noteId, userName)
+                // not the owner: the user may still read it through a share
+                .switchIfEmpty(Mono.defer(() -> noteShareRepository.findByNoteIdAndGrantee(noteId, userName)
+                        .flatMap(share -> noteRepository.findByIdAndUserName(noteId, share.getOwner()))))
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(INVALID_NOTE)));
+    }
+
+    /**
+     * Streams the Notes the user owns, then the Notes shared with the user.
+     *
+     * @param userName The username.
+     * @return The user's Notes.
+     */
+    @Override
+    public Flux<Note> getAllNotes(@NonNull final String userName) {
+        return noteRepository.findByUserName(userName)
+                .concatWith(Flux.defer(() -> noteRepository.findSharedWith(userName, new Criteria())))
+                .limitRate(PREFETCH);
+    }
+
+    /**
+     * Streams the Notes owned by or shared with the user that match a query. Only the query
+     * types answered by the database without a text index are supported: CONTENT, LABEL and
+     * DEFAULT. The query is checked before the stream is returned, so a bad request is
+     * rejected before a streamed response is committed.
+     *
+     * @param query     The search query.
+     * @param queryType The type of query.
+     * @param userName  The username.
+     * @return The matching Notes.
+     * @throws IllegalArgumentException if the query type is not supported or the label expression is invalid.
+     */
+    @Override
+    public Flux<Note> searchNotes(@NotNull final String query,
+                                  @NotNull final QueryType queryType,
+                                  @NotNull final String userName) {
+        Flux<Note> notes = switch (queryType) {
+            case CONTENT -> noteRepository.findByContentContainingAndUserName(query, userName)
+                    .concatWith(Flux.defer(() -> noteRepository.findSharedWith(userName,
+                            Criteria.where("content").regex(Pattern.quote(query)))));
+            case LABEL -> searchLabels(LabelExpression.parse(query), userName);
+            case DEFAULT -> getAllNotes(userName);
+            default -> throw new IllegalArgumentException(UNSUPPORTED_QUERY_TYPE);
+        };
+        return notes.limitRate(PREFETCH);
+    }
+
+    private Flux<Note> searchLabels(LabelExpression expression, String userName) {
+        Criteria criteria = LabelSearchStrategy.toCriteria(expression);
+        Flux<Note> owned = expression instanceof LabelExpression.Label label
+                ? noteRepository.findByLabelListInAndUserName(List.of(label.name()), userName)
+                : noteRepository.findByUserNameMatching(userName, criteria);
+        return owned.concatWith(Flux.defer(() -> noteRepository.findSharedWith(userName, criteria)));
+    }
+}
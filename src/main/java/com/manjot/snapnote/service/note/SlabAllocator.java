@@ -0,0 +1,313 @@
+package com.manjot.snapnote.service.note;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out fixed-size slots carved from direct (off-heap) byte buffers.
+ * <p>
+ * Slots come in power-of-two size classes from {@value #MIN_SLOT_BYTES} bytes up to
+ * {@value #MAX_SLOT_BYTES}. A class takes {@value #SLAB_BYTES}-byte slabs on demand, first
+ * from a shared pool of empty slabs and then by allocating new ones until the total capacity
+ * is used. A slab whose slots are all free goes back to the pool, so memory is not tied to
+ * the class that first used it. When memory runs out, {@link #reclaim} picks a slab of
+ * another class to drain: its slots are no longer handed out, and once the owners named in
+ * the result have freed them the slab returns to the pool.
+ * <p>
+ * Every slot starts with an 8-byte stamp: writers set it last, and readers check it before
+ * and after copying, so a read that raced with the slot being freed and reused is detected
+ * instead of returning mixed data.
+ */
+final class SlabAllocator {
+    static final int MIN_SLOT_BYTES = 256;
+
+    static final int MAX_SLOT_BYTES = 64 * 1024;
+
+    static final int SLAB_BYTES = 1024 * 1024;
+
+    static final int HEADER_BYTES = Long.BYTES;
+
+    private static final long FREE_STAMP = 0;
+
+    private static final VarHandle STAMP = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final SizeClass[] sizeClasses;
+
+    private final long capacity;
+
+    private final Deque<ByteBuffer> emptySlabs = new ArrayDeque<>();
+
+    private final AtomicLong allocatedBytes = new AtomicLong();
+
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    SlabAllocator(long capacity) {
+        this.capacity = capacity;
+        int classes = Integer.numberOfTrailingZeros(MAX_SLOT_BYTES) - Integer.numberOfTrailingZeros(MIN_SLOT_BYTES) + 1;
+        this.sizeClasses = new SizeClass[classes];
+        for (int i = 0; i < classes; i++) {
+            sizeClasses[i] = new SizeClass(MIN_SLOT_BYTES << i);
+        }
+    }
+
+    /**
+     * Size of the slot that would hold a payload of the given length, or -1 if it is too large.
+     */
+    static int slotSize(int payloadLength) {
+        int needed = payloadLength + HEADER_BYTES;
+        if (needed > MAX_SLOT_BYTES) {
+            return -1;
+        }
+        return Math.max(MIN_SLOT_BYTES, Integer.highestOneBit(needed - 1) << 1);
+    }
+
+    /**
+     * Stores a payload in a free slot and stamps it.
+     *
+     * @param owner Key of the payload, reported by {@link #reclaim} if its slab is drained.
+     * @return The slot, or null if the payload is too large or no memory is left in its class.
+     */
+    Slot store(byte[] payload, long stamp, String owner) {
+        int size = slotSize(payload.length);
+        if (size < 0) {
+            return null;
+        }
+        Slot slot = sizeClass(size).take(owner);
+        if (slot == null) {
+            return null;
+        }
+        slot.buffer().put(slot.offset() + HEADER_BYTES, payload);
+        STAMP.setRelease(slot.buffer(), slot.offset(), stamp);
+        usedBytes.addAndGet(slot.size());
+        return slot;
+    }
+
+    /**
+     * Copies a payload out of a slot.
+     *
+     * @return The payload, or null if the slot no longer carries the expected stamp.
+     */
+    byte[] read(Slot slot, long stamp, int length) {
+        if ((long) STAMP.getAcquire(slot.buffer(), slot.offset()) != stamp) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        slot.buffer().get(slot.offset() + HEADER_BYTES, payload);
+        VarHandle.loadLoadFence();
+        return (long) STAMP.getVolatile(slot.buffer(), slot.offset()) == stamp ? payload : null;
+    }
+
+    void free(Slot slot) {
+        STAMP.setVolatile(slot.buffer(), slot.offset(), FREE_STAMP);
+        usedBytes.addAndGet(-slot.size());
+        sizeClass(slot.size()).give(slot);
+    }
+
+    /**
+     * Starts draining a slab so that a payload of the given length can be stored once its
+     * owners are freed. The slab is taken from the other class holding the most slabs, and
+     * within it the slab with the fewest slots in use.
+     *
+     * @return The owners of the slots still in use in the drained slab; empty if it was
+     * already free or no other class has a slab to give up.
+     */
+    List<String> reclaim(int payloadLength) {
+        int size = slotSize(payloadLength);
+        if (size < 0) {
+            return List.of();
+        }
+        SizeClass target = sizeClass(size);
+        SizeClass victim = null;
+        int mostSlabs = 0;
+        for (SizeClass sizeClass : sizeClasses) {
+            int slabs = sizeClass.drainableSlabs();
+            if (sizeClass != target && slabs > mostSlabs) {
+                victim = sizeClass;
+                mostSlabs = slabs;
+            }
+        }
+        return victim == null ? List.of() : victim.drain();
+    }
+
+    long allocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    long usedBytes() {
+        return usedBytes.get();
+    }
+
+    private SizeClass sizeClass(int slotSize) {
+        return sizeClasses[Integer.numberOfTrailingZeros(slotSize / MIN_SLOT_BYTES)];
+    }
+
+    private ByteBuffer acquireSlab() {
+        synchronized (emptySlabs) {
+            ByteBuffer pooled = emptySlabs.poll();
+            if (pooled != null) {
+                return pooled;
+            }
+        }
+        long total;
+        do {
+            total = allocatedBytes.get();
+            if (total + SLAB_BYTES > capacity) {
+                return null;
+            }
+        } while (!allocatedBytes.compareAndSet(total, total + SLAB_BYTES));
+        return ByteBuffer.allocateDirect(SLAB_BYTES).order(ByteOrder.nativeOrder());
+    }
+
+    private void releaseSlab(ByteBuffer buffer) {
+        synchronized (emptySlabs) {
+            emptySlabs.push(buffer);
+        }
+    }
+
+    /**
+     * A region of a slab: an 8-byte stamp followed by up to {@code size - 8} bytes of payload.
+     */
+    record Slot(Slab slab, int offset, int size) {
+        ByteBuffer buffer() {
+            return slab.buffer;
+        }
+
+        /**
+         * Whether the slot's slab is being drained, so its owner should be evicted.
+         */
+        boolean reclaimed() {
+            return slab.draining;
+        }
+    }
+
+    /**
+     * A slab while it belongs to one size class. Guarded by the lock of that class.
+     */
+    static final class Slab {
+        private final ByteBuffer buffer;
+        private final int slotSize;
+        private final int[] freeOffsets;
+        private final String[] owners;
+        private int freeCount;
+        private volatile boolean draining;
+
+        private Slab(ByteBuffer buffer, int slotSize) {
+            this.buffer = buffer;
+            this.slotSize = slotSize;
+            int slots = SLAB_BYTES / slotSize;
+            this.freeOffsets = new int[slots];
+            this.owners = new String[slots];
+            // hand out low offsets first
+            for (int i = 0; i < slots; i++) {
+                freeOffsets[i] = (slots - 1 - i) * slotSize;
+            }
+            this.freeCount = slots;
+        }
+
+        private int take(String owner) {
+            int offset = freeOffsets[--freeCount];
+            owners[offset / slotSize] = owner;
+            return offset;
+        }
+
+        private void give(int offset) {
+            owners[offset / slotSize] = null;
+            freeOffsets[freeCount++] = offset;
+        }
+
+        private boolean isFull() {
+            return freeCount == 0;
+        }
+
+        private boolean isEmpty() {
+            return freeCount == freeOffsets.length;
+        }
+    }
+
+    private final class SizeClass {
+        private final int slotSize;
+
+        // slabs of this class that are not draining
+        private final List<Slab> slabs = new ArrayList<>();
+
+        // the ones among them with a free slot
+        private final Deque<Slab> available = new ArrayDeque<>();
+
+        private SizeClass(int slotSize) {
+            this.slotSize = slotSize;
+        }
+
+        synchronized Slot take(String owner) {
+            Slab slab = available.peek();
+            if (slab == null) {
+                ByteBuffer buffer = acquireSlab();
+                if (buffer == null) {
+                    return null;
+                }
+                slab = new Slab(buffer, slotSize);
+                slabs.add(slab);
+                available.push(slab);
+            }
+            Slot slot = new Slot(slab, slab.take(owner), slotSize);
+            if (slab.isFull()) {
+                available.poll();
+            }
+            return slot;
+        }
+
+        synchronized void give(Slot slot) {
+            Slab slab = slot.slab();
+            boolean wasFull = slab.isFull();
+            slab.give(slot.offset());
+            if (slab.draining) {
+                if (slab.isEmpty()) {
+                    releaseSlab(slab.buffer);
+                }
+            } else if (slab.isEmpty() && slabs.size() > 1) {
+                // keep the last slab so a class in use does not churn through the pool
+                slabs.remove(slab);
+                available.remove(slab);
+                releaseSlab(slab.buffer);
+            } else if (wasFull) {
+                available.push(slab);
+            }
+        }
+
+        synchronized int drainableSlabs() {
+            return slabs.size();
+        }
+
+        synchronized List<String> drain() {
+            Slab victim = null;
+            for (Slab slab : slabs) {
+                if (victim == null || slab.freeCount > victim.freeCount) {
+                    victim = slab;
+                }
+            }
+            if (victim == null) {
+                return List.of();
+            }
+            victim.draining = true;
+            slabs.remove(victim);
+            available.remove(victim);
+            if (victim.isEmpty()) {
+                releaseSlab(victim.buffer);
+                return List.of();
+            }
+            List<String> owners = new ArrayList<>(victim.owners.length - victim.freeCount);
+            for (String owner : victim.owners) {
+                if (owner != null) {
+                    owners.add(owner);
+                }
+            }
+            return owners;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.manjot.snapnote.service.search;
+
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.repository.NoteRepository;
+import com.manjot.snapnote.service.search.LabelExpression.Label;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Search strategy matching the query against the title, labels and content of Notes at once.
+ * <p>
+ * The title, label and content strategies run concurrently on the {@link ParallelSearchExecutor},
+ * each over the user's own and shared Notes, so the search takes as long as the slowest of
+ * them rather than their sum. Matches are merged by Note id and ranked by the fields they
+ * matched: a title match weighs {@value #TITLE_WEIGHT}, a label {@value #LABEL_WEIGHT} and
+ * content {@value #CONTENT_WEIGHT}. The rank is returned as the Note's score; equal ranks
+ * are ordered newest first.
+ */
+public class AllSearchStrategy implements NoteSearchStrategy {
+    static final int TITLE_WEIGHT = 3;
+
+    static final int LABEL_WEIGHT = 2;
+
+    static final int CONTENT_WEIGHT = 1;
+
+    private static final Comparator<Note> RANKING = Comparator
+            .comparing(Note::getScore, Comparator.reverseOrder())
+            .thenComparing(Note::getCreatedAt, Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder()));
+
+    private final ParallelSearchExecutor executor;
+
+    private final List<WeightedStrategy> strategies = List.of(
+            new WeightedStrategy(new TitleSearchStrategy(), TITLE_WEIGHT),
+            new WeightedStrategy(new LabelSearchStrategy(), LABEL_WEIGHT),
+            new WeightedStrategy(new ContentSearchStrategy(), CONTENT_WEIGHT));
+
+    public AllSearchStrategy(ParallelSearchExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Searches the user's own and shared Notes whose title, labels or content match the query.
+     * The whole query is matched as one label name and never parsed as a label expression, so
+     * quotes, parentheses and operator words in it are taken literally.
+     *
+     * @param repository The repository for Note entities.
+     * @param query      The search query.
+     * @param userName   The username associated with the Notes.
+     * @return The matching Notes, best ranked first.
+     */
+    @Override
+    public List<Note> search(NoteRepository repository, String query, String userName) {
+        Label label = new Label(query);
+        List<Callable<List<Note>>> searches = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        for (WeightedStrategy weighted : strategies) {
+            NoteSearchStrategy strategy = weighted.strategy();
+            if (strategy instanceof LabelSearchStrategy labels) {
+                searches.add(() -> labels.search(repository, label, userName));
+                searches.add(() -> labels.searchShared(repository, label, userName));
+            } else {
+                searches.add(() -> strategy.search(repository, query, userName));
+                searches.add(() -> strategy.searchShared(repository, query, userName));
+            }
+            weights.add(weighted.weight());
+            weights.add(weighted.weight());
+        }
+        List<List<Note>> results = executor.invokeAll(searches);
+
+        Map<String, Note> merged = new LinkedHashMap<>();
+        Map<String, Integer> ranks = new HashMap<>();
+        for (int i = 0; i < results.size(); i++) {
+            int weight = weights.get(i);
+            for (Note note : results.get(i)) {
+                merged.putIfAbsent(note.getId(), note);
+                ranks.merge(note.getId(), weight, Integer::sum);
+            }
+        }
+        merged.forEach((id, note) -> note.setScore((float) ranks.get(id)));
+        return merged.values().stream().sorted(RANKING).toList();
+    }
+
+    private record WeightedStrategy(NoteSearchStrategy strategy, int weight) {
+    }
+}
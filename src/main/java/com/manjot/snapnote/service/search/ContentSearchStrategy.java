@@ -2,8 +2,10 @@ package com.manjot.snapnote.service.search;
 
 import com.manjot.snapnote.model.Note;
 import com.manjot.snapnote.repository.NoteRepository;
+import org.springframework.data.mongodb.core.query.Criteria;
 
 import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * Search strategy for searching Notes based on content.
@@ -21,4 +23,9 @@ public class ContentSearchStrategy implements NoteSearchStrategy {
     public List<Note> search(NoteRepository repository, String query, String userName) {
         return repository.findByContentContainingAndUserName(query, userName);
     }
+
+    @Override
+    public List<Note> searchShared(NoteRepository repository, String query, String userName) {
+        return repository.findSharedWith(userName, Criteria.where("content").regex(Pattern.quote(query)));
+    }
 }
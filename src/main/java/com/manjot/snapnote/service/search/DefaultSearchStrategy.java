@@ -3,6 +3,7 @@ package com.manjot.snapnote.service.search;
 import com.manjot.snapnote.exception.ResourceNotFoundException;
 import com.manjot.snapnote.model.Note;
 import com.manjot.snapnote.repository.NoteRepository;
+import org.springframework.data.mongodb.core.query.Criteria;
 
 import java.util.List;
 /**
@@ -23,4 +24,9 @@ public class DefaultSearchStrategy implements NoteSearchStrategy{
         return repository.findByUserName(userName)
                 .orElseThrow(() -> new ResourceNotFoundException("Noting found!"));
     }
+
+    @Override
+    public List<Note> searchShared(NoteRepository repository, String query, String userName) {
+        return repository.findSharedWith(userName, new Criteria());
+    }
 }
@@ -0,0 +1,38 @@
+package com.manjot.snapnote.service.search;
+
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.repository.NoteRepository;
+
+import java.util.List;
+
+/**
+ * Search strategy answering queries from the in-process {@link NoteSearchIndex}, for
+ * search-as-you-type where a database round trip is too slow.
+ */
+public class IndexedSearchStrategy implements NoteSearchStrategy {
+    /**
+     * Maximum number of Notes returned by a single search.
+     */
+    public static final int RESULT_LIMIT = 20;
+
+    private final NoteSearchIndex index;
+
+    public IndexedSearchStrategy(NoteSearchIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Searches the user's title, content and label words, ranked by BM25. The last word of
+     * the query is also matched as a prefix so partially typed words find results.
+     *
+     * @param repository The repository used to load the user's own and shared Notes on first use.
+     * @param query      The search query.
+     * @param userName   The username associated with the Notes.
+     * @return Up to {@link #RESULT_LIMIT} Notes, best match first.
+     */
+    @Override
+    public List<Note> search(NoteRepository repository, String query, String userName) {
+        return index.search(userName, query, RESULT_LIMIT,
+                repository::findAccessibleByUserName);
+    }
+}
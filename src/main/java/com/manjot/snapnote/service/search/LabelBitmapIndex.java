@@ -0,0 +1,79 @@
+package com.manjot.snapnote.service.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.service.note.NoteChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * In-process label bitmaps, sharded by user.
+ * <p>
+ * Like {@link NoteSearchIndex}, a user's shard is built from the database on their first
+ * label query, kept current from {@link NoteChangedEvent}s and evicted least recently used
+ * first once the estimated heap size of all shards exceeds the configured budget.
+ */
+@Component
+public class LabelBitmapIndex {
+    private final Cache<String, UserLabelShard> shards;
+
+    public LabelBitmapIndex(@Value("${manjot.app.labelIndexMaxBytes:32MB}") DataSize maxBytes) {
+        this.shards = Caffeine.newBuilder()
+                .maximumWeight(maxBytes.toBytes())
+                .weigher((String userName, UserLabelShard shard) -> (int) Math.min(shard.estimatedBytes(), Integer.MAX_VALUE))
+                .build();
+    }
+
+    /**
+     * Returns the user's Notes matching the label expression, building their shard first if needed.
+     *
+     * @param userName   The user searching.
+     * @param expression The label expression.
+     * @param loader     Loads all Notes the user can read when the shard has to be built.
+     * @return The matching Notes.
+     */
+    public List<Note> search(String userName, LabelExpression expression, Function<String, List<Note>> loader) {
+        return shards.get(userName, user -> UserLabelShard.build(loader.apply(user))).search(expression);
+    }
+
+    /**
+     * Applies a Note change to the shard of the user it was published for, its owner or a
+     * grantee, if one is loaded. See {@link NoteSearchIndex#onNoteChanged} for how this
+     * interacts with a concurrent build.
+     */
+    @EventListener
+    public void onNoteChanged(NoteChangedEvent event) {
+        if (event.userName() == null) {
+            // user unknown: deleting is a no-op in shards without the note
+            shards.asMap().keySet().forEach(user -> apply(user, event));
+        } else {
+            apply(event.userName(), event);
+        }
+    }
+
+    private void apply(String userName, NoteChangedEvent event) {
+        shards.asMap().computeIfPresent(userName, (user, shard) -> {
+            if (event.type() == NoteChangedEvent.Type.DELETED) {
+                shard.delete(event.noteId());
+            } else {
+                shard.upsert(event.note());
+            }
+            // returning the shard makes the cache re-weigh it
+            return shard;
+        });
+    }
+
+    public void invalidate(String userName) {
+        shards.invalidate(userName);
+    }
+
+    public void invalidateAll() {
+        shards.invalidateAll();
+    }
+}
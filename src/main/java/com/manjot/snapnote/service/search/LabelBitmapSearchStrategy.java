@@ -0,0 +1,33 @@
+package com.manjot.snapnote.service.search;
+
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.repository.NoteRepository;
+
+import java.util.List;
+
+/**
+ * Search strategy evaluating label expressions against the in-process {@link LabelBitmapIndex}.
+ */
+public class LabelBitmapSearchStrategy implements NoteSearchStrategy {
+    private final LabelBitmapIndex index;
+
+    public LabelBitmapSearchStrategy(LabelBitmapIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Searches for Notes whose labels satisfy a {@link LabelExpression}, using the same syntax
+     * as the LABEL query type.
+     *
+     * @param repository The repository used to load the user's own and shared Notes on first use.
+     * @param query      The label expression.
+     * @param userName   The username associated with the Notes.
+     * @return The matching Notes.
+     * @throws IllegalArgumentException if the query is not a valid label expression.
+     */
+    @Override
+    public List<Note> search(NoteRepository repository, String query, String userName) {
+        LabelExpression expression = LabelExpression.parse(query);
+        return index.search(userName, expression, repository::findAccessibleByUserName);
+    }
+}
@@ -0,0 +1,37 @@
+package com.manjot.snapnote.service.search;
+
+import java.util.List;
+
+/**
+ * Boolean expression over note labels, e.g. {@code math AND (pending OR "to review") AND NOT done}.
+ * <p>
+ * Operators are the case-insensitive words AND, OR and NOT plus parentheses; NOT binds
+ * tightest and OR loosest. Consecutive words that are not operators form a single label,
+ * so a plain query such as {@code to do} still means the label "to do". Labels that
+ * collide with an operator or contain parentheses can be written in double quotes.
+ */
+public sealed interface LabelExpression {
+
+    record Label(String name) implements LabelExpression {
+    }
+
+    record And(List<LabelExpression> operands) implements LabelExpression {
+    }
+
+    record Or(List<LabelExpression> operands) implements LabelExpression {
+    }
+
+    record Not(LabelExpression operand) implements LabelExpression {
+    }
+
+    /**
+     * Parses a label expression.
+     *
+     * @param text The expression.
+     * @return The parsed expression.
+     * @throws IllegalArgumentException if the expression is empty or malformed.
+     */
+    static LabelExpression parse(String text) {
+        return LabelExpressionParser.parse(text);
+    }
+}
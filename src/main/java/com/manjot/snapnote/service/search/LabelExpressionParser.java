@@ -0,0 +1,121 @@
+package com.manjot.snapnote.service.search;
+
+import com.manjot.snapnote.service.search.LabelExpression.And;
+import com.manjot.snapnote.service.search.LabelExpression.Label;
+import com.manjot.snapnote.service.search.LabelExpression.Not;
+import com.manjot.snapnote.service.search.LabelExpression.Or;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recursive descent parser for {@link LabelExpression}.
+ */
+final class LabelExpressionParser {
+    private final List<String> tokens;
+
+    private int position;
+
+    private LabelExpressionParser(List<String> tokens) {
+        this.tokens = tokens;
+    }
+
+    static LabelExpression parse(String text) {
+        LabelExpressionParser parser = new LabelExpressionParser(tokenize(text));
+        LabelExpression expression = parser.parseOr();
+        if (parser.position < parser.tokens.size()) {
+            throw new IllegalArgumentException("Unexpected '" + parser.tokens.get(parser.position) + "' in label expression");
+        }
+        return expression;
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(' || c == ')') {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else if (c == '"') {
+                int end = text.indexOf('"', i + 1);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unterminated quote in label expression");
+                }
+                // keep the opening quote as a marker that this is a label, not an operator
+                tokens.add(text.substring(i, end));
+                i = end + 1;
+            } else {
+                int start = i;
+                while (i < text.length() && !Character.isWhitespace(text.charAt(i))
+                        && "()\"".indexOf(text.charAt(i)) < 0) {
+                    i++;
+                }
+                tokens.add(text.substring(start, i));
+            }
+        }
+        return tokens;
+    }
+
+    private LabelExpression parseOr() {
+        List<LabelExpression> operands = new ArrayList<>(List.of(parseAnd()));
+        while (accept("OR")) {
+            operands.add(parseAnd());
+        }
+        return operands.size() == 1 ? operands.get(0) : new Or(List.copyOf(operands));
+    }
+
+    private LabelExpression parseAnd() {
+        List<LabelExpression> operands = new ArrayList<>(List.of(parseNot()));
+        while (accept("AND")) {
+            operands.add(parseNot());
+        }
+        return operands.size() == 1 ? operands.get(0) : new And(List.copyOf(operands));
+    }
+
+    private LabelExpression parseNot() {
+        if (accept("NOT")) {
+            return new Not(parseNot());
+        }
+        if (accept("(")) {
+            LabelExpression inner = parseOr();
+            if (!accept(")")) {
+                throw new IllegalArgumentException("Missing ')' in label expression");
+            }
+            return inner;
+        }
+        return parseLabel();
+    }
+
+    private LabelExpression parseLabel() {
+        List<String> words = new ArrayList<>();
+        while (position < tokens.size() && isLabelWord(tokens.get(position))) {
+            String word = tokens.get(position++);
+            words.add(word.startsWith("\"") ? word.substring(1) : word);
+        }
+        if (words.isEmpty()) {
+            throw new IllegalArgumentException(position < tokens.size()
+                    ? "Expected a label before '" + tokens.get(position) + "'"
+                    : "Expected a label at the end of the expression");
+        }
+        return new Label(String.join(" ", words));
+    }
+
+    private static boolean isLabelWord(String token) {
+        if (token.startsWith("\"")) {
+            return true;
+        }
+        return !(token.equals("(") || token.equals(")") || token.equalsIgnoreCase("AND")
+                || token.equalsIgnoreCase("OR") || token.equalsIgnoreCase("NOT"));
+    }
+
+    private boolean accept(String expected) {
+        if (position < tokens.size() && tokens.get(position).equalsIgnoreCase(expected)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+}
@@ -2,6 +2,11 @@ package com.manjot.snapnote.service.search;
 
 import com.manjot.snapnote.model.Note;
 import com.manjot.snapnote.repository.NoteRepository;
+import com.manjot.snapnote.service.search.LabelExpression.And;
+import com.manjot.snapnote.service.search.LabelExpression.Label;
+import com.manjot.snapnote.service.search.LabelExpression.Not;
+import com.manjot.snapnote.service.search.LabelExpression.Or;
+import org.springframework.data.mongodb.core.query.Criteria;
 
 import java.util.List;
 
@@ -9,16 +14,76 @@ import java.util.List;
  * Search strategy for searching Notes based on label.
  */
 public class LabelSearchStrategy implements NoteSearchStrategy {
+    private static final String LABELS = "labelList";
+
     /**
-     * Searches for Notes based on label containing the given query and associated with a specific user.
+     * Searches for Notes whose labels match the given query and associated with a specific user.
+     * The query is a single label or a {@link LabelExpression} combining labels with AND, OR and NOT;
+     * either way it runs as one query on the (userName, labelList) index.
      *
      * @param repository The repository for Note entities.
      * @param query      The search query.
      * @param userName   The username associated with the Notes.
      * @return The list of Notes matching the search criteria.
+     * @throws IllegalArgumentException if the query is not a valid label expression.
      */
     @Override
     public List<Note> search(NoteRepository repository, String query, String userName) {
-        return repository.findByLabelListInAndUserName(List.of(query), userName);
+        return search(repository, LabelExpression.parse(query), userName);
+    }
+
+    @Override
+    public List<Note> searchShared(NoteRepository repository, String query, String userName) {
+        return searchShared(repository, LabelExpression.parse(query), userName);
+    }
+
+    /**
+     * Searches the user's Notes matching an already parsed label expression.
+     */
+    List<Note> search(NoteRepository repository, LabelExpression expression, String userName) {
+        if (expression instanceof Label label) {
+            return repository.findByLabelListInAndUserName(List.of(label.name()), userName);
+        }
+        return repository.findByUserNameMatching(userName, toCriteria(expression));
+    }
+
+    /**
+     * Searches the Notes shared with the user matching an already parsed label expression.
+     */
+    List<Note> searchShared(NoteRepository repository, LabelExpression expression, String userName) {
+        return repository.findSharedWith(userName, toCriteria(expression));
+    }
+
+    /**
+     * Compiles a label expression into a query on the labelList array. Groups of plain labels
+     * use $all, $in and $ne so MongoDB can answer them with index bounds rather than
+     * evaluating nested $and/$or/$nor clauses.
+     */
+    public static Criteria toCriteria(LabelExpression expression) {
+        if (expression instanceof Label label) {
+            return Criteria.where(LABELS).is(label.name());
+        }
+        if (expression instanceof And and) {
+            return allLabels(and.operands())
+                    ? Criteria.where(LABELS).all(names(and.operands()))
+                    : new Criteria().andOperator(and.operands().stream().map(LabelSearchStrategy::toCriteria).toList());
+        }
+        if (expression instanceof Or or) {
+            return allLabels(or.operands())
+                    ? Criteria.where(LABELS).in(names(or.operands()))
+                    : new Criteria().orOperator(or.operands().stream().map(LabelSearchStrategy::toCriteria).toList());
+        }
+        Not not = (Not) expression;
+        return not.operand() instanceof Label label
+                ? Criteria.where(LABELS).ne(label.name())
+                : new Criteria().norOperator(toCriteria(not.operand()));
+    }
+
+    private static boolean allLabels(List<LabelExpression> operands) {
+        return operands.stream().allMatch(Label.class::isInstance);
+    }
+
+    private static List<String> names(List<LabelExpression> operands) {
+        return operands.stream().map(operand -> ((Label) operand).name()).toList();
     }
 }
@@ -0,0 +1,22 @@
+package com.manjot.snapnote.service.search;
+
+import com.manjot.snapnote.model.Note;
+
+import java.util.ArrayList;
+
+/**
+ * Copies of the Notes held by the in-process indexes. A shard keeps its own copy of each
+ * Note and hands out copies, so callers that set a score or edit a Note they were given
+ * cannot change what the shard holds, and a shard always removes the terms and labels it
+ * indexed.
+ */
+final class NoteCopies {
+    private NoteCopies() {
+    }
+
+    static Note copyOf(Note note) {
+        return note.toBuilder()
+                .labelList(note.getLabelList() == null ? null : new ArrayList<>(note.getLabelList()))
+                .build();
+    }
+}
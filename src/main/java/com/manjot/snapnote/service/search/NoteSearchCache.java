@@ -0,0 +1,146 @@
+package com.manjot.snapnote.service.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.model.enums.QueryType;
+import com.manjot.snapnote.service.note.NoteChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Per-user cache of search results for the query types that go to the database.
+ * <p>
+ * Keys include the user's current generation. Any change to one of the user's Notes moves
+ * the user to a new generation, so their old entries can no longer be hit and simply age
+ * out; invalidation is a single map write rather than a scan of the cache. Generations are
+ * drawn from one global sequence, so a user whose generation was evicted never comes back
+ * to a generation that still has entries.
+ * <p>
+ * The cache is bounded by the estimated size of the cached results. Each entry weighs at
+ * least {@code maxBytes / maxEntries}, which also caps the number of entries.
+ */
+@Component
+public class NoteSearchCache {
+    private static final Set<QueryType> CACHED_TYPES = EnumSet.of(QueryType.CONTENT, QueryType.TITLE, QueryType.LABEL, QueryType.TEXT, QueryType.ALL, QueryType.DEFAULT);
+
+    // query types whose matching ignores case
+    private static final Set<QueryType> CASE_INSENSITIVE_TYPES = EnumSet.of(QueryType.TEXT);
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final long LIST_BYTES = 64;
+
+    private static final long NOTE_BYTES = 160;
+
+    private final Cache<Key, List<Note>> results;
+
+    private final Cache<String, Long> generations;
+
+    private final AtomicLong generationSequence = new AtomicLong();
+
+    private final long minEntryBytes;
+
+    public NoteSearchCache(@Value("${manjot.app.searchCacheMaxEntries:10000}") long maxEntries,
+                           @Value("${manjot.app.searchCacheMaxBytes:32MB}") DataSize maxBytes,
+                           @Value("${manjot.app.searchCacheTtl:5m}") Duration ttl) {
+        this.minEntryBytes = Math.max(1, maxBytes.toBytes() / maxEntries);
+        this.results = Caffeine.newBuilder()
+                .maximumWeight(maxBytes.toBytes())
+                .weigher((Key key, List<Note> notes) -> (int) Math.min(Math.max(minEntryBytes, estimateBytes(notes)), Integer.MAX_VALUE))
+                .expireAfterWrite(ttl)
+                .build();
+        this.generations = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    /**
+     * Returns the cached results for the search, running it and caching the results on a miss.
+     * Searches of query types served from memory are always run directly.
+     *
+     * @param userName  The user searching.
+     * @param queryType The query type.
+     * @param query     The query as entered.
+     * @param search    Runs the search.
+     * @return The search results; cached lists are unmodifiable.
+     */
+    public List<Note> get(String userName, QueryType queryType, String query, Supplier<List<Note>> search) {
+        if (!CACHED_TYPES.contains(queryType)) {
+            return search.get();
+        }
+        Key key = new Key(userName, generation(userName), queryType, normalize(queryType, query));
+        return results.get(key, k -> List.copyOf(search.get()));
+    }
+
+    /**
+     * Moves the user to a new generation, making all of their cached results unreachable.
+     *
+     * @param userName The user whose results are stale.
+     */
+    public void invalidate(String userName) {
+        generations.put(userName, generationSequence.incrementAndGet());
+    }
+
+    public void invalidateAll() {
+        generations.invalidateAll();
+        results.invalidateAll();
+    }
+
+    @EventListener
+    public void onNoteChanged(NoteChangedEvent event) {
+        if (event.userName() == null) {
+            // owner unknown: every user moves to a new generation
+            generations.invalidateAll();
+        } else {
+            invalidate(event.userName());
+        }
+    }
+
+    private long generation(String userName) {
+        return generations.get(userName, user -> generationSequence.incrementAndGet());
+    }
+
+    /**
+     * Collapses whitespace so trivially different spellings of a query share an entry, and
+     * folds case where the query type ignores it anyway.
+     */
+    static String normalize(QueryType queryType, String query) {
+        String normalized = WHITESPACE.matcher(query.strip()).replaceAll(" ");
+        if (CASE_INSENSITIVE_TYPES.contains(queryType)) {
+            normalized = normalized.toLowerCase(Locale.ROOT);
+        }
+        return normalized;
+    }
+
+    private static long estimateBytes(List<Note> notes) {
+        long bytes = LIST_BYTES;
+        for (Note note : notes) {
+            bytes += NOTE_BYTES + 2L * (length(note.getTitle()) + length(note.getContent()));
+            if (note.getLabelList() != null) {
+                for (String label : note.getLabelList()) {
+                    bytes += 48 + 2L * length(label);
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private record Key(String userName, long generation, QueryType queryType, String query) {
+    }
+}
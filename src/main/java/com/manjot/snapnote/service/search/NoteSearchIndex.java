@@ -0,0 +1,82 @@
+package com.manjot.snapnote.service.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.service.note.NoteChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * In-process full-text index of Notes, sharded by user.
+ * <p>
+ * A user's shard is built from the database on their first search and then kept current
+ * from {@link NoteChangedEvent}s, so queries never touch the database. Shards are weighed by
+ * their estimated heap size and the least recently used ones are evicted once the total
+ * exceeds the configured budget; an evicted user simply gets rebuilt on their next search.
+ */
+@Component
+public class NoteSearchIndex {
+    private final Cache<String, UserSearchShard> shards;
+
+    public NoteSearchIndex(@Value("${manjot.app.searchIndexMaxBytes:64MB}") DataSize maxBytes) {
+        this.shards = Caffeine.newBuilder()
+                .maximumWeight(maxBytes.toBytes())
+                .weigher((String userName, UserSearchShard shard) -> (int) Math.min(shard.estimatedBytes(), Integer.MAX_VALUE))
+                .build();
+    }
+
+    /**
+     * Returns the user's best matching Notes for the query, building their shard first if needed.
+     *
+     * @param userName The user searching.
+     * @param query    The search query; its last word also matches as a prefix unless followed by a space.
+     * @param limit    Maximum number of Notes to return.
+     * @param loader   Loads all Notes the user can read when the shard has to be built.
+     * @return The matching Notes, best first.
+     */
+    public List<Note> search(String userName, String query, int limit, Function<String, List<Note>> loader) {
+        return shards.get(userName, user -> UserSearchShard.build(loader.apply(user))).search(query, limit);
+    }
+
+    /**
+     * Applies a Note change to the shard of the user it was published for, its owner or a
+     * grantee. Users without a shard are left alone since their shard will be built from the
+     * database. A change racing with a shard build waits for the build and is then applied;
+     * upserts and deletes are idempotent, so it does not matter whether the build already saw it.
+     */
+    @EventListener
+    public void onNoteChanged(NoteChangedEvent event) {
+        if (event.userName() == null) {
+            // user unknown: deleting is a no-op in shards without the note
+            shards.asMap().keySet().forEach(user -> apply(user, event));
+        } else {
+            apply(event.userName(), event);
+        }
+    }
+
+    private void apply(String userName, NoteChangedEvent event) {
+        shards.asMap().computeIfPresent(userName, (user, shard) -> {
+            if (event.type() == NoteChangedEvent.Type.DELETED) {
+                shard.delete(event.noteId());
+            } else {
+                shard.upsert(event.note());
+            }
+            // returning the shard makes the cache re-weigh it
+            return shard;
+        });
+    }
+
+    public void invalidate(String userName) {
+        shards.invalidate(userName);
+    }
+
+    public void invalidateAll() {
+        shards.invalidateAll();
+    }
+}
@@ -10,4 +10,17 @@ import java.util.List;
  */
 public interface NoteSearchStrategy {
     List<Note> search(NoteRepository repository, String query, String userName);
+
+    /**
+     * Runs the same search over the Notes other users have shared with the user. Strategies
+     * whose index already covers shared Notes keep the default, which finds nothing.
+     *
+     * @param repository The repository for Note entities.
+     * @param query      The search query.
+     * @param userName   The user the Notes are shared with.
+     * @return The matching shared Notes.
+     */
+    default List<Note> searchShared(NoteRepository repository, String query, String userName) {
+        return List.of();
+    }
 }
@@ -2,32 +2,58 @@ package com.manjot.snapnote.service.search;
 
 import com.manjot.snapnote.model.enums.QueryType;
 
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.Map;
 
+import static com.manjot.snapnote.model.enums.QueryType.ALL;
 import static com.manjot.snapnote.model.enums.QueryType.CONTENT;
+import static com.manjot.snapnote.model.enums.QueryType.INDEXED;
 import static com.manjot.snapnote.model.enums.QueryType.LABEL;
+import static com.manjot.snapnote.model.enums.QueryType.LABEL_BITMAP;
+import static com.manjot.snapnote.model.enums.QueryType.TEXT;
+import static com.manjot.snapnote.model.enums.QueryType.TITLE;
 
 /**
- * Factory class responsible for creating and providing specific search strategies based on the given query type.
+ * Factory class responsible for creating the search strategy of each query type.
  */
-public class NoteSearchStrategyFactory {
-    // Mapping of QueryType to corresponding NoteSearchStrategy
-    private static final Map<QueryType, NoteSearchStrategy> strategies = new HashMap<>();
+public final class NoteSearchStrategyFactory {
+    private static final NoteSearchStrategy DEFAULT_STRATEGY = new DefaultSearchStrategy();
 
-    static {
-        // Initialize the map with default strategies for each QueryType
+    private NoteSearchStrategyFactory() {
+    }
+
+    /**
+     * Creates the strategies of every query type, including those that search through
+     * application components.
+     *
+     * @param searchIndex The in-process full-text index, for INDEXED searches.
+     * @param labelIndex  The label bitmap index, for LABEL_BITMAP searches.
+     * @param executor    The pool that runs the sub-queries of ALL searches.
+     * @return An unmodifiable map of QueryType to its NoteSearchStrategy.
+     */
+    public static Map<QueryType, NoteSearchStrategy> createStrategies(NoteSearchIndex searchIndex,
+                                                                      LabelBitmapIndex labelIndex,
+                                                                      ParallelSearchExecutor executor) {
+        Map<QueryType, NoteSearchStrategy> strategies = new EnumMap<>(QueryType.class);
         strategies.put(CONTENT, new ContentSearchStrategy());
+        strategies.put(TITLE, new TitleSearchStrategy());
         strategies.put(LABEL, new LabelSearchStrategy());
+        strategies.put(TEXT, new TextSearchStrategy());
+        strategies.put(INDEXED, new IndexedSearchStrategy(searchIndex));
+        strategies.put(LABEL_BITMAP, new LabelBitmapSearchStrategy(labelIndex));
+        strategies.put(ALL, new AllSearchStrategy(executor));
+        return Collections.unmodifiableMap(strategies);
     }
 
     /**
      * Gets the appropriate search strategy based on the provided QueryType.
      *
-     * @param queryType The type of search query.
+     * @param strategies The strategies created by {@link #createStrategies}.
+     * @param queryType  The type of search query.
      * @return The NoteSearchStrategy corresponding to the provided QueryType, or a default strategy if not found.
      */
-    public static NoteSearchStrategy getStrategy(QueryType queryType) {
-        return strategies.getOrDefault(queryType, new DefaultSearchStrategy());
+    public static NoteSearchStrategy getStrategy(Map<QueryType, NoteSearchStrategy> strategies, QueryType queryType) {
+        return strategies.getOrDefault(queryType, DEFAULT_STRATEGY);
     }
 }
@@ -0,0 +1,128 @@
+package com.manjot.snapnote.service.search;
+
+import com.manjot.snapnote.exception.ServiceUnavailableException;
+import com.manjot.snapnote.exception.SnapNoteServiceException;
+import com.manjot.snapnote.model.Note;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the sub-queries of a multi-field search concurrently on a bounded thread pool.
+ * <p>
+ * The pool caps how many sub-queries run against the database at once. When its queue is
+ * full the search fails straight away rather than running the sub-query on the request
+ * thread, where the deadline could not cut it short. All sub-queries of a search share one
+ * deadline; any still running when it passes are cancelled and the search fails. Both
+ * failures are reported as {@link ServiceUnavailableException}, so the client is told to
+ * retry rather than given a server error.
+ * <p>
+ * With spring.threads.virtual.enabled the pool runs its sub-queries on virtual threads; the
+ * pool size still caps how many run at once.
+ */
+@Component
+public class ParallelSearchExecutor {
+    private static final String THREAD_NAME_PREFIX = "search-all-";
+
+    private final ThreadPoolExecutor executor;
+
+    private final Duration timeout;
+
+    @Autowired
+    public ParallelSearchExecutor(@Value("${manjot.app.searchAllThreads:8}") int threads,
+                                  @Value("${manjot.app.searchAllQueueSize:64}") int queueSize,
+                                  @Value("${manjot.app.searchAllTimeout:2s}") Duration timeout,
+                                  MeterRegistry meterRegistry,
+                                  Environment environment) {
+        this.timeout = timeout;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                threadFactory(Threading.VIRTUAL.isActive(environment)),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "search.all");
+    }
+
+    private static ThreadFactory threadFactory(boolean virtual) {
+        if (virtual) {
+            return new VirtualThreadTaskExecutor(THREAD_NAME_PREFIX).getVirtualThreadFactory();
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs the searches concurrently and waits for all of them until the deadline.
+     *
+     * @param searches The sub-queries.
+     * @return Their results, in the order of the searches.
+     * @throws ServiceUnavailableException if the pool is saturated or the deadline passes first.
+     * @throws SnapNoteServiceException if a search fails.
+     */
+    List<List<Note>> invokeAll(List<Callable<List<Note>>> searches) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        List<Future<List<Note>>> futures = new ArrayList<>(searches.size());
+        try {
+            for (Callable<List<Note>> search : searches) {
+                futures.add(executor.submit(search));
+            }
+            List<List<Note>> results = new ArrayList<>(searches.size());
+            for (Future<List<Note>> future : futures) {
+                results.add(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            }
+            return results;
+        } catch (RejectedExecutionException e) {
+            throw new ServiceUnavailableException("Error: Search is overloaded, please retry", retryAfterSeconds());
+        } catch (TimeoutException e) {
+            throw new ServiceUnavailableException("Error: Search did not complete within " + timeout.toMillis() + " ms",
+                    retryAfterSeconds());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalArgumentException illegalArgument) {
+                throw illegalArgument;
+            }
+            throw new SnapNoteServiceException("Error occurred during note search." + e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SnapNoteServiceException("Error: Search was interrupted");
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * A saturated pool or a missed deadline clears once the searches holding it finish,
+     * which takes at most one deadline.
+     */
+    private long retryAfterSeconds() {
+        return Math.max(1, (timeout.toMillis() + 999) / 1000);
+    }
+}
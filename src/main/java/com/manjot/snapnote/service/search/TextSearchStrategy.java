@@ -0,0 +1,53 @@
+package com.manjot.snapnote.service.search;
+
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.repository.NoteRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+
+import java.util.List;
+
+/**
+ * Search strategy for relevance-ranked full-text search over content and labels.
+ * Queries run against the user-prefixed text index, so only the user's own index
+ * entries are examined, and results come back best match first.
+ */
+public class TextSearchStrategy implements NoteSearchStrategy {
+    /**
+     * Maximum number of Notes returned by a single search.
+     */
+    public static final int RESULT_LIMIT = 50;
+
+    /**
+     * Notes scoring below this are too weak a match to be worth returning.
+     */
+    public static final float MIN_SCORE = 0.5f;
+
+    /**
+     * Searches for Notes whose content or labels match the query terms, ranked by text score.
+     * Terms are stemmed and stop words ignored; quoted phrases and {@code -term} exclusions
+     * follow MongoDB's $text syntax.
+     *
+     * @param repository The repository for Note entities.
+     * @param query      The search query.
+     * @param userName   The username associated with the Notes.
+     * @return Up to {@link #RESULT_LIMIT} Notes scoring at least {@link #MIN_SCORE}, best match first.
+     */
+    @Override
+    public List<Note> search(NoteRepository repository, String query, String userName) {
+        TextCriteria criteria = TextCriteria.forDefaultLanguage().matching(query);
+        return aboveMinScore(repository.findByUserNameOrderByScoreDesc(userName, criteria, PageRequest.of(0, RESULT_LIMIT)));
+    }
+
+    @Override
+    public List<Note> searchShared(NoteRepository repository, String query, String userName) {
+        TextCriteria criteria = TextCriteria.forDefaultLanguage().matching(query);
+        return aboveMinScore(repository.findSharedWithByText(userName, criteria, RESULT_LIMIT));
+    }
+
+    private static List<Note> aboveMinScore(List<Note> rankedNotes) {
+        return rankedNotes.stream()
+                .takeWhile(note -> note.getScore() != null && note.getScore() >= MIN_SCORE)
+                .toList();
+    }
+}
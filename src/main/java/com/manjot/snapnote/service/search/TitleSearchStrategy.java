@@ -0,0 +1,31 @@
+package com.manjot.snapnote.service.search;
+
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.repository.NoteRepository;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Search strategy for searching Notes based on title.
+ */
+public class TitleSearchStrategy implements NoteSearchStrategy {
+    /**
+     * Searches for Notes whose title contains the given query and associated with a specific user.
+     *
+     * @param repository The repository for Note entities.
+     * @param query      The search query.
+     * @param userName   The username associated with the Notes.
+     * @return The list of Notes matching the search criteria.
+     */
+    @Override
+    public List<Note> search(NoteRepository repository, String query, String userName) {
+        return repository.findByTitleContainingAndUserName(query, userName);
+    }
+
+    @Override
+    public List<Note> searchShared(NoteRepository repository, String query, String userName) {
+        return repository.findSharedWith(userName, Criteria.where("title").regex(Pattern.quote(query)));
+    }
+}
@@ -0,0 +1,209 @@
+package com.manjot.snapnote.service.search;
+
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.service.search.LabelExpression.And;
+import com.manjot.snapnote.service.search.LabelExpression.Label;
+import com.manjot.snapnote.service.search.LabelExpression.Not;
+import com.manjot.snapnote.service.search.LabelExpression.Or;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Label index over the Notes of a single user.
+ * <p>
+ * Each distinct label is interned to a small int and owns a compressed bitmap of the
+ * ordinals of the Notes carrying it, so a label expression is evaluated with bitmap
+ * AND/OR/ANDNOT instead of per-note checks. Ordinals of deleted Notes are reused, which
+ * keeps the bitmaps dense.
+ */
+final class UserLabelShard {
+    // Rough heap costs used for the memory budget
+    private static final long SHARD_BYTES = 256;
+    private static final long LABEL_BYTES = 96;
+    private static final long DOC_BYTES = 64;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> labelIds = new HashMap<>();
+
+    private final List<RoaringBitmap> bitmaps = new ArrayList<>();
+
+    private final Map<String, Integer> ordinals = new HashMap<>();
+
+    // every ordinal currently holding a note; the universe NOT is evaluated against
+    private final RoaringBitmap live = new RoaringBitmap();
+
+    private final RoaringBitmap free = new RoaringBitmap();
+
+    private Note[] docs = new Note[16];
+
+    private int nextOrdinal;
+
+    static UserLabelShard build(Collection<Note> notes) {
+        UserLabelShard shard = new UserLabelShard();
+        notes.forEach(note -> shard.insert(NoteCopies.copyOf(note)));
+        shard.bitmaps.forEach(RoaringBitmap::runOptimize);
+        return shard;
+    }
+
+    /**
+     * Adds a Note, replacing the labels of any earlier version with the same ID.
+     */
+    void upsert(Note note) {
+        lock.writeLock().lock();
+        try {
+            Note copy = NoteCopies.copyOf(note);
+            Integer ordinal = ordinals.get(note.getId());
+            if (ordinal != null) {
+                clearLabels(ordinal);
+                docs[ordinal] = copy;
+                addLabels(ordinal, copy);
+            } else {
+                insert(copy);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void delete(String noteId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(noteId);
+            if (ordinal != null) {
+                clearLabels(ordinal);
+                docs[ordinal] = null;
+                live.remove(ordinal);
+                free.add(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns copies of the Notes matching the label expression.
+     */
+    List<Note> search(LabelExpression expression) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = evaluate(expression);
+            List<Note> result = new ArrayList<>(matches.getCardinality());
+            // most recently assigned ordinals first
+            IntIterator iterator = matches.getReverseIntIterator();
+            while (iterator.hasNext()) {
+                result.add(NoteCopies.copyOf(docs[iterator.next()]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Evaluates the expression to the bitmap of matching ordinals. The returned bitmap may be
+     * one of the shard's own and must not be modified.
+     */
+    RoaringBitmap evaluate(LabelExpression expression) {
+        if (expression instanceof Label label) {
+            Integer id = labelIds.get(label.name());
+            return id == null ? new RoaringBitmap() : bitmaps.get(id);
+        }
+        if (expression instanceof And and) {
+            return FastAggregation.and(operands(and.operands()));
+        }
+        if (expression instanceof Or or) {
+            return FastAggregation.or(operands(or.operands()));
+        }
+        return RoaringBitmap.andNot(live, evaluate(((Not) expression).operand()));
+    }
+
+    long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = SHARD_BYTES + live.getLongSizeInBytes() + free.getLongSizeInBytes()
+                    + (long) docs.length * 8 + ordinals.size() * DOC_BYTES;
+            for (Map.Entry<String, Integer> entry : labelIds.entrySet()) {
+                bytes += LABEL_BYTES + 2L * entry.getKey().length() + bitmaps.get(entry.getValue()).getLongSizeInBytes();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap[] operands(List<LabelExpression> expressions) {
+        RoaringBitmap[] operands = new RoaringBitmap[expressions.size()];
+        for (int i = 0; i < operands.length; i++) {
+            operands[i] = evaluate(expressions.get(i));
+        }
+        return operands;
+    }
+
+    /**
+     * Indexes a Note the shard owns; callers pass a copy.
+     */
+    private void insert(Note note) {
+        int ordinal;
+        if (free.isEmpty()) {
+            ordinal = nextOrdinal++;
+            if (ordinal == docs.length) {
+                docs = Arrays.copyOf(docs, ordinal * 2);
+            }
+        } else {
+            ordinal = free.first();
+            free.remove(ordinal);
+        }
+        docs[ordinal] = note;
+        ordinals.put(note.getId(), ordinal);
+        live.add(ordinal);
+        addLabels(ordinal, note);
+    }
+
+    private void addLabels(int ordinal, Note note) {
+        if (note.getLabelList() == null) {
+            return;
+        }
+        for (String label : new LinkedHashSet<>(note.getLabelList())) {
+            Integer id = labelIds.get(label);
+            if (id == null) {
+                id = bitmaps.size();
+                labelIds.put(label, id);
+                bitmaps.add(new RoaringBitmap());
+            }
+            bitmaps.get(id).add(ordinal);
+        }
+    }
+
+    private void clearLabels(int ordinal) {
+        List<String> labels = docs[ordinal].getLabelList();
+        if (labels == null) {
+            return;
+        }
+        for (String label : labels) {
+            Integer id = labelIds.get(label);
+            if (id != null) {
+                bitmaps.get(id).remove(ordinal);
+            }
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.manjot.snapnote.service.search;
+
+import com.manjot.snapnote.model.Note;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index over the Notes of a single user, scored with BM25.
+ * <p>
+ * Every Note gets an int ordinal in insertion order, so postings lists are plain sorted
+ * int arrays. Updates are applied as a delete plus an insert under a new ordinal; deleted
+ * ordinals are skipped at query time and reclaimed by rebuilding once they outnumber the
+ * live ones, whether they come from deletes or from repeated edits. Terms are kept in a sorted map so the last, possibly unfinished, word of a
+ * query can be expanded as a prefix.
+ */
+final class UserSearchShard {
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final float K1 = 1.2f;
+
+    private static final float B = 0.75f;
+
+    /**
+     * Upper bound on the number of dictionary terms a trailing prefix expands to.
+     */
+    static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private static final int MIN_COMPACTION_SIZE = 64;
+
+    // Rough heap costs used for the memory budget
+    private static final long SHARD_BYTES = 256;
+    private static final long DOC_BYTES = 96;
+    private static final long TERM_BYTES = 96;
+    private static final long POSTING_BYTES = 8;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> ordinals = new HashMap<>();
+
+    private final TreeMap<String, Postings> dictionary = new TreeMap<>();
+
+    private final BitSet deleted = new BitSet();
+
+    private Note[] docs = new Note[16];
+
+    private int[] docLengths = new int[16];
+
+    private int nextOrdinal;
+
+    private int liveDocs;
+
+    private long totalLength;
+
+    private long estimatedBytes = SHARD_BYTES;
+
+    static UserSearchShard build(Collection<Note> notes) {
+        UserSearchShard shard = new UserSearchShard();
+        notes.forEach(note -> shard.insert(NoteCopies.copyOf(note)));
+        return shard;
+    }
+
+    /**
+     * Adds a Note, replacing any earlier version with the same ID.
+     */
+    void upsert(Note note) {
+        lock.writeLock().lock();
+        try {
+            remove(note.getId());
+            insert(NoteCopies.copyOf(note));
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void delete(String noteId) {
+        lock.writeLock().lock();
+        try {
+            remove(noteId);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns copies of the highest scoring Notes for the query, best first.
+     */
+    List<Note> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        boolean expandLast = !Character.isWhitespace(query.charAt(query.length() - 1));
+
+        lock.readLock().lock();
+        try {
+            float[] scores = new float[nextOrdinal];
+            BitSet matched = new BitSet(nextOrdinal);
+            float avgLength = liveDocs == 0 ? 1f : (float) totalLength / liveDocs;
+
+            for (int i = 0; i < terms.size(); i++) {
+                String term = terms.get(i);
+                if (expandLast && i == terms.size() - 1) {
+                    NavigableMap<String, Postings> expansions = dictionary.subMap(term, true, term + Character.MAX_VALUE, false);
+                    int expanded = 0;
+                    for (Postings postings : expansions.values()) {
+                        if (expanded++ == MAX_PREFIX_EXPANSIONS) {
+                            break;
+                        }
+                        accumulate(postings, scores, matched, avgLength);
+                    }
+                } else {
+                    Postings postings = dictionary.get(term);
+                    if (postings != null) {
+                        accumulate(postings, scores, matched, avgLength);
+                    }
+                }
+            }
+            return topK(scores, matched, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private void accumulate(Postings postings, float[] scores, BitSet matched, float avgLength) {
+        float idf = (float) Math.log(1 + (liveDocs - postings.live + 0.5) / (postings.live + 0.5));
+        for (int i = 0; i < postings.size; i++) {
+            int doc = postings.docs[i];
+            if (deleted.get(doc)) {
+                continue;
+            }
+            int tf = postings.freqs[i];
+            float norm = K1 * (1 - B + B * docLengths[doc] / avgLength);
+            scores[doc] += idf * tf * (K1 + 1) / (tf + norm);
+            matched.set(doc);
+        }
+    }
+
+    private List<Note> topK(float[] scores, BitSet matched, int limit) {
+        // min-heap of the best ordinals so far; ties go to the newer note
+        PriorityQueue<Integer> heap = new PriorityQueue<>(limit + 1, (a, b) ->
+                scores[a] != scores[b] ? Float.compare(scores[a], scores[b]) : Integer.compare(a, b));
+        for (int doc = matched.nextSetBit(0); doc >= 0; doc = matched.nextSetBit(doc + 1)) {
+            heap.offer(doc);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        Note[] best = new Note[heap.size()];
+        for (int i = best.length - 1; i >= 0; i--) {
+            best[i] = NoteCopies.copyOf(docs[heap.poll()]);
+        }
+        return Arrays.asList(best);
+    }
+
+    /**
+     * Indexes a Note the shard owns; callers pass a copy.
+     */
+    private void insert(Note note) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = 0;
+        for (String field : indexedText(note)) {
+            for (String token : tokenize(field)) {
+                frequencies.merge(token, 1, Integer::sum);
+                length++;
+            }
+        }
+
+        int ordinal = nextOrdinal++;
+        if (ordinal == docs.length) {
+            docs = Arrays.copyOf(docs, ordinal * 2);
+            docLengths = Arrays.copyOf(docLengths, ordinal * 2);
+        }
+        docs[ordinal] = note;
+        docLengths[ordinal] = length;
+        ordinals.put(note.getId(), ordinal);
+        liveDocs++;
+        totalLength += length;
+        estimatedBytes += DOC_BYTES + textBytes(note);
+
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            Postings postings = dictionary.get(entry.getKey());
+            if (postings == null) {
+                postings = new Postings();
+                dictionary.put(entry.getKey(), postings);
+                estimatedBytes += TERM_BYTES + 2L * entry.getKey().length();
+            }
+            postings.add(ordinal, entry.getValue());
+            estimatedBytes += POSTING_BYTES;
+        }
+    }
+
+    private void remove(String noteId) {
+        Integer ordinal = ordinals.remove(noteId);
+        if (ordinal == null) {
+            return;
+        }
+        Note note = docs[ordinal];
+        for (String field : indexedText(note)) {
+            for (String token : tokenize(field)) {
+                Postings postings = dictionary.get(token);
+                if (postings != null && postings.lastRemoved != ordinal) {
+                    postings.lastRemoved = ordinal;
+                    if (--postings.live == 0) {
+                        dictionary.remove(token);
+                        estimatedBytes -= TERM_BYTES + 2L * token.length() + POSTING_BYTES * postings.size;
+                    }
+                }
+            }
+        }
+        deleted.set(ordinal);
+        docs[ordinal] = null;
+        liveDocs--;
+        totalLength -= docLengths[ordinal];
+        estimatedBytes -= DOC_BYTES + textBytes(note);
+    }
+
+    private void compactIfSparse() {
+        if (nextOrdinal - liveDocs > Math.max(liveDocs, MIN_COMPACTION_SIZE)) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        List<Note> live = new ArrayList<>(liveDocs);
+        for (int doc = 0; doc < nextOrdinal; doc++) {
+            if (docs[doc] != null) {
+                live.add(docs[doc]);
+            }
+        }
+        ordinals.clear();
+        dictionary.clear();
+        deleted.clear();
+        docs = new Note[Math.max(16, live.size())];
+        docLengths = new int[docs.length];
+        nextOrdinal = 0;
+        liveDocs = 0;
+        totalLength = 0;
+        estimatedBytes = SHARD_BYTES;
+        live.forEach(this::insert);
+    }
+
+    private static List<String> indexedText(Note note) {
+        List<String> fields = new ArrayList<>();
+        fields.add(note.getTitle());
+        fields.add(note.getContent());
+        if (note.getLabelList() != null) {
+            fields.addAll(note.getLabelList());
+        }
+        return fields;
+    }
+
+    private static long textBytes(Note note) {
+        long chars = 0;
+        for (String field : indexedText(note)) {
+            chars += field == null ? 0 : field.length();
+        }
+        return 2 * chars;
+    }
+
+    /**
+     * Ordinals of the Notes containing a term, ascending, with the term frequency of each.
+     */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int[] freqs = new int[4];
+        private int size;
+        // documents that still contain the term
+        private int live;
+        // guards against decrementing twice for a term repeated within one removed note
+        private int lastRemoved = -1;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+            live++;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.manjot.snapnote;
+
+import com.manjot.snapnote.configuration.VirtualThreadPinningMonitor;
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.security.jwt.JwtUtils;
+import com.manjot.snapnote.security.services.UserDetailsImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares GET /api/notes?size=20 on the platform-thread Tomcat pool with the same endpoint
+ * on virtual threads, against a real mongod. Every request reads the notes generation and a
+ * page of notes through the Mongo driver and takes its token from a Bucket4j bucket stored in
+ * Mongo, so the run measures the blocking calls the application actually makes. In virtual
+ * thread mode the {@link VirtualThreadPinningMonitor} reports where those calls pin their
+ * carrier thread.
+ * <p>
+ * The results, including the pinning seen in virtual thread mode, are written to
+ * target/threading-mode-benchmark.txt. Needs JDK 21 and a local mongod:
+ * mvn test -Dtest=ThreadingModeBenchmarkTest -Dsnapnote.bench=true
+ * [-Dsnapnote.mongo.uri=mongodb://localhost:27017] [-Dsnapnote.bench.concurrency=1000] [-Dsnapnote.bench.requests=20000]
+ */
+@EnabledIfSystemProperty(named = "snapnote.bench", matches = "true")
+@EnabledForJreRange(min = JRE.JAVA_21)
+class ThreadingModeBenchmarkTest {
+
+    private static final String DATABASE = "SnapNoteBench";
+
+    private static final Path RESULTS = Path.of("target", "threading-mode-benchmark.txt");
+
+    private static final int CONCURRENCY = Integer.getInteger("snapnote.bench.concurrency", 1000);
+
+    private static final int REQUESTS = Integer.getInteger("snapnote.bench.requests", 20_000);
+
+    private static final int NOTES = 50;
+
+    @Test
+    void compareThreadingModes() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("%d requests, %d concurrent, GET /api/notes?size=20 against %s",
+                REQUESTS, CONCURRENCY, mongoUri()));
+        lines.add(String.format("%-10s %12s %10s %10s %8s %8s %12s",
+                "threads", "requests/s", "p50 ms", "p99 ms", "errors", "pinned", "pinned ms"));
+        for (Result result : List.of(platform, virtual)) {
+            lines.add(String.format("%-10s %12.0f %10.1f %10.1f %8d %8d %12.1f", result.mode(), result.throughput(),
+                    result.p50Millis(), result.p99Millis(), result.errors(), result.pinnedCount(), result.pinnedMillis()));
+        }
+        Files.createDirectories(RESULTS.getParent());
+        Files.write(RESULTS, lines);
+
+        assertThat(platform.errors()).isZero();
+        assertThat(virtual.errors()).isZero();
+        assertThat(platform.monitored()).isFalse();
+        assertThat(virtual.monitored()).isTrue();
+    }
+
+    private static String mongoUri() {
+        return System.getProperty("snapnote.mongo.uri", "mongodb://localhost:27017");
+    }
+
+    private static Result run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SnapnoteApplication.class)
+                .properties("server.port=0",
+                        "spring.data.mongodb.uri=" + mongoUri(),
+                        "spring.data.mongodb.database=" + DATABASE,
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "manjot.app.jwtClaimsOnly=true",
+                        "manjot.app.rate-limit.distributed.enabled=true",
+                        "manjot.app.rate-limit.policies.read.capacity=" + Long.MAX_VALUE / 2,
+                        "manjot.app.rate-limit.policies.read.refill-tokens=" + Long.MAX_VALUE / 2)
+                .run()) {
+            MongoTemplate mongoTemplate = context.getBean(MongoTemplate.class);
+            seed(mongoTemplate);
+            try {
+                String port = context.getEnvironment().getProperty("local.server.port");
+                HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/notes?size=20"))
+                        .header("Authorization", "Bearer " + token(context.getBean(JwtUtils.class)))
+                        .GET()
+                        .build();
+                HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+                load(client, request, REQUESTS / 10);
+                Timer pinned = context.getBean(MeterRegistry.class).find("snapnote.threads.virtual.pinned").timer();
+                long pinnedBefore = pinned == null ? 0 : pinned.count();
+                double pinnedMillisBefore = pinned == null ? 0 : pinned.totalTime(TimeUnit.MILLISECONDS);
+                Result result = load(client, request, REQUESTS);
+                return new Result(virtualThreads ? "virtual" : "platform", result.throughput(), result.p50Millis(),
+                        result.p99Millis(), result.errors(),
+                        !context.getBeansOfType(VirtualThreadPinningMonitor.class).isEmpty(),
+                        pinned == null ? 0 : pinned.count() - pinnedBefore,
+                        pinned == null ? 0 : pinned.totalTime(TimeUnit.MILLISECONDS) - pinnedMillisBefore);
+            } finally {
+                mongoTemplate.getDb().drop();
+            }
+        }
+    }
+
+    private static void seed(MongoTemplate mongoTemplate) {
+        mongoTemplate.getDb().drop();
+        LocalDateTime now = LocalDateTime.now();
+        List<Note> notes = new ArrayList<>();
+        for (int i = 0; i < NOTES; i++) {
+            notes.add(Note.builder().userName("bench").title("Title " + i).content("Content " + i)
+                    .labelList(List.of("bench")).createdAt(now.minusMinutes(i)).build());
+        }
+        mongoTemplate.insertAll(notes);
+    }
+
+    private static String token(JwtUtils jwtUtils) {
+        UserDetailsImpl principal = new UserDetailsImpl("bench-id", "bench", "bench@example.com", null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        return jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    private static Result load(HttpClient client, HttpRequest request, int requests) throws InterruptedException {
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY);
+        long start = System.nanoTime();
+        for (int i = 0; i < CONCURRENCY; i++) {
+            clients.execute(() -> {
+                for (int n = next.getAndIncrement(); n < requests; n = next.getAndIncrement()) {
+                    long sent = System.nanoTime();
+                    try {
+                        if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    latencies[n] = System.nanoTime() - sent;
+                }
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(10, TimeUnit.MINUTES);
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        return new Result(null, requests / (elapsed / 1e9), percentile(latencies, 0.50), percentile(latencies, 0.99),
+                errors.get(), false, 0, 0);
+    }
+
+    private static double percentile(long[] sortedNanos, double quantile) {
+        return sortedNanos[(int) Math.min(sortedNanos.length - 1, Math.ceil(quantile * sortedNanos.length) - 1)] / 1e6;
+    }
+
+    private record Result(String mode, double throughput, double p50Millis, double p99Millis, int errors,
+                          boolean monitored, long pinnedCount, double pinnedMillis) {
+    }
+}
@@ -0,0 +1,216 @@
+package com.manjot.snapnote.aspect;
+
+import com.manjot.snapnote.annotation.RateLimited;
+import com.manjot.snapnote.controller.AuthController;
+import com.manjot.snapnote.controller.NoteController;
+import com.manjot.snapnote.configuration.RateLimitProperties;
+import com.manjot.snapnote.exception.RateLimitException;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class RateLimitingAspectTest {
+
+    private RateLimitingAspect aspect;
+
+    private RateLimited rateLimited;
+
+    private RateLimitProperties properties;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        properties = new RateLimitProperties();
+        aspect = new RateLimitingAspect(properties, Optional.empty());
+        rateLimited = annotation("defaultPolicy");
+    }
+
+    @RateLimited
+    private void defaultPolicy() {
+    }
+
+    @RateLimited("search")
+    private void searchPolicy() {
+    }
+
+    @RateLimited(capacity = 2, refillTokens = 2, refillPeriodSeconds = 60)
+    private void inlinePolicy() {
+    }
+
+    @RateLimited(bucket = "NoteController.getAllNotes")
+    private void sharedBucket() {
+    }
+
+    private RateLimited annotation(String method) throws NoSuchMethodException {
+        return RateLimitingAspectTest.class.getDeclaredMethod(method).getAnnotation(RateLimited.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private ProceedingJoinPoint joinPoint(Class<?> type, String method) throws Throwable {
+        Signature signature = mock(Signature.class);
+        when(signature.getDeclaringType()).thenReturn(type);
+        when(signature.getName()).thenReturn(method);
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.proceed()).thenReturn("ok");
+        return joinPoint;
+    }
+
+    private void authenticate(String username, String... roles) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(username, null,
+                Arrays.stream(roles).map(SimpleGrantedAuthority::new).toList()));
+    }
+
+    private int consumeUntilLimited(ProceedingJoinPoint joinPoint, RateLimited limit) {
+        int allowed = 0;
+        try {
+            while (allowed < 1000) {
+                aspect.checkRateLimit(joinPoint, limit);
+                allowed++;
+            }
+        } catch (Throwable e) {
+            assertThat(e).isInstanceOf(RateLimitException.class);
+        }
+        return allowed;
+    }
+
+    private void exhaust(ProceedingJoinPoint joinPoint) throws Throwable {
+        for (int i = 0; i < 10; i++) {
+            assertThat(aspect.checkRateLimit(joinPoint, rateLimited)).isEqualTo("ok");
+        }
+    }
+
+    @Test
+    void checkRateLimit_ExceededForPrincipal() throws Throwable {
+        ProceedingJoinPoint joinPoint = joinPoint(NoteController.class, "getAllNotes");
+        authenticate("alice");
+        exhaust(joinPoint);
+
+        assertThatThrownBy(() -> aspect.checkRateLimit(joinPoint, rateLimited))
+                .isInstanceOf(RateLimitException.class);
+    }
+
+    @Test
+    void checkRateLimit_SeparateBucketsPerPrincipal() throws Throwable {
+        ProceedingJoinPoint joinPoint = joinPoint(NoteController.class, "getAllNotes");
+        authenticate("alice");
+        exhaust(joinPoint);
+
+        authenticate("bob");
+
+        assertThat(aspect.checkRateLimit(joinPoint, rateLimited)).isEqualTo("ok");
+    }
+
+    @Test
+    void checkRateLimit_SeparateBucketsPerEndpoint() throws Throwable {
+        authenticate("alice");
+        exhaust(joinPoint(NoteController.class, "getAllNotes"));
+
+        assertThat(aspect.checkRateLimit(joinPoint(NoteController.class, "getNoteById"), rateLimited))
+                .isEqualTo("ok");
+    }
+
+    @Test
+    void checkRateLimit_NamedBucketSharedAcrossEndpoints() throws Throwable {
+        authenticate("alice");
+        exhaust(joinPoint(NoteController.class, "getAllNotes"));
+
+        assertThatThrownBy(() -> aspect.checkRateLimit(joinPoint(RateLimitingAspectTest.class, "sharedBucket"), annotation("sharedBucket")))
+                .isInstanceOf(RateLimitException.class);
+    }
+
+    @Test
+    void checkRateLimit_AuthEndpointsKeyedByClientIp() throws Throwable {
+        ProceedingJoinPoint joinPoint = joinPoint(AuthController.class, "authenticateUser");
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setServletPath("/api/auth/login");
+        request.setRemoteAddr("10.0.0.1");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        exhaust(joinPoint);
+
+        assertThatThrownBy(() -> aspect.checkRateLimit(joinPoint, rateLimited))
+                .isInstanceOf(RateLimitException.class);
+
+        request.setRemoteAddr("10.0.0.2");
+        assertThat(aspect.checkRateLimit(joinPoint, rateLimited)).isEqualTo("ok");
+    }
+
+    @Test
+    void checkRateLimit_NamedPolicyFromProperties() throws Throwable {
+        RateLimitProperties.Policy search = new RateLimitProperties.Policy();
+        search.setCapacity(3);
+        search.setRefillTokens(3);
+        search.setBurst(2);
+        properties.getPolicies().put("search", search);
+        authenticate("alice");
+
+        int allowed = consumeUntilLimited(joinPoint(NoteController.class, "searchNotes"), annotation("searchPolicy"));
+
+        assertThat(allowed).isEqualTo(5);
+    }
+
+    @Test
+    void checkRateLimit_AnnotationAttributesOverridePolicy() throws Throwable {
+        authenticate("alice");
+
+        int allowed = consumeUntilLimited(joinPoint(NoteController.class, "createNote"), annotation("inlinePolicy"));
+
+        assertThat(allowed).isEqualTo(2);
+    }
+
+    @Test
+    void checkRateLimit_RoleTierScalesBudget() throws Throwable {
+        properties.getTiers().put("ROLE_ADMIN", 3.0);
+        authenticate("admin", "ROLE_USER", "ROLE_ADMIN");
+
+        int allowed = consumeUntilLimited(joinPoint(NoteController.class, "getAllNotes"), rateLimited);
+
+        assertThat(allowed).isEqualTo(30);
+    }
+
+    @Test
+    void checkRateLimit_ExceptionCarriesBackOffDetails() throws Throwable {
+        ProceedingJoinPoint joinPoint = joinPoint(NoteController.class, "getAllNotes");
+        authenticate("alice");
+        exhaust(joinPoint);
+
+        assertThatThrownBy(() -> aspect.checkRateLimit(joinPoint, rateLimited))
+                .isInstanceOfSatisfying(RateLimitException.class, e -> {
+                    assertThat(e.getRetryAfterSeconds()).isBetween(1L, 60L);
+                    assertThat(e.getRemainingTokens()).isZero();
+                });
+    }
+
+    @Test
+    void checkRateLimit_SetsRemainingHeader() throws Throwable {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/notes");
+        request.setServletPath("/api/notes");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        authenticate("alice");
+
+        aspect.checkRateLimit(joinPoint(NoteController.class, "getAllNotes"), rateLimited);
+
+        assertThat(response.getHeader(RateLimitingAspect.REMAINING_HEADER)).isEqualTo("9");
+    }
+}
@@ -2,14 +2,17 @@ package com.manjot.snapnote.controller;
 
 import com.manjot.snapnote.dto.authentication.request.LoginRequest;
 import com.manjot.snapnote.dto.authentication.request.SignupRequest;
+import com.manjot.snapnote.dto.authentication.request.UpdateRolesRequest;
 import com.manjot.snapnote.dto.authentication.response.JwtResponse;
 import com.manjot.snapnote.dto.authentication.response.MessageResponse;
+import com.manjot.snapnote.exception.ResourceNotFoundException;
 import com.manjot.snapnote.model.Role;
 import com.manjot.snapnote.model.User;
 import com.manjot.snapnote.model.enums.ERole;
 import com.manjot.snapnote.repository.RoleRepository;
 import com.manjot.snapnote.repository.UserRepository;
 import com.manjot.snapnote.security.jwt.JwtUtils;
+import com.manjot.snapnote.security.services.UserAccountService;
 import com.manjot.snapnote.security.services.UserDetailsImpl;
 import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
@@ -27,6 +30,8 @@ import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class AuthControllerTest {
@@ -49,6 +54,9 @@ class AuthControllerTest {
     @Mock
     private Validator validator;
 
+    @Mock
+    private UserAccountService userAccountService;
+
     @InjectMocks
     private AuthController authController;
 
@@ -194,4 +202,36 @@ class AuthControllerTest {
         verify(userRepository, times(1)).existsByUsername("username");
     }
 
-}
\ No newline at end of file
+    @Test
+    void revokeTokens_Success() {
+        Authentication authentication = mock(Authentication.class);
+        when(authentication.getName()).thenReturn("username");
+
+        ResponseEntity<?> responseEntity = authController.revokeTokens(authentication);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        verify(userAccountService, times(1)).revokeTokens("username");
+    }
+
+    @Test
+    void updateRoles_Success() {
+        when(roleRepository.findByName(ERole.ROLE_MODERATOR)).thenReturn(Optional.of(new Role(ERole.ROLE_MODERATOR)));
+
+        ResponseEntity<?> responseEntity = authController.updateRoles("username",
+                UpdateRolesRequest.builder().role(Set.of("mod")).build());
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        verify(userAccountService, times(1)).updateRoles(eq("username"), argThat(roles -> roles.size() == 1));
+    }
+
+    @Test
+    void updateRoles_UnknownUser() {
+        when(roleRepository.findByName(ERole.ROLE_USER)).thenReturn(Optional.of(new Role(ERole.ROLE_USER)));
+        when(userAccountService.updateRoles(eq("nobody"), any())).thenThrow(new ResourceNotFoundException("Error: Invalid User ID, not found!"));
+
+        ResponseEntity<?> responseEntity = authController.updateRoles("nobody",
+                UpdateRolesRequest.builder().role(Set.of("user")).build());
+
+        assertEquals(HttpStatus.NOT_FOUND, responseEntity.getStatusCode());
+    }
+}
@@ -1,10 +1,26 @@
 package com.manjot.snapnote.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.manjot.snapnote.dto.note.BulkShareRequest;
+import com.manjot.snapnote.dto.note.NoteBatchOperationDTO;
+import com.manjot.snapnote.dto.note.NoteBatchRequest;
 import com.manjot.snapnote.dto.note.NoteDTO;
+import com.manjot.snapnote.dto.note.NotePageDTO;
+import com.manjot.snapnote.exception.NoteConflictException;
 import com.manjot.snapnote.exception.ResourceNotFoundException;
 import com.manjot.snapnote.exception.SnapNoteServiceException;
+import com.manjot.snapnote.model.BatchOperation;
+import com.manjot.snapnote.model.BatchResult;
+import com.manjot.snapnote.model.LabelCount;
 import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.model.ShareResult;
+import com.manjot.snapnote.model.enums.EBatchAction;
+import com.manjot.snapnote.model.enums.EBatchStatus;
+import com.manjot.snapnote.model.enums.ESharePermission;
+import com.manjot.snapnote.model.enums.EShareStatus;
 import com.manjot.snapnote.model.enums.QueryType;
+import com.manjot.snapnote.service.note.NoteJson;
+import com.manjot.snapnote.service.note.NotePage;
 import com.manjot.snapnote.service.note.NoteService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,12 +28,21 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import static com.manjot.snapnote.dto.note.NoteDTOMapper.mapToNoteDTO;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -27,6 +52,9 @@ public class NoteControllerTest {
     @Mock
     private NoteService noteService;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
     @InjectMocks
     private NoteController noteController;
 
@@ -76,27 +104,119 @@ public class NoteControllerTest {
     }
 
     @Test
-    void getAllNotes_Success() {
+    void getAllNotes_StreamsEveryNoteAsJsonArray() throws Exception {
+        Note first = Note.builder().id("1").userName("user").title("First").build();
+        Note second = Note.builder().id("2").userName("owner").title("Shared").build();
+        when(request.getAttribute("userName")).thenReturn("user");
+        when(noteService.getNotesGeneration("user")).thenReturn(7L);
+        when(noteService.streamAllNotes("user")).thenReturn(Stream.of(first, second));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        noteController.getAllNotes(request, response);
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getContentType()).startsWith(MediaType.APPLICATION_JSON_VALUE);
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"notes-7\"");
+        NoteDTO[] notes = objectMapper.readValue(response.getContentAsString(), NoteDTO[].class);
+        assertThat(notes).extracting(NoteDTO::getId).containsExactly("1", "2");
+        verify(noteService, never()).getNotesPage(any(), any(), any());
+    }
+
+    @Test
+    void getAllNotes_EmptyArray() throws Exception {
+        when(request.getAttribute("userName")).thenReturn("user");
+        when(noteService.streamAllNotes("user")).thenReturn(Stream.empty());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        noteController.getAllNotes(request, response);
+
+        assertThat(response.getContentAsString()).isEqualTo("[]");
+    }
+
+    @Test
+    void getNotesPage_Page() {
         Note note = new Note();
         when(request.getAttribute("userName")).thenReturn("user");
-        when(noteService.getAllNotes(any())).thenReturn(List.of(note));
+        when(noteService.getNotesPage(eq("user"), eq("cursor"), eq(10))).thenReturn(new NotePage(List.of(note), "next"));
 
-        ResponseEntity<?> response = noteController.getAllNotes(request);
+        ResponseEntity<?> response = noteController.getNotesPage("cursor", 10, request);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
-        assertThat(response.getBody()).isInstanceOf(List.class);
-        verify(noteService, times(1)).getAllNotes(any());
+        assertThat(response.getBody()).isInstanceOf(NotePageDTO.class);
+        NotePageDTO page = (NotePageDTO) response.getBody();
+        assertThat(page.getNotes()).hasSize(1);
+        assertThat(page.getNextCursor()).isEqualTo("next");
     }
 
     @Test
-    void getAllNotes_Error() {
+    void getNotesPage_InvalidCursor() {
         when(request.getAttribute("userName")).thenReturn("user");
-        when(noteService.getAllNotes(any())).thenThrow(ResourceNotFoundException.class);
+        when(noteService.getNotesPage(any(), any(), any())).thenThrow(new IllegalArgumentException("Invalid page cursor"));
 
-        ResponseEntity<?> response = noteController.getAllNotes(request);
-        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        ResponseEntity<?> response = noteController.getNotesPage("bad", null, request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
 
-        verify(noteService, times(1)).getAllNotes(any());
+    @Test
+    void exportNotes_WritesOneJsonObjectPerLine() throws Exception {
+        Note first = Note.builder().id("1").userName("user").title("First")
+                .createdAt(LocalDateTime.of(2024, 1, 2, 3, 4)).build();
+        Note second = Note.builder().id("2").userName("user").title("Second")
+                .createdAt(LocalDateTime.of(2024, 1, 1, 3, 4)).build();
+        when(request.getAttribute("userName")).thenReturn("user");
+        when(noteService.streamAllNotes("user")).thenReturn(Stream.of(first, second));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        noteController.exportNotes(request, response);
+
+        assertThat(response.getContentType()).startsWith(NoteController.NDJSON_MEDIA_TYPE);
+        String[] lines = response.getContentAsString().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readValue(lines[0], NoteDTO.class).getTitle()).isEqualTo("First");
+        assertThat(objectMapper.readValue(lines[1], NoteDTO.class).getId()).isEqualTo("2");
+    }
+
+    @Test
+    void exportNotes_WritesExactLines() throws Exception {
+        Note first = Note.builder().id("1").userName("user").title("First").build();
+        Note second = Note.builder().id("2").userName("user").title("Second").build();
+        Note third = Note.builder().id("3").userName("user").title("Third").build();
+        when(request.getAttribute("userName")).thenReturn("user");
+        when(noteService.streamAllNotes("user")).thenReturn(Stream.of(first, second, third));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        noteController.exportNotes(request, response);
+
+        String expected = objectMapper.writeValueAsString(mapToNoteDTO(first)) + "\n"
+                + objectMapper.writeValueAsString(mapToNoteDTO(second)) + "\n"
+                + objectMapper.writeValueAsString(mapToNoteDTO(third)) + "\n";
+        assertThat(response.getContentAsByteArray()).isEqualTo(expected.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exportNotes_ClosesStream() throws Exception {
+        boolean[] closed = {false};
+        when(request.getAttribute("userName")).thenReturn("user");
+        when(noteService.streamAllNotes("user")).thenReturn(Stream.<Note>empty().onClose(() -> closed[0] = true));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        noteController.exportNotes(request, response);
+
+        assertThat(response.getContentAsString()).isEmpty();
+        assertThat(closed[0]).isTrue();
+    }
+
+    @Test
+    void getLabelCounts_Success() {
+        List<LabelCount> counts = List.of(new LabelCount("math", 3), new LabelCount("pending", 1));
+        when(request.getAttribute("userName")).thenReturn("user");
+        when(noteService.getLabelCounts("user")).thenReturn(counts);
+
+        ResponseEntity<List<LabelCount>> response = noteController.getLabelCounts(request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(counts);
     }
 
     @Test
@@ -128,6 +248,103 @@ public class NoteControllerTest {
         verify(noteService, times(1)).updateNote(any(), any(), any());
     }
 
+    @Test
+    void patchNote_Conflict() {
+        when(request.getAttribute("userName")).thenReturn("user");
+        when(noteService.patchNote(any(), any(), any())).thenThrow(new NoteConflictException("conflict"));
+
+        ResponseEntity<?> response = noteController.patchNote("noteId", NoteDTO.builder().title("t").version(2L).build(), request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void patchNote_Success() {
+        when(request.getAttribute("userName")).thenReturn("user");
+        Note patched = Note.builder().id("noteId").title("t").version(3L).build();
+        when(noteService.patchNote(any(), any(), any())).thenReturn(patched);
+
+        ResponseEntity<?> response = noteController.patchNote("noteId", NoteDTO.builder().title("t").version(2L).build(), request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(((NoteDTO) response.getBody()).getVersion()).isEqualTo(3L);
+        verify(noteService).patchNote(eq("noteId"), eq("user"), argThat(note -> note.getVersion() == 2L && note.getContent() == null));
+    }
+
+    @Test
+    void getNoteById_NotModified() {
+        when(request.getAttribute("userName")).thenReturn("user");
+        when(request.getHeader("If-None-Match")).thenReturn("\"note-4\"");
+        when(noteService.getNoteVersion("noteId", "user")).thenReturn(4L);
+
+        ResponseEntity<?> response = noteController.getNoteById("noteId", request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"note-4\"");
+        verify(noteService, never()).getNoteById(any(), any());
+    }
+
+    @Test
+    void getNoteById_ChangedSinceETag() {
+        when(request.getAttribute("userName")).thenReturn("user");
+        when(request.getHeader("If-None-Match")).thenReturn("\"note-3\"");
+        when(noteService.getNoteVersion("noteId", "user")).thenReturn(4L);
+        when(noteService.getNoteById("noteId", "user")).thenReturn(Note.builder().id("noteId").version(4L).build());
+
+        ResponseEntity<?> response = noteController.getNoteById("noteId", request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"note-4\"");
+    }
+
+    @Test
+    void getNoteById_WritesCachedJson() {
+        byte[] json = "{\"id\":\"noteId\"}".getBytes(StandardCharsets.UTF_8);
+        when(request.getAttribute("userName")).thenReturn("user");
+        when(noteService.getCachedNoteJson("noteId", "user")).thenReturn(Optional.of(new NoteJson("noteId", 4L, json)));
+
+        ResponseEntity<?> response = noteController.getNoteById("noteId", request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"note-4\"");
+        assertThat(response.getBody()).isSameAs(json);
+        verify(noteService, never()).getNoteById(any(), any());
+    }
+
+    @Test
+    void getAllNotes_NotModified() throws Exception {
+        when(request.getAttribute("userName")).thenReturn("user");
+        when(request.getHeader("If-None-Match")).thenReturn("W/\"notes-12\"");
+        when(noteService.getNotesGeneration("user")).thenReturn(12L);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        noteController.getAllNotes(request, response);
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        assertThat(response.getContentAsString()).isEmpty();
+        verify(noteService, never()).streamAllNotes(any());
+    }
+
+    @Test
+    void getNotesPage_NotModified() {
+        when(request.getAttribute("userName")).thenReturn("user");
+        when(request.getHeader("If-None-Match")).thenReturn("W/\"notes-12\"");
+        when(noteService.getNotesGeneration("user")).thenReturn(12L);
+
+        ResponseEntity<?> response = noteController.getNotesPage("cursor", null, request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        verify(noteService, never()).getNotesPage(any(), any(), any());
+    }
+
+    @Test
+    void eTagMatches_HandlesListsWeakTagsAndWildcard() {
+        assertThat(NoteController.eTagMatches("\"a\", W/\"notes-1\"", "\"notes-1\"")).isTrue();
+        assertThat(NoteController.eTagMatches("*", "\"notes-1\"")).isTrue();
+        assertThat(NoteController.eTagMatches("\"notes-2\"", "\"notes-1\"")).isFalse();
+    }
+
     @Test
     void deleteNoteById_Success() {
         String noteId = "noteId";
@@ -157,11 +374,11 @@ public class NoteControllerTest {
         String recipientUsername = "recipientUsername";
         when(request.getAttribute("userName")).thenReturn("user");
 
-        ResponseEntity<?> response = noteController.shareNoteWithUser(noteId, recipientUsername, request);
+        ResponseEntity<?> response = noteController.shareNoteWithUser(noteId, recipientUsername, ESharePermission.READ, request);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isEqualTo("Note shared successfully.");
-        verify(noteService, times(1)).shareNoteWithUser(any(), any(), any());
+        verify(noteService, times(1)).shareNoteWithUser(any(), any(), any(), any());
     }
 
     @Test
@@ -170,11 +387,21 @@ public class NoteControllerTest {
         String recipientUsername = "recipientUsername";
         when(request.getAttribute("userName")).thenReturn("user");
 
-        doThrow(ResourceNotFoundException.class).when(noteService).shareNoteWithUser(any(), any(), any());
+        doThrow(ResourceNotFoundException.class).when(noteService).shareNoteWithUser(any(), any(), any(), any());
 
-        ResponseEntity<?> response = noteController.shareNoteWithUser(noteId, "username", request);
+        ResponseEntity<?> response = noteController.shareNoteWithUser(noteId, "username", ESharePermission.READ, request);
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
-        verify(noteService, times(1)).shareNoteWithUser(any(), any(), any());
+        verify(noteService, times(1)).shareNoteWithUser(any(), any(), any(), any());
+    }
+
+    @Test
+    void shareNoteWithUser_WithOwner() {
+        when(request.getAttribute("userName")).thenReturn("user");
+
+        doThrow(new IllegalArgumentException("self")).when(noteService).shareNoteWithUser(any(), any(), any(), any());
+
+        ResponseEntity<?> response = noteController.shareNoteWithUser("noteId", "user", ESharePermission.READ, request);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
     }
 
     @Test
@@ -183,12 +410,53 @@ public class NoteControllerTest {
         String recipientUsername = "recipientUsername";
         when(request.getAttribute("userName")).thenReturn("user");
 
-        doThrow(SnapNoteServiceException.class).when(noteService).shareNoteWithUser(any(), any(), any());
+        doThrow(SnapNoteServiceException.class).when(noteService).shareNoteWithUser(any(), any(), any(), any());
 
-        ResponseEntity<?> response = noteController.shareNoteWithUser(noteId, "username", request);
+        ResponseEntity<?> response = noteController.shareNoteWithUser(noteId, "username", ESharePermission.READ, request);
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
-        verify(noteService, times(1)).shareNoteWithUser(any(), any(), any());
+        verify(noteService, times(1)).shareNoteWithUser(any(), any(), any(), any());
     }
+    @Test
+    void shareNoteWithUsers_Success() {
+        when(request.getAttribute("userName")).thenReturn("user");
+        List<ShareResult> results = List.of(new ShareResult("a", EShareStatus.SHARED),
+                new ShareResult("b", EShareStatus.USER_NOT_FOUND));
+        when(noteService.shareNoteWithUsers("noteId", "user", List.of("a", "b"), ESharePermission.READ)).thenReturn(results);
+
+        ResponseEntity<?> response = noteController.shareNoteWithUsers("noteId",
+                BulkShareRequest.builder().recipientUsernames(List.of("a", "b")).build(), request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(results);
+    }
+
+    @Test
+    void shareNoteWithUsers_TooManyRecipients() {
+        when(request.getAttribute("userName")).thenReturn("user");
+        when(noteService.shareNoteWithUsers(any(), any(), any(), any())).thenThrow(new IllegalArgumentException("too many"));
+
+        ResponseEntity<?> response = noteController.shareNoteWithUsers("noteId", new BulkShareRequest(), request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void applyBatch_Success() {
+        when(request.getAttribute("userName")).thenReturn("user");
+        List<BatchResult> results = List.of(new BatchResult(0, EBatchAction.DELETE, "n1", EBatchStatus.DELETED));
+        when(noteService.applyBatch(eq("user"), any(), eq(false))).thenReturn(results);
+        NoteBatchRequest batchRequest = NoteBatchRequest.builder()
+                .ordered(false)
+                .operations(List.of(NoteBatchOperationDTO.builder().action(EBatchAction.DELETE).id("n1").build()))
+                .build();
+
+        ResponseEntity<?> response = noteController.applyBatch(batchRequest, request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(results);
+        verify(noteService).applyBatch("user", List.of(new BatchOperation(EBatchAction.DELETE, "n1", null)), false);
+    }
+
     @Test
     void searchNotes_Success() {
         String q = "query";
@@ -216,4 +484,15 @@ public class NoteControllerTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
         verify(noteService, times(1)).searchNotes(any(), any(), any());
     }
+
+    @Test
+    void searchNotes_InvalidLabelExpression() {
+        when(request.getAttribute("userName")).thenReturn("user");
+        when(noteService.searchNotes("math AND", QueryType.LABEL, "user"))
+                .thenThrow(new IllegalArgumentException("Expected a label at the end of the expression"));
+
+        ResponseEntity<?> response = noteController.searchNotes("math AND", QueryType.LABEL, request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
 }
@@ -0,0 +1,114 @@
+package com.manjot.snapnote.controller;
+
+import com.manjot.snapnote.annotation.RateLimited;
+import com.manjot.snapnote.dto.note.NoteDTO;
+import com.manjot.snapnote.exception.ResourceNotFoundException;
+import com.manjot.snapnote.exception.ServiceUnavailableException;
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.model.enums.QueryType;
+import com.manjot.snapnote.service.note.ReactiveNoteService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.publisher.TestPublisher;
+import reactor.test.StepVerifier;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+class NoteV2ControllerTest {
+
+    @Mock
+    private ReactiveNoteService reactiveNoteService;
+
+    private NoteV2Controller noteV2Controller;
+
+    @Mock
+    private HttpServletRequest request;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        noteV2Controller = new NoteV2Controller(reactiveNoteService, 1);
+        when(request.getAttribute("userName")).thenReturn("user");
+    }
+
+    @Test
+    void getNoteById_MapsToDTO() {
+        when(reactiveNoteService.getNoteById("noteId", "user"))
+                .thenReturn(Mono.just(Note.builder().id("noteId").title("Title").version(2L).build()));
+
+        StepVerifier.create(noteV2Controller.getNoteById("noteId", request))
+                .assertNext(dto -> {
+                    assertThat(dto.getId()).isEqualTo("noteId");
+                    assertThat(dto.getVersion()).isEqualTo(2L);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void getAllNotes_StreamsDTOs() {
+        when(reactiveNoteService.getAllNotes("user"))
+                .thenReturn(Flux.just(Note.builder().id("1").build(), Note.builder().id("2").build()));
+
+        StepVerifier.create(noteV2Controller.getAllNotes(request).map(NoteDTO::getId))
+                .expectNext("1", "2")
+                .verifyComplete();
+    }
+
+    @Test
+    void searchNotes_StreamsDTOs() {
+        when(reactiveNoteService.searchNotes("work", QueryType.LABEL, "user"))
+                .thenReturn(Flux.just(Note.builder().id("1").build()));
+
+        StepVerifier.create(noteV2Controller.searchNotes("work", QueryType.LABEL, request).map(NoteDTO::getId))
+                .expectNext("1")
+                .verifyComplete();
+    }
+
+    @Test
+    void getAllNotes_RejectsStreamsBeyondTheLimitUntilOneEnds() {
+        TestPublisher<Note> open = TestPublisher.create();
+        when(reactiveNoteService.getAllNotes("user")).thenReturn(open.flux(), Flux.empty());
+        when(reactiveNoteService.searchNotes("work", QueryType.LABEL, "user")).thenReturn(Flux.empty());
+
+        StepVerifier.create(noteV2Controller.getAllNotes(request))
+                .then(() -> assertThatThrownBy(() -> noteV2Controller.searchNotes("work", QueryType.LABEL, request))
+                        .isInstanceOf(ServiceUnavailableException.class))
+                .then(open::complete)
+                .verifyComplete();
+
+        StepVerifier.create(noteV2Controller.getAllNotes(request)).verifyComplete();
+    }
+
+    @Test
+    void exceptionHandlers_MapToV1Statuses() {
+        assertThat(noteV2Controller.handleNotFound(new ResourceNotFoundException("Note not found")).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(noteV2Controller.handleBadRequest(new IllegalArgumentException("bad")).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void endpoints_ShareRateLimitBucketsWithV1() {
+        for (Method method : NoteV2Controller.class.getDeclaredMethods()) {
+            RateLimited rateLimited = method.getAnnotation(RateLimited.class);
+            if (rateLimited == null) {
+                continue;
+            }
+            Method v1Method = Arrays.stream(NoteController.class.getDeclaredMethods())
+                    .filter(candidate -> rateLimited.bucket().equals("NoteController." + candidate.getName()))
+                    .findFirst().orElseThrow();
+            assertThat(v1Method.getAnnotation(RateLimited.class).value()).isEqualTo(rateLimited.value());
+        }
+    }
+}
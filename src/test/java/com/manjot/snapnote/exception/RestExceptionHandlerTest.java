@@ -0,0 +1,35 @@
+package com.manjot.snapnote.exception;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static com.manjot.snapnote.aspect.RateLimitingAspect.REMAINING_HEADER;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RestExceptionHandlerTest {
+
+    @Test
+    void handleRateLimit_TooManyRequestsWithHeaders() {
+        RestExceptionHandler handler = new RestExceptionHandler();
+
+        ResponseEntity<String> response = handler.handleRateLimit(new RateLimitException("Too many requests.", 42, 0));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("42");
+        assertThat(response.getHeaders().getFirst(REMAINING_HEADER)).isEqualTo("0");
+        assertThat(response.getBody()).isEqualTo("Too many requests.");
+    }
+
+    @Test
+    void handleServiceUnavailable_ServiceUnavailableWithRetryAfter() {
+        RestExceptionHandler handler = new RestExceptionHandler();
+
+        ResponseEntity<String> response = handler.handleServiceUnavailable(
+                new ServiceUnavailableException("Error: Search is overloaded, please retry", 2));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+    }
+}
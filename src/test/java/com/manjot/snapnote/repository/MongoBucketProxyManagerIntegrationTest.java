@@ -0,0 +1,80 @@
+package com.manjot.snapnote.repository;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.Refill;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against a local mongod: mvn test -Dsnapnote.mongo.it=true [-Dsnapnote.mongo.uri=mongodb://localhost:27017]
+ */
+@EnabledIfSystemProperty(named = "snapnote.mongo.it", matches = "true")
+class MongoBucketProxyManagerIntegrationTest {
+
+    private static final String COLLECTION = "rate_limit_buckets_it";
+
+    private MongoClient client;
+
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setUp() {
+        client = MongoClients.create(System.getProperty("snapnote.mongo.uri", "mongodb://localhost:27017"));
+        mongoTemplate = new MongoTemplate(client, "SnapNoteIT");
+        mongoTemplate.dropCollection(COLLECTION);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.dropCollection(COLLECTION);
+        client.close();
+    }
+
+    private BucketConfiguration configuration(long capacity) {
+        return BucketConfiguration.builder()
+                .addLimit(Bandwidth.classic(capacity, Refill.intervally(capacity, Duration.ofMinutes(1))))
+                .build();
+    }
+
+    @Test
+    void bucketIsSharedAcrossNodes() {
+        MongoBucketProxyManager nodeA = new MongoBucketProxyManager(mongoTemplate, COLLECTION);
+        MongoBucketProxyManager nodeB = new MongoBucketProxyManager(mongoTemplate, COLLECTION);
+        nodeA.ensureIndexes();
+        Bucket bucketA = nodeA.builder().build("user:alice|NoteController.getAllNotes", configuration(10));
+        Bucket bucketB = nodeB.builder().build("user:alice|NoteController.getAllNotes", configuration(10));
+
+        int consumed = 0;
+        for (int i = 0; i < 20; i++) {
+            Bucket bucket = i % 2 == 0 ? bucketA : bucketB;
+            if (bucket.tryConsume(1)) {
+                consumed++;
+            }
+        }
+
+        assertThat(consumed).isEqualTo(10);
+        assertThat(bucketA.getAvailableTokens()).isZero();
+    }
+
+    @Test
+    void removeProxyResetsBucket() {
+        MongoBucketProxyManager proxyManager = new MongoBucketProxyManager(mongoTemplate, COLLECTION);
+        Bucket bucket = proxyManager.builder().build("ip:10.0.0.1|AuthController.authenticateUser", configuration(1));
+        assertThat(bucket.tryConsume(1)).isTrue();
+
+        proxyManager.removeProxy("ip:10.0.0.1|AuthController.authenticateUser");
+
+        assertThat(bucket.tryConsume(1)).isTrue();
+    }
+}
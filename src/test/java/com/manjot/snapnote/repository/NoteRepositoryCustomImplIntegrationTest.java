@@ -0,0 +1,94 @@
+package com.manjot.snapnote.repository;
+
+import com.manjot.snapnote.model.BatchOperation;
+import com.manjot.snapnote.model.BulkWriteOutcome;
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.model.enums.EBatchAction;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against a local mongod: mvn test -Dsnapnote.mongo.it=true [-Dsnapnote.mongo.uri=mongodb://localhost:27017]
+ */
+@EnabledIfSystemProperty(named = "snapnote.mongo.it", matches = "true")
+class NoteRepositoryCustomImplIntegrationTest {
+
+    private MongoClient client;
+
+    private MongoTemplate mongoTemplate;
+
+    private NoteRepositoryCustomImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        client = MongoClients.create(System.getProperty("snapnote.mongo.uri", "mongodb://localhost:27017"));
+        mongoTemplate = new MongoTemplate(client, "SnapNoteIT");
+        mongoTemplate.dropCollection(Note.class);
+        repository = new NoteRepositoryCustomImpl(mongoTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.dropCollection(Note.class);
+        client.close();
+    }
+
+    private Note insert(String userName) {
+        return mongoTemplate.insert(Note.builder().title("old").userName(userName).build());
+    }
+
+    private static BatchOperation update(String id, Long version) {
+        return new BatchOperation(EBatchAction.UPDATE, id, Note.builder().title("new").version(version).build());
+    }
+
+    @Test
+    void bulkWrite_AppliesEveryMatchingWrite() {
+        Note updated = insert("user");
+        Note deleted = insert("user");
+
+        BulkWriteOutcome outcome = repository.bulkWrite("user", List.of(
+                update(updated.getId(), 0L),
+                new BatchOperation(EBatchAction.DELETE, deleted.getId(), null)), false);
+
+        assertThat(outcome).isEqualTo(new BulkWriteOutcome(Set.of(), Set.of(), Set.of()));
+        Note stored = mongoTemplate.findById(updated.getId(), Note.class);
+        assertThat(stored.getTitle()).isEqualTo("new");
+        assertThat(stored.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void bulkWrite_ReportsUpdatesOfMissingNotesAndStaleVersions() {
+        Note stale = insert("user");
+        Note matched = insert("user");
+        Note foreign = insert("other");
+
+        BulkWriteOutcome outcome = repository.bulkWrite("user", List.of(
+                update(new ObjectId().toHexString(), null),
+                update(stale.getId(), 5L),
+                update(matched.getId(), null),
+                update(foreign.getId(), null)), false);
+
+        assertThat(outcome.notFound()).containsExactlyInAnyOrder(0, 3);
+        assertThat(outcome.conflicts()).containsExactly(1);
+        assertThat(mongoTemplate.findById(stale.getId(), Note.class).getTitle()).isEqualTo("old");
+    }
+
+    @Test
+    void bulkWrite_ReportsDeletesWhenNoneMatched() {
+        BulkWriteOutcome outcome = repository.bulkWrite("user", List.of(
+                new BatchOperation(EBatchAction.DELETE, new ObjectId().toHexString(), null)), false);
+
+        assertThat(outcome.notFound()).containsExactly(0);
+    }
+}
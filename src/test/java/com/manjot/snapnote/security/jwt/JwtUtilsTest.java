@@ -0,0 +1,99 @@
+package com.manjot.snapnote.security.jwt;
+
+import com.manjot.snapnote.security.services.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtUtilsTest {
+
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret",
+                Base64.getEncoder().encodeToString("snapnote-test-secret-with-at-least-256-bits!".getBytes()));
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60000);
+        ReflectionTestUtils.setField(jwtUtils, "jwtCacheSize", 100L);
+        jwtUtils.init();
+    }
+
+    private Authentication authentication(String username) {
+        UserDetailsImpl principal = new UserDetailsImpl("1", username, username + "@test.com", "pw", List.of());
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+
+    @Test
+    void parseJwtToken_ValidToken() {
+        String token = jwtUtils.generateJwtToken(authentication("alice"));
+
+        Claims claims = jwtUtils.parseJwtToken(token);
+
+        assertThat(claims).isNotNull();
+        assertThat(claims.getSubject()).isEqualTo("alice");
+        assertThat(jwtUtils.validateJwtToken(token)).isTrue();
+        assertThat(jwtUtils.getUserNameFromJwtToken(token)).isEqualTo("alice");
+    }
+
+    @Test
+    void parseJwtToken_RepeatedTokenServedFromCache() {
+        String token = jwtUtils.generateJwtToken(authentication("alice"));
+
+        Claims first = jwtUtils.parseJwtToken(token);
+        Claims second = jwtUtils.parseJwtToken(token);
+
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void parseJwtToken_TamperedToken() {
+        String token = jwtUtils.generateJwtToken(authentication("alice"));
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThat(jwtUtils.parseJwtToken(tampered)).isNull();
+        assertThat(jwtUtils.validateJwtToken(tampered)).isFalse();
+    }
+
+    @Test
+    void parseJwtToken_MalformedOrEmptyToken() {
+        assertThat(jwtUtils.parseJwtToken("not-a-jwt")).isNull();
+        assertThat(jwtUtils.parseJwtToken("")).isNull();
+        assertThat(jwtUtils.parseJwtToken(null)).isNull();
+    }
+
+    @Test
+    void getPrincipalFromClaims_ClaimsOnlyToken() {
+        ReflectionTestUtils.setField(jwtUtils, "claimsOnly", true);
+        UserDetailsImpl principal = new UserDetailsImpl("42", "alice", "alice@test.com", "pw",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")), 3L);
+        String token = jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        UserDetailsImpl result = jwtUtils.getPrincipalFromClaims(jwtUtils.parseJwtToken(token));
+
+        assertThat(result).isNotNull();
+        assertThat(result.getId()).isEqualTo("42");
+        assertThat(result.getUsername()).isEqualTo("alice");
+        assertThat(result.getEmail()).isEqualTo("alice@test.com");
+        assertThat(result.getPassword()).isNull();
+        assertThat(result.getTokenVersion()).isEqualTo(3L);
+        assertThat(result.getAuthorities()).extracting("authority").containsExactly("ROLE_USER");
+    }
+
+    @Test
+    void getPrincipalFromClaims_TokenWithoutPrincipalClaims() {
+        String token = jwtUtils.generateJwtToken(authentication("alice"));
+
+        assertThat(jwtUtils.getPrincipalFromClaims(jwtUtils.parseJwtToken(token))).isNull();
+    }
+}
@@ -0,0 +1,66 @@
+package com.manjot.snapnote.security.services;
+
+import com.manjot.snapnote.model.Role;
+import com.manjot.snapnote.model.User;
+import com.manjot.snapnote.model.enums.ERole;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+
+import static com.manjot.snapnote.configuration.CacheConfig.PRINCIPAL_CACHE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrincipalCacheEvictionListenerTest {
+
+    private Cache cache;
+
+    private PrincipalCacheEvictionListener listener;
+
+    @BeforeEach
+    void setUp() {
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(PRINCIPAL_CACHE);
+        cache = cacheManager.getCache(PRINCIPAL_CACHE);
+        cache.put("alice", "alice-principal");
+        cache.put("bob", "bob-principal");
+        listener = new PrincipalCacheEvictionListener(cacheManager);
+    }
+
+    @Test
+    void onAfterSave_UserEvictsOnlyThatUser() {
+        User user = new User("alice", "alice@test.com", "secret");
+
+        listener.onAfterSave(new AfterSaveEvent<>(user, new Document(), "users"));
+
+        assertThat(cache.get("alice")).isNull();
+        assertThat(cache.get("bob")).isNotNull();
+    }
+
+    @Test
+    void onAfterSave_RoleClearsCache() {
+        Role role = Role.builder().name(ERole.ROLE_ADMIN).build();
+
+        listener.onAfterSave(new AfterSaveEvent<>(role, new Document(), "roles"));
+
+        assertThat(cache.get("alice")).isNull();
+        assertThat(cache.get("bob")).isNull();
+    }
+
+    @Test
+    void onAfterDelete_UserClearsCache() {
+        listener.onAfterDelete(new AfterDeleteEvent<>(new Document("_id", "1"), Object.class, "users"));
+
+        assertThat(cache.get("alice")).isNull();
+        assertThat(cache.get("bob")).isNull();
+    }
+
+    @Test
+    void onAfterDelete_OtherCollectionKeepsCache() {
+        listener.onAfterDelete(new AfterDeleteEvent<>(new Document("_id", "1"), Object.class, "notes"));
+
+        assertThat(cache.get("alice")).isNotNull();
+    }
+}
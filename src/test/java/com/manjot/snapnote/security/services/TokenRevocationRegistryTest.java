@@ -0,0 +1,129 @@
+package com.manjot.snapnote.security.services;
+
+import com.manjot.snapnote.model.User;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TokenRevocationRegistryTest {
+
+    private MongoTemplate mongoTemplate;
+
+    private IndexOperations indexOps;
+
+    private PrincipalCacheEvictionListener principalCache;
+
+    private TokenRevocationRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        indexOps = mock(IndexOperations.class);
+        when(mongoTemplate.indexOps(TokenRevocationRegistry.REVOKED_USERS)).thenReturn(indexOps);
+        principalCache = mock(PrincipalCacheEvictionListener.class);
+        registry = new TokenRevocationRegistry(mongoTemplate, principalCache);
+        ReflectionTestUtils.setField(registry, "claimsOnly", true);
+        ReflectionTestUtils.setField(registry, "jwtExpirationMs", 86400000L);
+    }
+
+    private User user(String id, long tokenVersion) {
+        User user = new User("alice", "alice@test.com", "pw");
+        user.setId(id);
+        user.setTokenVersion(tokenVersion);
+        return user;
+    }
+
+    @Test
+    void isRevoked_UnknownUser() {
+        assertThat(registry.isRevoked("1", 0)).isFalse();
+    }
+
+    @Test
+    void refresh_MergesVersionsFromMongo() {
+        when(mongoTemplate.find(any(Query.class), eq(User.class))).thenReturn(List.of(user("1", 2)));
+
+        registry.refresh();
+
+        assertThat(registry.isRevoked("1", 1)).isTrue();
+        assertThat(registry.isRevoked("1", 2)).isFalse();
+        verify(principalCache).evict("alice");
+    }
+
+    @Test
+    void refresh_KeepsKnownVersionWithoutEvicting() {
+        registry.observeTokenVersion("1", 2);
+        when(mongoTemplate.find(any(Query.class), eq(User.class))).thenReturn(List.of(user("1", 2)));
+
+        registry.refresh();
+
+        assertThat(registry.isRevoked("1", 1)).isTrue();
+        verify(principalCache, never()).evict(any());
+    }
+
+    @Test
+    void revocation_ExpiresWithTheTokensItRevokes() {
+        User user = user("1", 2);
+        user.setTokensRevokedAt(Instant.now().minus(Duration.ofDays(2)));
+        when(mongoTemplate.find(any(Query.class), eq(User.class))).thenReturn(List.of(user));
+        when(mongoTemplate.findAll(Document.class, TokenRevocationRegistry.REVOKED_USERS))
+                .thenReturn(List.of(new Document("_id", "2").append("at", Date.from(Instant.now().minus(Duration.ofDays(2))))));
+
+        registry.refresh();
+
+        assertThat(registry.isRevoked("1", 1)).isFalse();
+        assertThat(registry.isRevoked("2", 0)).isFalse();
+    }
+
+    @Test
+    void refresh_RevokesUsersDeletedOnOtherNodes() {
+        when(mongoTemplate.findAll(Document.class, TokenRevocationRegistry.REVOKED_USERS))
+                .thenReturn(List.of(new Document("_id", "2")));
+
+        registry.refresh();
+
+        assertThat(registry.isRevoked("2", Long.MAX_VALUE)).isTrue();
+        ArgumentCaptor<Index> index = ArgumentCaptor.forClass(Index.class);
+        verify(indexOps).ensureIndex(index.capture());
+        assertThat(index.getValue().getIndexOptions().get("expireAfterSeconds")).isEqualTo(86400L);
+    }
+
+    @Test
+    void refresh_SkippedWhenClaimsOnlyDisabled() {
+        ReflectionTestUtils.setField(registry, "claimsOnly", false);
+
+        registry.refresh();
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void onAfterDelete_RevokesDeletedUser() {
+        ObjectId id = new ObjectId();
+
+        registry.onAfterDelete(new AfterDeleteEvent<>(new Document("_id", id), User.class, "users"));
+
+        assertThat(registry.isRevoked(id.toString(), Long.MAX_VALUE)).isTrue();
+        ArgumentCaptor<Query> tombstone = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).upsert(tombstone.capture(), any(Update.class), eq(TokenRevocationRegistry.REVOKED_USERS));
+        assertThat(tombstone.getValue().getQueryObject().get("_id")).isEqualTo(id.toString());
+    }
+}
@@ -0,0 +1,77 @@
+package com.manjot.snapnote.security.services;
+
+import com.manjot.snapnote.exception.ResourceNotFoundException;
+import com.manjot.snapnote.model.Role;
+import com.manjot.snapnote.model.User;
+import com.manjot.snapnote.model.enums.ERole;
+import com.manjot.snapnote.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class UserAccountServiceTest {
+
+    private UserRepository userRepository;
+
+    private TokenRevocationRegistry revocationRegistry;
+
+    private PrincipalCacheEvictionListener principalCache;
+
+    private UserAccountService service;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        revocationRegistry = mock(TokenRevocationRegistry.class);
+        principalCache = mock(PrincipalCacheEvictionListener.class);
+        service = new UserAccountService(userRepository, revocationRegistry, principalCache);
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private User user(long tokenVersion) {
+        User user = new User("alice", "alice@test.com", "pw");
+        user.setId("1");
+        user.setTokenVersion(tokenVersion);
+        return user;
+    }
+
+    @Test
+    void revokeTokens_IncrementsVersionAndEvictsPrincipal() {
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user(3)));
+
+        User result = service.revokeTokens("alice");
+
+        assertThat(result.getTokenVersion()).isEqualTo(4);
+        assertThat(result.getTokensRevokedAt()).isNotNull();
+        verify(revocationRegistry).observeTokenVersion("1", 4);
+        verify(principalCache).evict("alice");
+    }
+
+    @Test
+    void updateRoles_ReplacesRolesAndRevokesTokens() {
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user(0)));
+        Set<Role> roles = Set.of(new Role(ERole.ROLE_ADMIN));
+
+        User result = service.updateRoles("alice", roles);
+
+        assertThat(result.getRoles()).isEqualTo(roles);
+        assertThat(result.getTokenVersion()).isEqualTo(1);
+        verify(revocationRegistry).observeTokenVersion("1", 1);
+        verify(principalCache).evict("alice");
+    }
+
+    @Test
+    void revokeTokens_UnknownUser() {
+        when(userRepository.findByUsername("bob")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.revokeTokens("bob")).isInstanceOf(ResourceNotFoundException.class);
+        verify(userRepository, never()).save(any());
+    }
+}
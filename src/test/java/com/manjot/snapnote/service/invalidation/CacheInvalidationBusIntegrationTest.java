@@ -0,0 +1,63 @@
+package com.manjot.snapnote.service.invalidation;
+
+import com.manjot.snapnote.configuration.InvalidationProperties;
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.repository.NoteRepository;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs against a local single-node replica set:
+ * mongod --replSet rs0, then rs.initiate() in mongosh, then
+ * mvn test -Dsnapnote.mongo.it=true -Dsnapnote.mongo.uri=mongodb://localhost:27017/?replicaSet=rs0
+ */
+@EnabledIfSystemProperty(named = "snapnote.mongo.it", matches = "true")
+class CacheInvalidationBusIntegrationTest {
+
+    private MongoClient client;
+
+    private MongoTemplate mongoTemplate;
+
+    private LocalCacheInvalidator invalidator;
+
+    private CacheInvalidationBus bus;
+
+    @BeforeEach
+    void setUp() {
+        client = MongoClients.create(System.getProperty("snapnote.mongo.uri", "mongodb://localhost:27017/?replicaSet=rs0"));
+        mongoTemplate = new MongoTemplate(client, "SnapNoteIT");
+        mongoTemplate.dropCollection(Note.class);
+        invalidator = mock(LocalCacheInvalidator.class);
+        InvalidationProperties properties = new InvalidationProperties();
+        properties.setMode(InvalidationProperties.Mode.CHANGE_STREAM);
+        bus = new CacheInvalidationBus(properties, mongoTemplate, mock(NoteRepository.class), invalidator);
+        bus.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bus.stop();
+        mongoTemplate.dropCollection(Note.class);
+        client.close();
+    }
+
+    @Test
+    void changeStream_DeliversNoteWritesFromAnotherClient() throws InterruptedException {
+        // give the stream time to open before writing
+        Thread.sleep(1500);
+        Note note = mongoTemplate.insert(Note.builder().userName("user").title("Title").build());
+        mongoTemplate.remove(note);
+
+        verify(invalidator, timeout(5000)).noteSaved(any(Note.class));
+        verify(invalidator, timeout(5000)).noteDeleted(any(), eq(note.getId()));
+    }
+}
@@ -0,0 +1,197 @@
+package com.manjot.snapnote.service.invalidation;
+
+import com.manjot.snapnote.configuration.InvalidationProperties;
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.repository.NoteRepository;
+import com.manjot.snapnote.service.note.NoteChangedEvent;
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonObjectId;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CacheInvalidationBusTest {
+
+    private final ObjectId noteId = new ObjectId();
+
+    private final BsonDocument documentKey = new BsonDocument("_id", new BsonObjectId(noteId));
+
+    private LocalCacheInvalidator invalidator;
+
+    private NoteRepository noteRepository;
+
+    private MongoDatabase database;
+
+    private CacheInvalidationBus bus;
+
+    @BeforeEach
+    void setUp() {
+        invalidator = mock(LocalCacheInvalidator.class);
+        noteRepository = mock(NoteRepository.class);
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        database = mock(MongoDatabase.class);
+        when(mongoTemplate.getDb()).thenReturn(database);
+        InvalidationProperties properties = new InvalidationProperties();
+        properties.setMode(InvalidationProperties.Mode.CHANGE_STREAM);
+        bus = new CacheInvalidationBus(properties, mongoTemplate, noteRepository, invalidator);
+    }
+
+    @Test
+    void applyChange_NoteUpdated() {
+        Document document = new Document("_id", noteId).append("userName", "user").append("title", "Title")
+                .append("labelList", List.of("a"));
+
+        bus.applyChange(CacheInvalidationBus.NOTES, OperationType.UPDATE, documentKey, document, null);
+
+        ArgumentCaptor<Note> note = ArgumentCaptor.forClass(Note.class);
+        verify(invalidator).noteSaved(note.capture());
+        assertThat(note.getValue().getId()).isEqualTo(noteId.toHexString());
+        assertThat(note.getValue().getUserName()).isEqualTo("user");
+        assertThat(note.getValue().getLabelList()).containsExactly("a");
+    }
+
+    @Test
+    void applyChange_NoteDeletedWithAndWithoutPreImage() {
+        bus.applyChange(CacheInvalidationBus.NOTES, OperationType.DELETE, documentKey, null,
+                new Document("userName", "user"));
+        bus.applyChange(CacheInvalidationBus.NOTES, OperationType.DELETE, documentKey, null, null);
+
+        verify(invalidator).noteDeleted("user", noteId.toHexString());
+        verify(invalidator).noteDeleted(null, noteId.toHexString());
+    }
+
+    @Test
+    void applyChange_SkipsOwnNoteWrites() {
+        Note saved = Note.builder().id(noteId.toHexString()).userName("user").version(2L).build();
+        bus.onNoteChanged(NoteChangedEvent.saved(saved));
+
+        bus.applyChange(CacheInvalidationBus.NOTES, OperationType.UPDATE, documentKey,
+                new Document("_id", noteId).append("userName", "user").append("version", 2L), null);
+        verify(invalidator, never()).noteSaved(any());
+
+        // a later version was written elsewhere
+        bus.applyChange(CacheInvalidationBus.NOTES, OperationType.UPDATE, documentKey,
+                new Document("_id", noteId).append("userName", "user").append("version", 3L), null);
+        verify(invalidator).noteSaved(any());
+
+        bus.onNoteChanged(NoteChangedEvent.deleted("user", noteId.toHexString()));
+        bus.applyChange(CacheInvalidationBus.NOTES, OperationType.DELETE, documentKey, null, null);
+        verify(invalidator, never()).noteDeleted(any(), any());
+    }
+
+    @Test
+    void enablePreImages_CreatesCollectionsWhenMissing() {
+        when(database.runCommand(any(Bson.class))).thenThrow(
+                new MongoCommandException(new BsonDocument("code", new BsonInt32(26)), new ServerAddress()));
+
+        bus.enablePreImages();
+
+        ArgumentCaptor<Bson> command = ArgumentCaptor.forClass(Bson.class);
+        verify(database, times(2)).runCommand(command.capture());
+        assertThat(command.getAllValues()).extracting(value -> ((Document) value).getString("collMod"))
+                .containsExactly(CacheInvalidationBus.NOTES, CacheInvalidationBus.NOTE_SHARES);
+        assertThat(((Document) command.getValue()).get("changeStreamPreAndPostImages", Document.class).getBoolean("enabled")).isTrue();
+        ArgumentCaptor<CreateCollectionOptions> options = ArgumentCaptor.forClass(CreateCollectionOptions.class);
+        verify(database).createCollection(eq(CacheInvalidationBus.NOTES), options.capture());
+        verify(database).createCollection(eq(CacheInvalidationBus.NOTE_SHARES), options.capture());
+        assertThat(options.getValue().getChangeStreamPreAndPostImagesOptions().isEnabled()).isTrue();
+    }
+
+    @Test
+    void applyChange_ShareCreatedAndDeleted() {
+        Document share = new Document("_id", noteId).append("noteId", "n1").append("grantee", "friend");
+
+        bus.applyChange(CacheInvalidationBus.NOTE_SHARES, OperationType.INSERT, documentKey, share, null);
+        bus.applyChange(CacheInvalidationBus.NOTE_SHARES, OperationType.DELETE, documentKey, null, share);
+
+        verify(invalidator).noteShared("friend", "n1");
+        verify(invalidator).noteUnshared("friend", "n1");
+        verify(invalidator, never()).invalidateAll();
+    }
+
+    @Test
+    void applyChange_ShareDeletedWithoutPreImageClearsEverything() {
+        bus.applyChange(CacheInvalidationBus.NOTE_SHARES, OperationType.DELETE, documentKey, null, null);
+
+        verify(invalidator).invalidateAll();
+    }
+
+    @Test
+    void applyChange_UserChangedAndDeleted() {
+        Document user = new Document("_id", noteId).append("username", "user").append("tokenVersion", 3L);
+
+        bus.applyChange(CacheInvalidationBus.USERS, OperationType.UPDATE, documentKey, user, null);
+        bus.applyChange(CacheInvalidationBus.USERS, OperationType.DELETE, documentKey, null, null);
+
+        verify(invalidator).userChanged(noteId.toHexString(), "user", 3L);
+        verify(invalidator).userDeleted(noteId.toHexString());
+    }
+
+    @Test
+    void applyChange_DropClearsEverything() {
+        bus.applyChange(CacheInvalidationBus.NOTES, OperationType.DROP, null, null, null);
+
+        verify(invalidator).invalidateAll();
+    }
+
+    @Test
+    void applyLogEntry_ReloadsSavedNote() {
+        Note note = Note.builder().id("1").userName("user").build();
+        when(noteRepository.findById("1")).thenReturn(Optional.of(note));
+
+        bus.applyLogEntry(new Document("kind", CacheInvalidationBus.KIND_NOTE).append("type", "SAVED")
+                .append("id", "1").append("userName", "user"));
+
+        verify(invalidator).noteSaved(note);
+    }
+
+    @Test
+    void applyLogEntry_SavedNoteGoneIsDeleted() {
+        when(noteRepository.findById("1")).thenReturn(Optional.empty());
+
+        bus.applyLogEntry(new Document("kind", CacheInvalidationBus.KIND_NOTE).append("type", "SAVED")
+                .append("id", "1").append("userName", "user"));
+
+        verify(invalidator).noteDeleted("user", "1");
+    }
+
+    @Test
+    void applyLogEntry_User() {
+        bus.applyLogEntry(new Document("kind", CacheInvalidationBus.KIND_USER).append("type", "SAVED")
+                .append("id", "u1").append("userName", "user").append("tokenVersion", 2L));
+        bus.applyLogEntry(new Document("kind", CacheInvalidationBus.KIND_USER).append("type", "DELETED")
+                .append("id", "u1"));
+
+        verify(invalidator).userChanged("u1", "user", 2L);
+        verify(invalidator).userDeleted("u1");
+    }
+}
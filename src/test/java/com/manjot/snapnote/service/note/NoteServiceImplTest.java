@@ -1,26 +1,52 @@
 package com.manjot.snapnote.service.note;
 
+import com.manjot.snapnote.exception.NoteConflictException;
 import com.manjot.snapnote.exception.ResourceNotFoundException;
+import com.manjot.snapnote.model.BatchOperation;
+import com.manjot.snapnote.model.BatchResult;
+import com.manjot.snapnote.model.BulkWriteOutcome;
 import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.model.NoteShare;
+import com.manjot.snapnote.model.NotesGeneration;
+import com.manjot.snapnote.model.ShareResult;
 import com.manjot.snapnote.model.User;
+import com.manjot.snapnote.model.enums.EBatchAction;
+import com.manjot.snapnote.model.enums.EBatchStatus;
+import com.manjot.snapnote.model.enums.ESharePermission;
+import com.manjot.snapnote.model.enums.EShareStatus;
 import com.manjot.snapnote.repository.NoteRepository;
+import com.manjot.snapnote.repository.NoteShareRepository;
+import com.manjot.snapnote.repository.NotesGenerationRepository;
 import com.manjot.snapnote.repository.UserRepository;
-import com.manjot.snapnote.service.search.NoteSearchStrategyFactory;
+import com.manjot.snapnote.service.search.NoteSearchCache;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static com.manjot.snapnote.exception.ErrorMessages.INVALID_NOTE;
 import static com.manjot.snapnote.exception.ErrorMessages.INVALID_USER;
+import static com.manjot.snapnote.exception.ErrorMessages.NOTE_CONFLICT;
+import static com.manjot.snapnote.exception.ErrorMessages.SELF_SHARE;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 
 @SpringBootTest
 public class NoteServiceImplTest {
@@ -32,14 +58,26 @@ public class NoteServiceImplTest {
     private UserRepository userRepository;
 
     @Mock
-    private NoteSearchStrategyFactory noteSearchStrategyFactory;
+    private NoteShareRepository noteShareRepository;
+
+    @Mock
+    private NotesGenerationRepository notesGenerationRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private NoteSearchCache searchCache;
+
+    @Mock
+    private OffHeapNoteCache noteCache;
 
     @InjectMocks
     private NoteServiceImpl noteService;
 
     @Test
     public void createNote_Success() {
-        Note inputNote = new Note();
+        Note inputNote = Note.builder().userName("user").build();
         Note savedNote = new Note();
         Mockito.when(noteRepository.save(any(Note.class))).thenReturn(savedNote);
 
@@ -47,6 +85,76 @@ public class NoteServiceImplTest {
 
         assertThat(result).isEqualTo(savedNote);
         Mockito.verify(noteRepository).save(any(Note.class));
+        Mockito.verify(eventPublisher).publishEvent(NoteChangedEvent.saved(savedNote));
+    }
+
+    @Test
+    public void createNote_AdvancesNotesGenerationBeforeAndAfterWrite() {
+        Note savedNote = Note.builder().id("n1").userName("user").build();
+        Mockito.when(noteRepository.save(any(Note.class))).thenReturn(savedNote);
+
+        noteService.createNote(Note.builder().userName("user").build());
+
+        InOrder inOrder = Mockito.inOrder(notesGenerationRepository, noteRepository);
+        inOrder.verify(notesGenerationRepository).incrementAll(Set.of("user"));
+        inOrder.verify(noteRepository).save(any(Note.class));
+        inOrder.verify(notesGenerationRepository).incrementAll(Set.of("user"));
+    }
+
+    @Test
+    public void createNote_FailsWithoutWritingWhenGenerationWriteFails() {
+        Mockito.doThrow(new DataAccessResourceFailureException("down"))
+                .when(notesGenerationRepository).incrementAll(Set.of("user"));
+
+        assertThatThrownBy(() -> noteService.createNote(Note.builder().userName("user").build()))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+
+        Mockito.verify(noteRepository, Mockito.never()).save(any(Note.class));
+        Mockito.verify(eventPublisher, Mockito.never()).publishEvent(any());
+    }
+
+    @Test
+    public void createNote_SucceedsWhenSecondGenerationWriteFails() {
+        Note savedNote = Note.builder().id("n1").userName("user").build();
+        Mockito.when(noteRepository.save(any(Note.class))).thenReturn(savedNote);
+        Mockito.doNothing()
+                .doThrow(new DataAccessResourceFailureException("down"))
+                .when(notesGenerationRepository).incrementAll(Set.of("user"));
+
+        Note result = noteService.createNote(Note.builder().userName("user").build());
+
+        assertThat(result).isEqualTo(savedNote);
+        Mockito.verify(eventPublisher).publishEvent(NoteChangedEvent.saved(savedNote));
+    }
+
+    @Test
+    public void getNotesGeneration_DefaultsToZero() {
+        Mockito.when(notesGenerationRepository.findById("user")).thenReturn(Optional.empty());
+        Mockito.when(notesGenerationRepository.findById("other"))
+                .thenReturn(Optional.of(NotesGeneration.builder().userName("other").generation(7).build()));
+
+        assertThat(noteService.getNotesGeneration("user")).isZero();
+        assertThat(noteService.getNotesGeneration("other")).isEqualTo(7);
+    }
+
+    @Test
+    public void getNoteVersion_SharedWithUser() {
+        String noteId = "noteId";
+        NoteShare share = NoteShare.builder().noteId(noteId).owner("owner").grantee("grantee").build();
+        Mockito.when(noteRepository.findNoteVersion(noteId, "grantee")).thenReturn(Optional.empty());
+        Mockito.when(noteShareRepository.findByNoteIdAndGrantee(noteId, "grantee")).thenReturn(Optional.of(share));
+        Mockito.when(noteRepository.findNoteVersion(noteId, "owner")).thenReturn(Optional.of(5L));
+
+        assertThat(noteService.getNoteVersion(noteId, "grantee")).isEqualTo(5);
+        Mockito.verify(noteRepository, Mockito.never()).findByIdAndUserName(any(), any());
+    }
+
+    @Test
+    public void getNoteVersion_FromNoteCache() {
+        Mockito.when(noteCache.getVersion("noteId", "userName")).thenReturn(Optional.of(7L));
+
+        assertThat(noteService.getNoteVersion("noteId", "userName")).isEqualTo(7);
+        Mockito.verify(noteRepository, Mockito.never()).findNoteVersion(any(), any());
     }
 
     @Test
@@ -75,86 +183,236 @@ public class NoteServiceImplTest {
     }
 
     @Test
-    public void getAllNotes_Success() {
+    public void getNoteById_SharedWithUser() {
+        String noteId = "noteId";
+        Note note = Note.builder().id(noteId).userName("owner").build();
+        NoteShare share = NoteShare.builder().noteId(noteId).owner("owner").grantee("grantee")
+                .permission(ESharePermission.READ).build();
+        Mockito.when(noteRepository.findByIdAndUserName(eq(noteId), eq("grantee"))).thenReturn(Optional.empty());
+        Mockito.when(noteShareRepository.findByNoteIdAndGrantee(eq(noteId), eq("grantee"))).thenReturn(Optional.of(share));
+        Mockito.when(noteRepository.findByIdAndUserName(eq(noteId), eq("owner"))).thenReturn(Optional.of(note));
+
+        Note result = noteService.getNoteById(noteId, "grantee");
+
+        assertThat(result).isEqualTo(note);
+    }
+
+    @Test
+    public void getNotesPage_FirstPageWithNext() {
         String userName = "userName";
-        List<Note> notes = Arrays.asList(new Note(), new Note());
-        Mockito.when(noteRepository.findByUserName(eq(userName))).thenReturn(Optional.of(notes));
+        List<Note> notes = List.of(
+                Note.builder().id("3").createdAt(LocalDateTime.of(2024, 1, 3, 0, 0)).build(),
+                Note.builder().id("2").createdAt(LocalDateTime.of(2024, 1, 2, 0, 0)).build(),
+                Note.builder().id("1").createdAt(LocalDateTime.of(2024, 1, 1, 0, 0)).build());
+        Mockito.when(noteRepository.findPageByUserName(eq(userName), isNull(), isNull(), eq(3))).thenReturn(notes);
 
-        List<Note> result = noteService.getAllNotes(userName);
+        NotePage page = noteService.getNotesPage(userName, null, 2);
 
-        assertThat(result).isEqualTo(notes);
-        Mockito.verify(noteRepository).findByUserName(eq(userName));
+        assertThat(page.notes()).extracting(Note::getId).containsExactly("3", "2");
+        assertThat(NoteCursor.decode(page.nextCursor()))
+                .isEqualTo(new NoteCursor(LocalDateTime.of(2024, 1, 2, 0, 0), "2"));
     }
 
     @Test
-    public void getAllNotes_NotFound() {
+    public void getNotesPage_LastPage() {
         String userName = "userName";
-        Mockito.when(noteRepository.findByUserName(eq(userName))).thenReturn(Optional.empty());
+        NoteCursor cursor = new NoteCursor(LocalDateTime.of(2024, 1, 2, 0, 0), "2");
+        List<Note> notes = List.of(Note.builder().id("1").createdAt(LocalDateTime.of(2024, 1, 1, 0, 0)).build());
+        Mockito.when(noteRepository.findPageByUserName(eq(userName), eq(cursor.createdAt()), eq("2"), eq(3)))
+                .thenReturn(notes);
 
-        assertThatThrownBy(() -> noteService.getAllNotes(userName))
-                .isInstanceOf(ResourceNotFoundException.class)
-                .hasMessageContaining("No notes found");
-        Mockito.verify(noteRepository).findByUserName(eq(userName));
+        NotePage page = noteService.getNotesPage(userName, cursor.encode(), 2);
+
+        assertThat(page.notes()).hasSize(1);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    public void getNotesPage_PagesThroughNotesWithoutCreationTime() {
+        String userName = "userName";
+        List<Note> notes = List.of(Note.builder().id("3").build(), Note.builder().id("2").build(), Note.builder().id("1").build());
+        Mockito.when(noteRepository.findPageByUserName(eq(userName), eq(null), eq("3"), eq(3))).thenReturn(notes.subList(1, 3));
+
+        NotePage page = noteService.getNotesPage(userName, new NoteCursor(null, "3").encode(), 2);
+
+        assertThat(page.notes()).extracting(Note::getId).containsExactly("2", "1");
+        assertThat(page.nextCursor()).isNull();
+        assertThat(NoteCursor.decode(new NoteCursor(null, "2").encode())).isEqualTo(new NoteCursor(null, "2"));
+    }
+
+    @Test
+    public void getNotesPage_SizeIsCapped() {
+        String userName = "userName";
+        Mockito.when(noteRepository.findPageByUserName(any(), any(), any(), Mockito.anyInt())).thenReturn(List.of());
+
+        noteService.getNotesPage(userName, null, 10_000);
+
+        Mockito.verify(noteRepository).findPageByUserName(eq(userName), isNull(), isNull(),
+                eq(NoteServiceImpl.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    public void getNotesPage_MergesSharedNotes() {
+        String userName = "userName";
+        Mockito.when(noteRepository.findPageByUserName(eq(userName), isNull(), isNull(), eq(3))).thenReturn(List.of(
+                Note.builder().id("4").createdAt(LocalDateTime.of(2024, 1, 4, 0, 0)).build(),
+                Note.builder().id("1").createdAt(LocalDateTime.of(2024, 1, 1, 0, 0)).build()));
+        Mockito.when(noteRepository.findSharedPageWith(eq(userName), isNull(), isNull(), eq(3))).thenReturn(List.of(
+                Note.builder().id("3").userName("owner").createdAt(LocalDateTime.of(2024, 1, 3, 0, 0)).build(),
+                Note.builder().id("2").userName("owner").createdAt(LocalDateTime.of(2024, 1, 2, 0, 0)).build()));
+
+        NotePage page = noteService.getNotesPage(userName, null, 2);
+
+        assertThat(page.notes()).extracting(Note::getId).containsExactly("4", "3");
+        assertThat(NoteCursor.decode(page.nextCursor()))
+                .isEqualTo(new NoteCursor(LocalDateTime.of(2024, 1, 3, 0, 0), "3"));
+    }
+
+    @Test
+    public void streamAllNotes_OwnedThenShared() {
+        Mockito.when(noteRepository.streamByUserName("userName", NoteServiceImpl.EXPORT_BATCH_SIZE))
+                .thenReturn(Stream.of(Note.builder().id("1").build()));
+        Mockito.when(noteRepository.streamSharedWith("userName", NoteServiceImpl.EXPORT_BATCH_SIZE))
+                .thenReturn(Stream.of(Note.builder().id("2").build()));
+
+        try (Stream<Note> notes = noteService.streamAllNotes("userName")) {
+            assertThat(notes).extracting(Note::getId).containsExactly("1", "2");
+        }
+    }
+
+    @Test
+    public void getNotesPage_InvalidCursor() {
+        assertThatThrownBy(() -> noteService.getNotesPage("userName", "not-a-cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class);
     }
 
     @Test
     public void updateNote_Success() {
         String username = "username";
         String id = "id";
-        Note updatedNote = new Note();
-        Note existingNote = new Note();
+        Note updatedNote = Note.builder().title("title").build();
+        Note modifiedNote = Note.builder().id(id).userName(username).title("title").version(1L).build();
 
-        Mockito.when(noteRepository.findByIdAndUserName(id, username)).thenReturn(Optional.of(existingNote));
-        Mockito.when(noteRepository.save(any(Note.class))).thenReturn(existingNote);
+        Mockito.when(noteRepository.modifyByIdAndUserName(eq(id), eq(username), isNull(), any())).thenReturn(Optional.of(modifiedNote));
         Note result = noteService.updateNote(id, username, updatedNote);
 
-        assertThat(result).isEqualTo(existingNote);
-        Mockito.verify(noteRepository).save(any(Note.class));
+        assertThat(result).isEqualTo(modifiedNote);
+        Mockito.verify(noteRepository, Mockito.never()).findByIdAndUserName(any(), any());
+        Mockito.verify(noteRepository, Mockito.never()).save(any(Note.class));
+        Mockito.verify(eventPublisher).publishEvent(NoteChangedEvent.saved(modifiedNote));
+    }
+
+    @Test
+    public void patchNote_SetsOnlyGivenFields() {
+        String id = "id";
+        Note modifiedNote = Note.builder().id(id).userName("user").title("new").version(4L).build();
+        Mockito.when(noteRepository.modifyByIdAndUserName(eq(id), eq("user"), eq(3L), any())).thenReturn(Optional.of(modifiedNote));
+
+        Note result = noteService.patchNote(id, "user", Note.builder().title("new").version(3L).build());
+
+        assertThat(result).isEqualTo(modifiedNote);
+        Mockito.verify(noteRepository).modifyByIdAndUserName(id, "user", 3L, Map.of("title", "new"));
+    }
+
+    @Test
+    public void patchNote_VersionConflict() {
+        String id = "id";
+        Mockito.when(noteRepository.modifyByIdAndUserName(eq(id), eq("user"), eq(3L), any())).thenReturn(Optional.empty());
+        Mockito.when(noteRepository.existsByIdAndUserName(id, "user")).thenReturn(true);
+
+        assertThatThrownBy(() -> noteService.patchNote(id, "user", Note.builder().content("c").version(3L).build()))
+                .isInstanceOf(NoteConflictException.class)
+                .hasMessageContaining(NOTE_CONFLICT);
+        Mockito.verify(eventPublisher, Mockito.never()).publishEvent(any());
     }
+
+    @Test
+    public void updateNote_SharedWithWritePermission() {
+        String noteId = "noteId";
+        Note modifiedNote = Note.builder().id(noteId).userName("owner").title("edited").build();
+        NoteShare share = NoteShare.builder().noteId(noteId).owner("owner").grantee("grantee")
+                .permission(ESharePermission.WRITE).build();
+        Mockito.when(noteRepository.modifyByIdAndUserName(eq(noteId), eq("grantee"), isNull(), any())).thenReturn(Optional.empty());
+        Mockito.when(noteShareRepository.findByNoteIdAndGrantee(eq(noteId), eq("grantee"))).thenReturn(Optional.of(share));
+        Mockito.when(noteRepository.modifyByIdAndUserName(eq(noteId), eq("owner"), isNull(), any())).thenReturn(Optional.of(modifiedNote));
+        Mockito.when(noteShareRepository.findByNoteId(eq(noteId))).thenReturn(List.of(share));
+
+        Note result = noteService.updateNote(noteId, "grantee", Note.builder().title("edited").build());
+
+        assertThat(result.getTitle()).isEqualTo("edited");
+        assertThat(result.getUserName()).isEqualTo("owner");
+        Mockito.verify(eventPublisher).publishEvent(NoteChangedEvent.saved(result));
+        Mockito.verify(eventPublisher).publishEvent(NoteChangedEvent.savedFor("grantee", result));
+    }
+
+    @Test
+    public void updateNote_SharedReadOnly() {
+        String noteId = "noteId";
+        NoteShare share = NoteShare.builder().noteId(noteId).owner("owner").grantee("grantee")
+                .permission(ESharePermission.READ).build();
+        Mockito.when(noteRepository.modifyByIdAndUserName(eq(noteId), eq("grantee"), isNull(), any())).thenReturn(Optional.empty());
+        Mockito.when(noteShareRepository.findByNoteIdAndGrantee(eq(noteId), eq("grantee"))).thenReturn(Optional.of(share));
+
+        assertThatThrownBy(() -> noteService.updateNote(noteId, "grantee", new Note()))
+                .isInstanceOf(ResourceNotFoundException.class);
+        Mockito.verify(noteRepository, Mockito.never()).modifyByIdAndUserName(eq(noteId), eq("owner"), any(), any());
+    }
+
     @Test
     public void updateNote_Failure() {
         String noteId = "invalidNoteId";
         String username = "testUser";
         Note updatedNote = new Note();
-        Optional<Note> emptyNote = Optional.empty();
 
-        Mockito.when(noteRepository.findByIdAndUserName(eq(noteId), eq(username))).thenReturn(emptyNote);
+        Mockito.when(noteRepository.modifyByIdAndUserName(eq(noteId), eq(username), isNull(), any())).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> noteService.updateNote(noteId, username, updatedNote))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessageContaining(INVALID_NOTE);
 
-        Mockito.verify(noteRepository).findByIdAndUserName(eq(noteId), eq(username));
-        Mockito.verify(noteRepository, Mockito.never()).save(any());
+        Mockito.verify(noteRepository).modifyByIdAndUserName(eq(noteId), eq(username), isNull(), any());
+        Mockito.verify(eventPublisher, Mockito.never()).publishEvent(any());
     }
 
     @Test
     public void deleteNoteById_Success() {
         String noteId = "validNoteId";
         String username = "testUser";
-        Note existingNote = new Note();
-        Optional<Note> optionalNote = Optional.of(existingNote);
 
-        Mockito.when(noteRepository.findByIdAndUserName(eq(noteId), eq(username))).thenReturn(optionalNote);
+        Mockito.when(noteRepository.deleteByIdAndUserName(eq(noteId), eq(username))).thenReturn(1L);
         noteService.deleteNoteById(noteId, username);
-        Mockito.verify(noteRepository).findByIdAndUserName(eq(noteId), eq(username));
-        Mockito.verify(noteRepository).deleteById(eq(noteId));
+        Mockito.verify(noteRepository).deleteByIdAndUserName(eq(noteId), eq(username));
+        Mockito.verify(noteRepository, Mockito.never()).findByIdAndUserName(any(), any());
+        Mockito.verify(eventPublisher).publishEvent(NoteChangedEvent.deleted(username, noteId));
+    }
+
+    @Test
+    public void deleteNoteById_RemovesShares() {
+        String noteId = "noteId";
+        NoteShare share = NoteShare.builder().noteId(noteId).owner("owner").grantee("grantee").build();
+        Mockito.when(noteRepository.deleteByIdAndUserName(eq(noteId), eq("owner"))).thenReturn(1L);
+        Mockito.when(noteShareRepository.findByNoteId(eq(noteId))).thenReturn(List.of(share));
+
+        noteService.deleteNoteById(noteId, "owner");
+
+        Mockito.verify(noteShareRepository).deleteByNoteId(eq(noteId));
+        Mockito.verify(eventPublisher).publishEvent(NoteChangedEvent.deleted("owner", noteId));
+        Mockito.verify(eventPublisher).publishEvent(NoteChangedEvent.deleted("grantee", noteId));
+        Mockito.verify(notesGenerationRepository, Mockito.times(2)).incrementAll(Set.of("owner", "grantee"));
     }
 
     @Test
     public void deleteNoteById_InvalidNoteId() {
         String noteId = "invalidNoteId";
         String username = "testUser";
-        Optional<Note> emptyNote = Optional.empty();
 
-        Mockito.when(noteRepository.findByIdAndUserName(eq(noteId), eq(username))).thenReturn(emptyNote);
+        Mockito.when(noteRepository.deleteByIdAndUserName(eq(noteId), eq(username))).thenReturn(0L);
 
         assertThatThrownBy(() -> noteService.deleteNoteById(noteId, username))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessageContaining(INVALID_NOTE);
 
-        Mockito.verify(noteRepository).findByIdAndUserName(eq(noteId), eq(username));
-        Mockito.verify(noteRepository, Mockito.never()).deleteById(eq(noteId));
+        Mockito.verify(eventPublisher, Mockito.never()).publishEvent(any());
     }
 
     @Test
@@ -169,13 +427,148 @@ public class NoteServiceImplTest {
         Mockito.when(noteRepository.findByIdAndUserName(eq(noteId), eq(senderUsername))).thenReturn(optionalNote);
         Mockito.when(userRepository.findByUsername(eq(recipientUsername))).thenReturn(optionalUser);
 
-        noteService.shareNoteWithUser(noteId, senderUsername, recipientUsername);
+        noteService.shareNoteWithUser(noteId, senderUsername, recipientUsername, ESharePermission.READ);
 
         // Verify that findByIdAndUserName and findByUsername were called with the expected arguments
         Mockito.verify(noteRepository).findByIdAndUserName(eq(noteId), eq(senderUsername));
         Mockito.verify(userRepository).findByUsername(eq(recipientUsername));
-        // Verify that save method was called with the expected argument (sharedNote)
-        Mockito.verify(noteRepository).save(any(Note.class));
+        // Verify that an access entry was saved instead of a copy of the note
+        ArgumentCaptor<NoteShare> share = ArgumentCaptor.forClass(NoteShare.class);
+        Mockito.verify(noteShareRepository).save(share.capture());
+        assertThat(share.getValue().getNoteId()).isEqualTo(noteId);
+        assertThat(share.getValue().getOwner()).isEqualTo(senderUsername);
+        assertThat(share.getValue().getGrantee()).isEqualTo(recipientUsername);
+        assertThat(share.getValue().getPermission()).isEqualTo(ESharePermission.READ);
+        Mockito.verify(noteRepository, Mockito.never()).save(any(Note.class));
+        Mockito.verify(eventPublisher).publishEvent(NoteChangedEvent.savedFor(recipientUsername, existingNote));
+    }
+
+    @Test
+    public void shareNoteWithUsers_ReportsPerRecipient() {
+        String noteId = "noteId";
+        Note note = Note.builder().id(noteId).userName("owner").build();
+        Mockito.when(noteRepository.findByIdAndUserName(eq(noteId), eq("owner"))).thenReturn(Optional.of(note));
+        Mockito.when(userRepository.findUsernamesIn(eq(List.of("a", "b", "c"))))
+                .thenReturn(List.of(User.builder().username("a").build(), User.builder().username("c").build()));
+        Mockito.when(noteShareRepository.upsertAll(eq(noteId), eq("owner"), eq(List.of("a", "c")), eq(ESharePermission.WRITE)))
+                .thenReturn(Set.of("c"));
+
+        List<ShareResult> results = noteService.shareNoteWithUsers(noteId, "owner", List.of("a", "b", "a", "c"), ESharePermission.WRITE);
+
+        assertThat(results).containsExactly(
+                new ShareResult("a", EShareStatus.SHARED),
+                new ShareResult("b", EShareStatus.USER_NOT_FOUND),
+                new ShareResult("c", EShareStatus.FAILED));
+        Mockito.verify(eventPublisher).publishEvent(NoteChangedEvent.savedFor("a", note));
+        Mockito.verify(eventPublisher, Mockito.never()).publishEvent(NoteChangedEvent.savedFor("c", note));
+    }
+
+    @Test
+    public void shareNoteWithUser_RejectsOwner() {
+        assertThatThrownBy(() -> noteService.shareNoteWithUser("noteId", "owner", "owner", ESharePermission.READ))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage(SELF_SHARE);
+
+        Mockito.verify(noteShareRepository, Mockito.never()).save(any());
+    }
+
+    @Test
+    public void shareNoteWithUsers_ReportsOwner() {
+        Note note = Note.builder().id("noteId").userName("owner").build();
+        Mockito.when(noteRepository.findByIdAndUserName(eq("noteId"), eq("owner"))).thenReturn(Optional.of(note));
+        Mockito.when(userRepository.findUsernamesIn(eq(List.of("a")))).thenReturn(List.of(User.builder().username("a").build()));
+        Mockito.when(noteShareRepository.upsertAll(eq("noteId"), eq("owner"), eq(List.of("a")), eq(ESharePermission.READ)))
+                .thenReturn(Set.of());
+
+        List<ShareResult> results = noteService.shareNoteWithUsers("noteId", "owner", List.of("owner", "a"), ESharePermission.READ);
+
+        assertThat(results).containsExactly(
+                new ShareResult("owner", EShareStatus.OWNER),
+                new ShareResult("a", EShareStatus.SHARED));
+    }
+
+    @Test
+    public void shareNoteWithUsers_RequiresRecipients() {
+        assertThatThrownBy(() -> noteService.shareNoteWithUsers("noteId", "owner", List.of(), ESharePermission.READ))
+                .isInstanceOf(IllegalArgumentException.class);
+        Mockito.verify(noteRepository, Mockito.never()).findByIdAndUserName(any(), any());
+    }
+
+    @Test
+    public void applyBatch_Unordered() {
+        Note existing = Note.builder().id("n1").userName("user").title("old").build();
+        Mockito.when(noteRepository.findByIdInAndUserName(any(), eq("user"))).thenReturn(List.of(existing));
+        Mockito.when(noteRepository.bulkWrite(eq("user"), anyList(), eq(false))).thenReturn(new BulkWriteOutcome(Set.of(), Set.of(), Set.of()));
+        List<BatchOperation> operations = List.of(
+                new BatchOperation(EBatchAction.CREATE, null, Note.builder().title("new").build()),
+                new BatchOperation(EBatchAction.UPDATE, "missing", Note.builder().title("x").build()),
+                new BatchOperation(EBatchAction.UPDATE, "n1", Note.builder().title("edited").build()),
+                new BatchOperation(EBatchAction.DELETE, "n1", null),
+                new BatchOperation(EBatchAction.DELETE, "n1", null));
+
+        List<BatchResult> results = noteService.applyBatch("user", operations, false);
+
+        assertThat(results).extracting(BatchResult::status).containsExactly(
+                EBatchStatus.CREATED, EBatchStatus.NOT_FOUND, EBatchStatus.UPDATED, EBatchStatus.DELETED, EBatchStatus.NOT_FOUND);
+        assertThat(results.get(0).id()).isNotNull();
+        Mockito.verify(noteRepository).bulkWrite(eq("user"), Mockito.argThat(writes -> writes.size() == 3), eq(false));
+        Mockito.verify(noteShareRepository).deleteByNoteIdIn(eq(Set.of("n1")));
+        Mockito.verify(eventPublisher).publishEvent(NoteChangedEvent.deleted("user", "n1"));
+    }
+
+    @Test
+    public void applyBatch_RejectsUpdatesOfAnotherVersionAndPublishesTheNewOne() {
+        Note existing = Note.builder().id("n1").userName("user").title("old").version(3L).build();
+        Mockito.when(noteRepository.findByIdInAndUserName(any(), eq("user"))).thenReturn(List.of(existing));
+        Mockito.when(noteRepository.bulkWrite(eq("user"), anyList(), eq(false))).thenReturn(new BulkWriteOutcome(Set.of(), Set.of(), Set.of()));
+        List<BatchOperation> operations = List.of(
+                new BatchOperation(EBatchAction.UPDATE, "n1", Note.builder().title("stale").version(2L).build()),
+                new BatchOperation(EBatchAction.UPDATE, "n1", Note.builder().title("edited").version(3L).build()));
+
+        List<BatchResult> results = noteService.applyBatch("user", operations, false);
+
+        assertThat(results).extracting(BatchResult::status).containsExactly(EBatchStatus.CONFLICT, EBatchStatus.UPDATED);
+        Mockito.verify(noteRepository).bulkWrite(eq("user"), Mockito.argThat(writes -> writes.size() == 1), eq(false));
+        Mockito.verify(eventPublisher).publishEvent(Mockito.<NoteChangedEvent>argThat(event ->
+                event.note() != null && event.note().getVersion() == 4L && "edited".equals(event.note().getTitle())));
+    }
+
+    @Test
+    public void applyBatch_ReportsWritesThatMatchedNothing() {
+        Note first = Note.builder().id("n1").userName("user").title("old").version(1L).build();
+        Note second = Note.builder().id("n2").userName("user").title("old").version(1L).build();
+        Mockito.when(noteRepository.findByIdInAndUserName(any(), eq("user"))).thenReturn(List.of(first, second));
+        Mockito.when(noteRepository.bulkWrite(eq("user"), anyList(), eq(false)))
+                .thenReturn(new BulkWriteOutcome(Set.of(), Set.of(0), Set.of(1)));
+        List<BatchOperation> operations = List.of(
+                new BatchOperation(EBatchAction.DELETE, "n1", null),
+                new BatchOperation(EBatchAction.UPDATE, "n2", Note.builder().title("edited").version(1L).build()));
+
+        List<BatchResult> results = noteService.applyBatch("user", operations, false);
+
+        assertThat(results).extracting(BatchResult::status).containsExactly(EBatchStatus.NOT_FOUND, EBatchStatus.CONFLICT);
+        Mockito.verify(noteShareRepository, Mockito.never()).deleteByNoteIdIn(any());
+        Mockito.verify(eventPublisher, Mockito.never()).publishEvent(any(NoteChangedEvent.class));
+    }
+
+    @Test
+    public void applyBatch_OrderedStopsAtFirstRejectedOrFailedWrite() {
+        Mockito.when(noteRepository.bulkWrite(eq("user"), anyList(), anyBoolean()))
+                .thenReturn(new BulkWriteOutcome(Set.of(1), Set.of(), Set.of()));
+        List<BatchOperation> operations = List.of(
+                new BatchOperation(EBatchAction.CREATE, null, Note.builder().title("a").build()),
+                new BatchOperation(EBatchAction.CREATE, null, Note.builder().title("b").build()),
+                new BatchOperation(EBatchAction.CREATE, null, Note.builder().title("c").build()),
+                new BatchOperation(EBatchAction.CREATE, null, new Note()),
+                new BatchOperation(EBatchAction.CREATE, null, Note.builder().title("d").build()));
+
+        List<BatchResult> results = noteService.applyBatch("user", operations, true);
+
+        // the untitled note stops the batch before it is sent; the second write then fails in the database
+        assertThat(results).extracting(BatchResult::status).containsExactly(
+                EBatchStatus.CREATED, EBatchStatus.FAILED, EBatchStatus.NOT_EXECUTED, EBatchStatus.INVALID, EBatchStatus.NOT_EXECUTED);
+        Mockito.verify(noteRepository).bulkWrite(eq("user"), Mockito.argThat(writes -> writes.size() == 3), eq(true));
+        Mockito.verify(eventPublisher, Mockito.times(1)).publishEvent(any(NoteChangedEvent.class));
     }
 
     @Test
@@ -189,7 +582,7 @@ public class NoteServiceImplTest {
         Mockito.when(noteRepository.findByIdAndUserName(eq(noteId), eq(senderUsername))).thenReturn(emptyNote);
         Mockito.when(userRepository.findByUsername(eq(recipientUsername))).thenReturn(emptyUser);
 
-        assertThatThrownBy(() -> noteService.shareNoteWithUser(noteId, senderUsername, recipientUsername))
+        assertThatThrownBy(() -> noteService.shareNoteWithUser(noteId, senderUsername, recipientUsername, ESharePermission.READ))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessageContaining(INVALID_NOTE);
 
@@ -197,7 +590,7 @@ public class NoteServiceImplTest {
         Mockito.verify(noteRepository).findByIdAndUserName(eq(noteId), eq(senderUsername));
         Mockito.verify(userRepository).findByUsername(eq(recipientUsername));
         // Verify that save method was not called
-        Mockito.verify(noteRepository, Mockito.never()).save(any(Note.class));
+        Mockito.verify(noteShareRepository, Mockito.never()).save(any(NoteShare.class));
     }
     @Test
     public void shareNoteWithUser_InvalidUser() {
@@ -211,7 +604,7 @@ public class NoteServiceImplTest {
         Mockito.when(noteRepository.findByIdAndUserName(eq(noteId), eq(senderUsername))).thenReturn(optionalNote);
         Mockito.when(userRepository.findByUsername(eq(recipientUsername))).thenReturn(emptyUser);
 
-        assertThatThrownBy(() -> noteService.shareNoteWithUser(noteId, senderUsername, recipientUsername))
+        assertThatThrownBy(() -> noteService.shareNoteWithUser(noteId, senderUsername, recipientUsername, ESharePermission.READ))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessageContaining(INVALID_USER);
 
@@ -219,7 +612,6 @@ public class NoteServiceImplTest {
         Mockito.verify(noteRepository).findByIdAndUserName(eq(noteId), eq(senderUsername));
         Mockito.verify(userRepository).findByUsername(eq(recipientUsername));
         // Verify that save method was not called
-        Mockito.verify(noteRepository, Mockito.never()).save(any(Note.class));
+        Mockito.verify(noteShareRepository, Mockito.never()).save(any(NoteShare.class));
     }
 }
-
@@ -0,0 +1,119 @@
+package com.manjot.snapnote.service.note;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.manjot.snapnote.dto.note.NoteDTOMapper;
+import com.manjot.snapnote.model.Note;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffHeapNoteCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private final OffHeapNoteCache cache = new OffHeapNoteCache(DataSize.ofMegabytes(2), objectMapper, meterRegistry);
+
+    private static Note note(String id, String userName) {
+        return Note.builder().id(id).userName(userName).title("Title").content("Content")
+                .labelList(List.of("a", "b")).createdAt(LocalDateTime.of(2024, 1, 3, 16, 39)).build();
+    }
+
+    @Test
+    void get_ReturnsCopyOfCachedNote() {
+        cache.put(note("1", "user"), cache.stamp("1"));
+
+        Note cached = cache.get("1", "user").orElseThrow();
+
+        assertThat(cached.getTitle()).isEqualTo("Title");
+        assertThat(cached.getLabelList()).containsExactly("a", "b");
+        assertThat(cached.getCreatedAt()).isEqualTo(LocalDateTime.of(2024, 1, 3, 16, 39));
+        assertThat(meterRegistry.get("snapnote.note.cache.offheap.used").gauge().value()).isEqualTo(256);
+    }
+
+    @Test
+    void getJson_ReturnsNoteDTOJsonWithVersion() throws Exception {
+        Note note = note("1", "user");
+        note.setVersion(3L);
+        cache.put(note, cache.stamp(note.getId()));
+
+        NoteJson cached = cache.getJson("1", "user").orElseThrow();
+
+        assertThat(cached.version()).isEqualTo(3);
+        assertThat(cached.json()).isEqualTo(objectMapper.writeValueAsBytes(NoteDTOMapper.mapToNoteDTO(note)));
+        assertThat(cache.getVersion("1", "user")).contains(3L);
+        assertThat(cache.getJson("1", "other")).isEmpty();
+    }
+
+    @Test
+    void get_RejectsOtherUsers() {
+        cache.put(note("1", "user"), cache.stamp("1"));
+
+        assertThat(cache.get("1", "other")).isEmpty();
+    }
+
+    @Test
+    void onNoteChanged_InvalidatesAndFreesSlot() {
+        cache.put(note("1", "user"), cache.stamp("1"));
+
+        cache.onNoteChanged(NoteChangedEvent.deleted("user", "1"));
+
+        assertThat(cache.get("1", "user")).isEmpty();
+        assertThat(meterRegistry.get("snapnote.note.cache.offheap.used").gauge().value()).isZero();
+    }
+
+    @Test
+    void put_SkipsNotesLoadedBeforeAnInvalidation() {
+        long loadStamp = cache.stamp("1");
+        cache.invalidate("1");
+
+        cache.put(note("1", "user"), loadStamp);
+
+        assertThat(cache.get("1", "user")).isEmpty();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void put_CachesNotesLoadedBeforeAnotherNoteWasInvalidated() {
+        long loadStamp = cache.stamp("1");
+        cache.invalidate("2");
+
+        cache.put(note("1", "user"), loadStamp);
+
+        assertThat(cache.get("1", "user")).isPresent();
+    }
+
+    @Test
+    void put_SkipsNotesLoadedBeforeInvalidateAll() {
+        long loadStamp = cache.stamp("1");
+        cache.invalidateAll();
+
+        cache.put(note("1", "user"), loadStamp);
+
+        assertThat(cache.get("1", "user")).isEmpty();
+    }
+
+    @Test
+    void put_CachesLargeNoteOnceSmallNotesFillTheBudget() {
+        int smallNotes = 2 * SlabAllocator.SLAB_BYTES / 256;
+        for (int i = 0; i < smallNotes; i++) {
+            cache.put(note("small-" + i, "user"), cache.stamp("small-" + i));
+        }
+        assertThat(meterRegistry.get("snapnote.note.cache.offheap.used").gauge().value()).isEqualTo(2.0 * SlabAllocator.SLAB_BYTES);
+
+        Note large = note("large", "user");
+        large.setContent("x".repeat(20_000));
+        cache.put(large, cache.stamp(large.getId()));
+
+        assertThat(cache.get("large", "user").map(Note::getContent)).contains("x".repeat(20_000));
+        // one slab of small notes was drained to make room
+        assertThat(cache.size()).isEqualTo(smallNotes / 2 + 1);
+        assertThat(meterRegistry.get("snapnote.note.cache.offheap.allocated").gauge().value()).isEqualTo(2.0 * SlabAllocator.SLAB_BYTES);
+    }
+}
@@ -0,0 +1,126 @@
+package com.manjot.snapnote.service.note;
+
+import com.manjot.snapnote.exception.ResourceNotFoundException;
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.model.NoteShare;
+import com.manjot.snapnote.model.enums.QueryType;
+import com.manjot.snapnote.repository.ReactiveNoteRepository;
+import com.manjot.snapnote.repository.ReactiveNoteShareRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReactiveNoteServiceImplTest {
+
+    @Mock
+    private ReactiveNoteRepository noteRepository;
+
+    @Mock
+    private ReactiveNoteShareRepository noteShareRepository;
+
+    @InjectMocks
+    private ReactiveNoteServiceImpl noteService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private static Note note(String id, String userName) {
+        return Note.builder().id(id).userName(userName).title("Title").build();
+    }
+
+    @Test
+    void getNoteById_Owned() {
+        Note note = note("noteId", "user");
+        when(noteRepository.findByIdAndUserName("noteId", "user")).thenReturn(Mono.just(note));
+
+        StepVerifier.create(noteService.getNoteById("noteId", "user"))
+                .expectNext(note)
+                .verifyComplete();
+        verifyNoInteractions(noteShareRepository);
+    }
+
+    @Test
+    void getNoteById_SharedWithUser() {
+        Note note = note("noteId", "owner");
+        NoteShare share = NoteShare.builder().noteId("noteId").owner("owner").grantee("grantee").build();
+        when(noteRepository.findByIdAndUserName("noteId", "grantee")).thenReturn(Mono.empty());
+        when(noteShareRepository.findByNoteIdAndGrantee("noteId", "grantee")).thenReturn(Mono.just(share));
+        when(noteRepository.findByIdAndUserName("noteId", "owner")).thenReturn(Mono.just(note));
+
+        StepVerifier.create(noteService.getNoteById("noteId", "grantee"))
+                .expectNext(note)
+                .verifyComplete();
+    }
+
+    @Test
+    void getNoteById_NotFound() {
+        when(noteRepository.findByIdAndUserName("noteId", "user")).thenReturn(Mono.empty());
+        when(noteShareRepository.findByNoteIdAndGrantee("noteId", "user")).thenReturn(Mono.empty());
+
+        StepVerifier.create(noteService.getNoteById("noteId", "user"))
+                .expectError(ResourceNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void getAllNotes_OwnedThenShared() {
+        Note owned = note("1", "user");
+        Note shared = note("2", "owner");
+        when(noteRepository.findByUserName("user")).thenReturn(Flux.just(owned));
+        when(noteRepository.findSharedWith(eq("user"), any(Criteria.class))).thenReturn(Flux.just(shared));
+
+        StepVerifier.create(noteService.getAllNotes("user"))
+                .expectNext(owned, shared)
+                .verifyComplete();
+    }
+
+    @Test
+    void getAllNotes_FollowsSubscriberDemand() {
+        Flux<Note> owned = Flux.range(0, 1000).map(i -> note(Integer.toString(i), "user"));
+        List<Long> requested = new CopyOnWriteArrayList<>();
+        when(noteRepository.findByUserName("user")).thenReturn(owned.doOnRequest(requested::add));
+        when(noteRepository.findSharedWith(eq("user"), any(Criteria.class))).thenReturn(Flux.empty());
+
+        StepVerifier.create(noteService.getAllNotes("user"), 1)
+                .expectNextCount(1)
+                .thenCancel()
+                .verify();
+
+        assertThat(requested).containsExactly((long) ReactiveNoteServiceImpl.PREFETCH);
+    }
+
+    @Test
+    void searchNotes_LabelExpressionQueriesOwnedAndShared() {
+        Note owned = note("1", "user");
+        when(noteRepository.findByUserNameMatching(eq("user"), any(Criteria.class))).thenReturn(Flux.just(owned));
+        when(noteRepository.findSharedWith(eq("user"), any(Criteria.class))).thenReturn(Flux.empty());
+
+        StepVerifier.create(noteService.searchNotes("work AND urgent", QueryType.LABEL, "user"))
+                .expectNext(owned)
+                .verifyComplete();
+    }
+
+    @Test
+    void searchNotes_RejectsUnsupportedQueryTypeBeforeStreaming() {
+        assertThatThrownBy(() -> noteService.searchNotes("query", QueryType.TEXT, "user"))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(noteRepository);
+    }
+}
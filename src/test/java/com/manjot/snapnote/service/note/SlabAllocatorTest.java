@@ -0,0 +1,107 @@
+package com.manjot.snapnote.service.note;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlabAllocatorTest {
+
+    @Test
+    void slotSize_RoundsUpToPowerOfTwo() {
+        assertThat(SlabAllocator.slotSize(10)).isEqualTo(256);
+        assertThat(SlabAllocator.slotSize(248)).isEqualTo(256);
+        assertThat(SlabAllocator.slotSize(249)).isEqualTo(512);
+        assertThat(SlabAllocator.slotSize(SlabAllocator.MAX_SLOT_BYTES)).isEqualTo(-1);
+    }
+
+    @Test
+    void read_ReturnsStoredPayload() {
+        SlabAllocator allocator = new SlabAllocator(SlabAllocator.SLAB_BYTES);
+        byte[] payload = "hello".getBytes(StandardCharsets.UTF_8);
+
+        SlabAllocator.Slot slot = allocator.store(payload, 7, "n");
+
+        assertThat(allocator.read(slot, 7, payload.length)).isEqualTo(payload);
+        assertThat(allocator.allocatedBytes()).isEqualTo(SlabAllocator.SLAB_BYTES);
+        assertThat(allocator.usedBytes()).isEqualTo(256);
+    }
+
+    @Test
+    void read_DetectsRecycledSlot() {
+        SlabAllocator allocator = new SlabAllocator(SlabAllocator.SLAB_BYTES);
+        SlabAllocator.Slot slot = allocator.store(new byte[]{1}, 1, "n");
+
+        allocator.free(slot);
+        SlabAllocator.Slot reused = allocator.store(new byte[]{2}, 2, "n");
+
+        assertThat(reused).isEqualTo(slot);
+        assertThat(allocator.read(slot, 1, 1)).isNull();
+        assertThat(allocator.read(reused, 2, 1)).containsExactly(2);
+    }
+
+    @Test
+    void store_StopsAtCapacity() {
+        SlabAllocator allocator = new SlabAllocator(SlabAllocator.SLAB_BYTES);
+        int slots = SlabAllocator.SLAB_BYTES / 256;
+        for (int i = 0; i < slots; i++) {
+            assertThat(allocator.store(new byte[8], i + 1, "n")).isNotNull();
+        }
+
+        assertThat(allocator.store(new byte[8], slots + 1, "n")).isNull();
+        assertThat(allocator.store(new byte[1000], slots + 2, "n")).isNull();
+    }
+
+    @Test
+    void free_ReturnsEmptySlabToSharedPool() {
+        SlabAllocator allocator = new SlabAllocator(2L * SlabAllocator.SLAB_BYTES);
+        int slots = SlabAllocator.SLAB_BYTES / 256;
+        List<SlabAllocator.Slot> small = new ArrayList<>();
+        for (int i = 0; i < 2 * slots; i++) {
+            small.add(allocator.store(new byte[8], i + 1, "n" + i));
+        }
+        assertThat(allocator.store(new byte[1000], 1, "large")).isNull();
+
+        small.subList(slots, 2 * slots).forEach(allocator::free);
+
+        assertThat(allocator.store(new byte[1000], 2, "large")).isNotNull();
+        assertThat(allocator.allocatedBytes()).isEqualTo(2L * SlabAllocator.SLAB_BYTES);
+    }
+
+    @Test
+    void reclaim_DrainsSlabOfAnotherClass() {
+        SlabAllocator allocator = new SlabAllocator(SlabAllocator.SLAB_BYTES);
+        int slots = SlabAllocator.SLAB_BYTES / 256;
+        Map<String, SlabAllocator.Slot> small = new HashMap<>();
+        for (int i = 0; i < slots; i++) {
+            small.put("n" + i, allocator.store(new byte[8], i + 1, "n" + i));
+        }
+
+        List<String> owners = allocator.reclaim(1000);
+
+        assertThat(owners).hasSize(slots).containsAll(small.keySet());
+        assertThat(small.values()).allMatch(SlabAllocator.Slot::reclaimed);
+        // a drained slab hands out no more slots
+        assertThat(allocator.store(new byte[8], slots + 1, "late")).isNull();
+
+        owners.forEach(owner -> allocator.free(small.get(owner)));
+
+        SlabAllocator.Slot large = allocator.store(new byte[1000], slots + 2, "large");
+        assertThat(large).isNotNull();
+        assertThat(large.size()).isEqualTo(1024);
+        assertThat(allocator.usedBytes()).isEqualTo(1024);
+    }
+
+    @Test
+    void reclaim_LeavesTheRequestedClassAlone() {
+        SlabAllocator allocator = new SlabAllocator(SlabAllocator.SLAB_BYTES);
+        allocator.store(new byte[8], 1, "n");
+
+        assertThat(allocator.reclaim(8)).isEmpty();
+    }
+}
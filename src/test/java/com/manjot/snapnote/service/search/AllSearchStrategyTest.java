@@ -0,0 +1,117 @@
+package com.manjot.snapnote.service.search;
+
+import com.manjot.snapnote.exception.ServiceUnavailableException;
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.repository.NoteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class AllSearchStrategyTest {
+
+    private final NoteRepository repository = mock(NoteRepository.class);
+
+    private ParallelSearchExecutor executor = new ParallelSearchExecutor(8, 16, Duration.ofSeconds(5), new SimpleMeterRegistry(), new MockEnvironment());
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    private static Note note(String id, int day) {
+        return Note.builder().id(id).userName("user").createdAt(LocalDateTime.of(2024, 1, day, 0, 0)).build();
+    }
+
+    @Test
+    void search_MergesAndRanksByMatchedFields() {
+        when(repository.findByTitleContainingAndUserName("work", "user")).thenReturn(List.of(note("a", 1)));
+        when(repository.findByLabelListInAndUserName(List.of("work"), "user")).thenReturn(List.of(note("b", 2)));
+        when(repository.findByContentContainingAndUserName("work", "user")).thenReturn(List.of(note("a", 1), note("b", 2), note("c", 3)));
+
+        List<Note> result = new AllSearchStrategy(executor).search(repository, "work", "user");
+
+        assertThat(result).extracting(Note::getId).containsExactly("a", "b", "c");
+        assertThat(result).extracting(Note::getScore).containsExactly(4f, 3f, 1f);
+    }
+
+    @Test
+    void search_RunsSubQueriesConcurrently() {
+        // each owned sub-query only returns once all three are running
+        CountDownLatch running = new CountDownLatch(3);
+        when(repository.findByTitleContainingAndUserName("work", "user")).thenAnswer(invocation -> awaitOthers(running));
+        when(repository.findByLabelListInAndUserName(List.of("work"), "user")).thenAnswer(invocation -> awaitOthers(running));
+        when(repository.findByContentContainingAndUserName("work", "user")).thenAnswer(invocation -> awaitOthers(running));
+
+        List<Note> result = new AllSearchStrategy(executor).search(repository, "work", "user");
+
+        assertThat(result).isEmpty();
+        assertThat(running.getCount()).isZero();
+    }
+
+    @Test
+    void search_FailsAfterDeadline() {
+        executor.shutdown();
+        executor = new ParallelSearchExecutor(8, 16, Duration.ofMillis(100), new SimpleMeterRegistry(), new MockEnvironment());
+        when(repository.findByTitleContainingAndUserName("work", "user")).thenAnswer(invocation -> {
+            Thread.sleep(5_000);
+            return List.of();
+        });
+
+        assertThatThrownBy(() -> new AllSearchStrategy(executor).search(repository, "work", "user"))
+                .isInstanceOf(ServiceUnavailableException.class)
+                .hasMessageContaining("100 ms");
+    }
+
+    @Test
+    void search_FailsWhenPoolIsSaturated() {
+        executor.shutdown();
+        executor = new ParallelSearchExecutor(1, 1, Duration.ofSeconds(5), new SimpleMeterRegistry(), new MockEnvironment());
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.findByTitleContainingAndUserName("work", "user")).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        try {
+            assertThatThrownBy(() -> new AllSearchStrategy(executor).search(repository, "work", "user"))
+                    .isInstanceOf(ServiceUnavailableException.class)
+                    .hasMessageContaining("overloaded");
+        } finally {
+            release.countDown();
+        }
+        verify(repository, never()).findByContentContainingAndUserName(anyString(), anyString());
+    }
+
+    @Test
+    void search_MatchesWholeQueryAsOneLabel() {
+        new AllSearchStrategy(executor).search(repository, "to do AND later", "user");
+
+        verify(repository).findByLabelListInAndUserName(List.of("to do AND later"), "user");
+    }
+
+    @Test
+    void search_TakesQuotesInQueryLiterally() {
+        new AllSearchStrategy(executor).search(repository, "say \"hi", "user");
+
+        verify(repository).findByLabelListInAndUserName(List.of("say \"hi"), "user");
+        verify(repository).findSharedWith(eq("user"),
+                argThat(criteria -> "say \"hi".equals(criteria.getCriteriaObject().get("labelList"))));
+    }
+
+    private static List<Note> awaitOthers(CountDownLatch running) throws InterruptedException {
+        running.countDown();
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        return List.of();
+    }
+}
@@ -0,0 +1,31 @@
+package com.manjot.snapnote.service.search;
+
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.service.note.NoteChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LabelBitmapIndexTest {
+
+    private final LabelBitmapIndex index = new LabelBitmapIndex(DataSize.ofMegabytes(1));
+
+    private static Note note(String id, String... labels) {
+        return Note.builder().id(id).userName("user").labelList(List.of(labels)).build();
+    }
+
+    @Test
+    void onNoteChanged_KeepsLoadedShardCurrent() {
+        LabelExpression math = LabelExpression.parse("math");
+        index.search("user", math, user -> List.of(note("1", "math")));
+
+        index.onNoteChanged(NoteChangedEvent.saved(note("2", "math")));
+        index.onNoteChanged(NoteChangedEvent.deleted("user", "1"));
+
+        assertThat(index.search("user", math, user -> List.of()))
+                .extracting(Note::getId).containsExactly("2");
+    }
+}
@@ -0,0 +1,48 @@
+package com.manjot.snapnote.service.search;
+
+import com.manjot.snapnote.service.search.LabelExpression.And;
+import com.manjot.snapnote.service.search.LabelExpression.Label;
+import com.manjot.snapnote.service.search.LabelExpression.Not;
+import com.manjot.snapnote.service.search.LabelExpression.Or;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LabelExpressionTest {
+
+    @Test
+    void parse_PlainLabel() {
+        assertThat(LabelExpression.parse("math")).isEqualTo(new Label("math"));
+        assertThat(LabelExpression.parse("to do")).isEqualTo(new Label("to do"));
+    }
+
+    @Test
+    void parse_Precedence() {
+        LabelExpression expression = LabelExpression.parse("math and not done or physics");
+
+        assertThat(expression).isEqualTo(new Or(List.of(
+                new And(List.of(new Label("math"), new Not(new Label("done")))),
+                new Label("physics"))));
+    }
+
+    @Test
+    void parse_ParenthesesAndQuotes() {
+        LabelExpression expression = LabelExpression.parse("math AND (\"or\" OR \"to review\")");
+
+        assertThat(expression).isEqualTo(new And(List.of(
+                new Label("math"),
+                new Or(List.of(new Label("or"), new Label("to review"))))));
+    }
+
+    @Test
+    void parse_Malformed() {
+        assertThatThrownBy(() -> LabelExpression.parse("math AND")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> LabelExpression.parse("(math OR physics")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> LabelExpression.parse("math)")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> LabelExpression.parse("\"math")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> LabelExpression.parse("  ")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -2,12 +2,16 @@ package com.manjot.snapnote.service.search;
 
 import com.manjot.snapnote.model.Note;
 import com.manjot.snapnote.repository.NoteRepository;
+import org.bson.Document;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Criteria;
 
 import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
@@ -43,4 +47,38 @@ public class LabelSearchStrategyTest {
         verify(repository, times(1)).findByLabelListInAndUserName(List.of(query), userName);
         verifyNoMoreInteractions(repository);
     }
+
+    @Test
+    void search_LabelExpression() {
+        NoteRepository repository = mock(NoteRepository.class);
+        LabelSearchStrategy strategy = new LabelSearchStrategy();
+        List<Note> expectedResult = Collections.singletonList(new Note());
+
+        when(repository.findByUserNameMatching(eq("user"), any(Criteria.class))).thenReturn(expectedResult);
+        List<Note> result = strategy.search(repository, "math AND pending", "user");
+
+        assertEquals(expectedResult, result);
+        verify(repository, times(1)).findByUserNameMatching(eq("user"), any(Criteria.class));
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    void toCriteria_UsesArrayOperatorsForPlainLabels() {
+        assertEquals(new Document("labelList", new Document("$all", List.of("a", "b"))),
+                LabelSearchStrategy.toCriteria(LabelExpression.parse("a AND b")).getCriteriaObject());
+        assertEquals(new Document("labelList", new Document("$in", List.of("a", "b"))),
+                LabelSearchStrategy.toCriteria(LabelExpression.parse("a OR b")).getCriteriaObject());
+        assertEquals(new Document("labelList", new Document("$ne", "a")),
+                LabelSearchStrategy.toCriteria(LabelExpression.parse("NOT a")).getCriteriaObject());
+    }
+
+    @Test
+    void toCriteria_NestsMixedExpressions() {
+        Document criteria = LabelSearchStrategy.toCriteria(LabelExpression.parse("a AND NOT (b OR c)")).getCriteriaObject();
+
+        assertEquals(new Document("$and", List.of(
+                new Document("labelList", "a"),
+                new Document("$nor", List.of(new Document("labelList", new Document("$in", List.of("b", "c"))))))),
+                criteria);
+    }
 }
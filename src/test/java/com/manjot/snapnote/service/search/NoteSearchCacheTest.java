@@ -0,0 +1,63 @@
+package com.manjot.snapnote.service.search;
+
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.model.enums.QueryType;
+import com.manjot.snapnote.service.note.NoteChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NoteSearchCacheTest {
+
+    private final NoteSearchCache cache = new NoteSearchCache(100, DataSize.ofMegabytes(1), Duration.ofMinutes(5));
+
+    private final AtomicInteger searches = new AtomicInteger();
+
+    private final Supplier<List<Note>> search = () -> {
+        searches.incrementAndGet();
+        return List.of(Note.builder().id("1").userName("user").build());
+    };
+
+    @Test
+    void get_CachesNormalizedQuery() {
+        cache.get("user", QueryType.TEXT, "Math  notes", search);
+        List<Note> result = cache.get("user", QueryType.TEXT, " math notes ", search);
+
+        assertThat(searches).hasValue(1);
+        assertThat(result).extracting(Note::getId).containsExactly("1");
+    }
+
+    @Test
+    void get_KeepsCaseForCaseSensitiveTypes() {
+        cache.get("user", QueryType.LABEL, "Math", search);
+        cache.get("user", QueryType.LABEL, "math", search);
+
+        assertThat(searches).hasValue(2);
+    }
+
+    @Test
+    void get_SkipsInMemoryTypes() {
+        cache.get("user", QueryType.INDEXED, "math", search);
+        cache.get("user", QueryType.INDEXED, "math", search);
+
+        assertThat(searches).hasValue(2);
+    }
+
+    @Test
+    void onNoteChanged_InvalidatesOnlyThatUser() {
+        cache.get("user", QueryType.CONTENT, "math", search);
+        cache.get("other", QueryType.CONTENT, "math", search);
+
+        cache.onNoteChanged(NoteChangedEvent.deleted("user", "1"));
+        cache.get("user", QueryType.CONTENT, "math", search);
+        cache.get("other", QueryType.CONTENT, "math", search);
+
+        assertThat(searches).hasValue(3);
+    }
+}
@@ -0,0 +1,55 @@
+package com.manjot.snapnote.service.search;
+
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.service.note.NoteChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NoteSearchIndexTest {
+
+    private final NoteSearchIndex index = new NoteSearchIndex(DataSize.ofMegabytes(1));
+
+    private static Note note(String id, String content) {
+        return Note.builder().id(id).userName("user").title("title").content(content).build();
+    }
+
+    @Test
+    void search_BuildsShardOnce() {
+        AtomicInteger loads = new AtomicInteger();
+
+        index.search("user", "apple", 10, user -> {
+            loads.incrementAndGet();
+            return List.of(note("1", "apple pie"));
+        });
+        List<Note> result = index.search("user", "apple", 10, user -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+
+        assertThat(loads).hasValue(1);
+        assertThat(result).extracting(Note::getId).containsExactly("1");
+    }
+
+    @Test
+    void onNoteChanged_KeepsLoadedShardCurrent() {
+        index.search("user", "apple", 10, user -> List.of(note("1", "apple pie")));
+
+        index.onNoteChanged(NoteChangedEvent.saved(note("2", "apple crumble")));
+        index.onNoteChanged(NoteChangedEvent.deleted("user", "1"));
+
+        assertThat(index.search("user", "apple", 10, user -> List.of()))
+                .extracting(Note::getId).containsExactly("2");
+    }
+
+    @Test
+    void onNoteChanged_IgnoresUsersWithoutShard() {
+        index.onNoteChanged(NoteChangedEvent.saved(note("1", "apple pie")));
+
+        assertThat(index.search("user", "apple", 10, user -> List.of())).isEmpty();
+    }
+}
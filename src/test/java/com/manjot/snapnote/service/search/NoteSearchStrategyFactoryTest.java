@@ -1,33 +1,64 @@
 package com.manjot.snapnote.service.search;
 
+import com.manjot.snapnote.model.enums.QueryType;
 import org.junit.jupiter.api.Test;
 
+import java.util.Map;
+
+import static com.manjot.snapnote.model.enums.QueryType.ALL;
 import static com.manjot.snapnote.model.enums.QueryType.CONTENT;
-import static com.manjot.snapnote.model.enums.QueryType.LABEL;
 import static com.manjot.snapnote.model.enums.QueryType.DEFAULT;
+import static com.manjot.snapnote.model.enums.QueryType.INDEXED;
+import static com.manjot.snapnote.model.enums.QueryType.LABEL;
+import static com.manjot.snapnote.model.enums.QueryType.LABEL_BITMAP;
+import static com.manjot.snapnote.model.enums.QueryType.TEXT;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
 
 class NoteSearchStrategyFactoryTest {
 
+    private final Map<QueryType, NoteSearchStrategy> strategies = NoteSearchStrategyFactory.createStrategies(
+            mock(NoteSearchIndex.class), mock(LabelBitmapIndex.class), mock(ParallelSearchExecutor.class));
+
     @Test
     void getStrategy_Content() {
-        NoteSearchStrategy strategy = NoteSearchStrategyFactory.getStrategy(CONTENT);
+        NoteSearchStrategy strategy = NoteSearchStrategyFactory.getStrategy(strategies, CONTENT);
 
         assertNotNull(strategy);
     }
 
     @Test
     void getStrategy_Label() {
-        NoteSearchStrategy strategy = NoteSearchStrategyFactory.getStrategy(LABEL);
+        NoteSearchStrategy strategy = NoteSearchStrategyFactory.getStrategy(strategies, LABEL);
 
         assertNotNull(strategy);
     }
 
+    @Test
+    void getStrategy_Text() {
+        NoteSearchStrategy strategy = NoteSearchStrategyFactory.getStrategy(strategies, TEXT);
+
+        assertInstanceOf(TextSearchStrategy.class, strategy);
+    }
+
+    @Test
+    void getStrategy_ComponentBackedTypes() {
+        assertInstanceOf(IndexedSearchStrategy.class, NoteSearchStrategyFactory.getStrategy(strategies, INDEXED));
+        assertInstanceOf(LabelBitmapSearchStrategy.class, NoteSearchStrategyFactory.getStrategy(strategies, LABEL_BITMAP));
+        assertInstanceOf(AllSearchStrategy.class, NoteSearchStrategyFactory.getStrategy(strategies, ALL));
+    }
+
     @Test
     void getStrategy_Default() {
-        NoteSearchStrategy strategy = NoteSearchStrategyFactory.getStrategy(DEFAULT);
+        NoteSearchStrategy strategy = NoteSearchStrategyFactory.getStrategy(strategies, DEFAULT);
 
         assertNotNull(strategy);
     }
-}
 
+    @Test
+    void createStrategies_CannotBeChangedAfterwards() {
+        assertThrows(UnsupportedOperationException.class, () -> strategies.put(DEFAULT, new DefaultSearchStrategy()));
+    }
+}
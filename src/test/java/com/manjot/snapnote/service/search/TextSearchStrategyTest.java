@@ -0,0 +1,65 @@
+package com.manjot.snapnote.service.search;
+
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.repository.NoteRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TextSearchStrategyTest {
+
+    @Test
+    void search_RanksAndLimits() {
+        NoteRepository repository = mock(NoteRepository.class);
+        TextSearchStrategy strategy = new TextSearchStrategy();
+        Note best = Note.builder().id("1").score(2.5f).build();
+        Note next = Note.builder().id("2").score(1.0f).build();
+
+        when(repository.findByUserNameOrderByScoreDesc(eq("user"), any(TextCriteria.class), any(Pageable.class)))
+                .thenReturn(List.of(best, next));
+
+        List<Note> result = strategy.search(repository, "math notes", "user");
+
+        assertEquals(List.of(best, next), result);
+        ArgumentCaptor<TextCriteria> criteria = ArgumentCaptor.forClass(TextCriteria.class);
+        ArgumentCaptor<Pageable> page = ArgumentCaptor.forClass(Pageable.class);
+        verify(repository).findByUserNameOrderByScoreDesc(eq("user"), criteria.capture(), page.capture());
+        assertEquals("math notes", criteria.getValue().getCriteriaObject().get("$text", Document.class).get("$search"));
+        assertEquals(TextSearchStrategy.RESULT_LIMIT, page.getValue().getPageSize());
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    void search_DropsWeakMatches() {
+        NoteRepository repository = mock(NoteRepository.class);
+        TextSearchStrategy strategy = new TextSearchStrategy();
+        Note strong = Note.builder().id("1").score(1.2f).build();
+        Note weak = Note.builder().id("2").score(0.3f).build();
+
+        when(repository.findByUserNameOrderByScoreDesc(eq("user"), any(TextCriteria.class), any(Pageable.class)))
+                .thenReturn(List.of(strong, weak));
+
+        assertEquals(List.of(strong), strategy.search(repository, "math", "user"));
+    }
+
+    @Test
+    void search_NothingFound() {
+        NoteRepository repository = mock(NoteRepository.class);
+        TextSearchStrategy strategy = new TextSearchStrategy();
+
+        when(repository.findByUserNameOrderByScoreDesc(eq("user"), any(TextCriteria.class), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+
+        assertEquals(Collections.emptyList(), strategy.search(repository, "math", "user"));
+    }
+}
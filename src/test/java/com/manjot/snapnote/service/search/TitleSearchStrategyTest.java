@@ -0,0 +1,32 @@
+package com.manjot.snapnote.service.search;
+
+import com.manjot.snapnote.model.Note;
+import com.manjot.snapnote.repository.NoteRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class TitleSearchStrategyTest {
+
+    @Test
+    void search_TitleFound() {
+        NoteRepository repository = mock(NoteRepository.class);
+        TitleSearchStrategy strategy = new TitleSearchStrategy();
+        String query = "test";
+        String userName = "user";
+        List<Note> expectedResult = Collections.singletonList(new Note());
+
+        when(repository.findByTitleContainingAndUserName(query, userName)).thenReturn(expectedResult);
+
+        List<Note> result = strategy.search(repository, query, userName);
+
+        assertEquals(expectedResult, result);
+
+        verify(repository, times(1)).findByTitleContainingAndUserName(query, userName);
+        verifyNoMoreInteractions(repository);
+    }
+}
@@ -0,0 +1,69 @@
+package com.manjot.snapnote.service.search;
+
+import com.manjot.snapnote.model.Note;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserLabelShardTest {
+
+    private static Note note(String id, String... labels) {
+        return Note.builder().id(id).userName("user").labelList(List.of(labels)).build();
+    }
+
+    private static List<String> ids(UserLabelShard shard, String expression) {
+        return shard.search(LabelExpression.parse(expression)).stream().map(Note::getId).sorted().toList();
+    }
+
+    private final UserLabelShard shard = UserLabelShard.build(List.of(
+            note("1", "math", "pending"),
+            note("2", "math", "done"),
+            note("3", "physics", "pending"),
+            note("4")));
+
+    @Test
+    void search_BooleanExpressions() {
+        assertThat(ids(shard, "math")).containsExactly("1", "2");
+        assertThat(ids(shard, "math AND pending")).containsExactly("1");
+        assertThat(ids(shard, "math OR physics")).containsExactly("1", "2", "3");
+        assertThat(ids(shard, "NOT pending")).containsExactly("2", "4");
+        assertThat(ids(shard, "(math OR physics) AND NOT done")).containsExactly("1", "3");
+        assertThat(ids(shard, "chemistry")).isEmpty();
+    }
+
+    @Test
+    void upsert_KeepsItsOwnCopy() {
+        Note note = Note.builder().id("5").userName("user").labelList(new ArrayList<>(List.of("math"))).build();
+        shard.upsert(note);
+        note.getLabelList().set(0, "physics");
+        shard.search(LabelExpression.parse("math")).forEach(found -> found.setLabelList(List.of("chemistry")));
+
+        shard.upsert(note("5", "done"));
+
+        assertThat(ids(shard, "math")).containsExactly("1", "2");
+        assertThat(ids(shard, "done")).containsExactly("2", "5");
+        assertThat(ids(shard, "chemistry")).isEmpty();
+    }
+
+    @Test
+    void upsert_ReplacesLabels() {
+        shard.upsert(note("1", "physics"));
+
+        assertThat(ids(shard, "math")).containsExactly("2");
+        assertThat(ids(shard, "physics")).containsExactly("1", "3");
+        assertThat(shard.size()).isEqualTo(4);
+    }
+
+    @Test
+    void delete_ReusesOrdinal() {
+        shard.delete("2");
+        shard.upsert(note("5", "math"));
+
+        assertThat(ids(shard, "math")).containsExactly("1", "5");
+        assertThat(ids(shard, "NOT math")).containsExactly("3", "4");
+        assertThat(ids(shard, "done")).isEmpty();
+    }
+}
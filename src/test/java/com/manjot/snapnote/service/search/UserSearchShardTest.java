@@ -0,0 +1,117 @@
+package com.manjot.snapnote.service.search;
+
+import com.manjot.snapnote.model.Note;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserSearchShardTest {
+
+    private static Note note(String id, String title, String content, String... labels) {
+        return Note.builder().id(id).userName("user").title(title).content(content).labelList(List.of(labels)).build();
+    }
+
+    @Test
+    void search_RanksByRelevance() {
+        UserSearchShard shard = UserSearchShard.build(List.of(
+                note("1", "Math notes", "integration and probability", "math"),
+                note("2", "Chemistry", "acid base topics", "chemistry"),
+                note("3", "Probability", "probability probability distributions", "math")));
+
+        List<Note> result = shard.search("probability ", 10);
+
+        assertThat(result).extracting(Note::getId).containsExactly("3", "1");
+    }
+
+    @Test
+    void search_ReturnsCopiesOfTheIndexedNotes() {
+        Note note = note("1", "Math notes", "integration", "math");
+        UserSearchShard shard = UserSearchShard.build(List.of(note));
+        note.setTitle("Chemistry");
+        shard.search("math ", 10).forEach(found -> found.setContent("acid"));
+
+        shard.delete("1");
+
+        assertThat(shard.search("math ", 10)).isEmpty();
+        assertThat(shard.search("integration ", 10)).isEmpty();
+        assertThat(shard.estimatedBytes()).isEqualTo(UserSearchShard.build(List.of()).estimatedBytes());
+    }
+
+    @Test
+    void search_ExpandsLastWordAsPrefix() {
+        UserSearchShard shard = UserSearchShard.build(List.of(
+                note("1", "Math notes", "integration", "math"),
+                note("2", "Chemistry", "acid base", "chemistry")));
+
+        assertThat(shard.search("integ", 10)).extracting(Note::getId).containsExactly("1");
+        assertThat(shard.search("integ ", 10)).isEmpty();
+    }
+
+    @Test
+    void search_LimitsResults() {
+        List<Note> notes = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            notes.add(note(String.valueOf(i), "todo " + i, "pending work", "todo"));
+        }
+        UserSearchShard shard = UserSearchShard.build(notes);
+
+        assertThat(shard.search("todo", 5)).hasSize(5);
+    }
+
+    @Test
+    void upsert_ReplacesPreviousVersion() {
+        UserSearchShard shard = UserSearchShard.build(List.of(note("1", "Draft", "old words")));
+
+        shard.upsert(note("1", "Draft", "new words"));
+
+        assertThat(shard.search("old ", 10)).isEmpty();
+        assertThat(shard.search("new ", 10)).extracting(Note::getContent).containsExactly("new words");
+        assertThat(shard.size()).isEqualTo(1);
+    }
+
+    @Test
+    void delete_RemovesNoteAndCompacts() {
+        List<Note> notes = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            notes.add(note(String.valueOf(i), "note", "shared word " + i));
+        }
+        UserSearchShard shard = UserSearchShard.build(notes);
+
+        for (int i = 0; i < 190; i++) {
+            shard.delete(String.valueOf(i));
+        }
+
+        assertThat(shard.size()).isEqualTo(10);
+        assertThat(shard.search("shared ", 100)).hasSize(10);
+        assertThat(shard.search("5 ", 10)).isEmpty();
+        assertThat(shard.search("195 ", 10)).extracting(Note::getId).containsExactly("195");
+    }
+
+    @Test
+    void upsert_RepeatedEditsStayBounded() {
+        UserSearchShard shard = UserSearchShard.build(List.of(note("1", "Draft", "version 0")));
+        long fresh = shard.estimatedBytes();
+
+        for (int i = 1; i <= 10_000; i++) {
+            shard.upsert(note("1", "Draft", "version " + i));
+        }
+
+        assertThat(shard.size()).isEqualTo(1);
+        assertThat(shard.search("10000 ", 10)).extracting(Note::getId).containsExactly("1");
+        // at most MIN_COMPACTION_SIZE tombstones with a few postings each are left over
+        assertThat(shard.estimatedBytes()).isLessThan(fresh + 64 * 3 * 8 + 512);
+    }
+
+    @Test
+    void delete_LowersEstimatedBytes() {
+        UserSearchShard shard = UserSearchShard.build(List.of(note("1", "Draft", "words")));
+        long empty = UserSearchShard.build(List.of()).estimatedBytes();
+
+        shard.delete("1");
+
+        assertThat(shard.estimatedBytes()).isEqualTo(empty);
+    }
+}